@@ -0,0 +1,164 @@
+package engineering.enablement.claudecraft.data;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding one state.json document: the Gson tree the state writer used to build
+ * against StateJsonWriter. Run with ./gradlew jmh; the gc profiler reports
+ * gc.alloc.rate.norm (bytes allocated per snapshot) for each path.
+ * File I/O is left out of both.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StateSnapshotBenchmark {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private PlayerStateSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        snapshot = new PlayerStateSnapshot();
+        snapshot.x = 128.482;
+        snapshot.y = 64.0;
+        snapshot.z = -2051.17;
+        snapshot.yaw = 172.5f;
+        snapshot.pitch = -12.25f;
+        snapshot.dimension = "minecraft:overworld";
+        snapshot.biome = "minecraft:plains";
+        snapshot.health = 17.5f;
+        snapshot.maxHealth = 20f;
+        snapshot.food = 18;
+        snapshot.saturation = 3.2f;
+        snapshot.gamemode = "survival";
+        snapshot.xpLevel = 23;
+        snapshot.xpProgress = 0.418f;
+        snapshot.world = new WorldInfoCache.WorldSnapshot();
+
+        // A typical mid-game inventory: full hotbar, half-full main inventory, armor
+        String[] items = {"minecraft:diamond_pickaxe", "minecraft:iron_sword", "minecraft:torch",
+            "minecraft:cobblestone", "minecraft:bread", "minecraft:oak_planks", "minecraft:water_bucket"};
+        for (int slot = 0; slot < 41; slot++) {
+            if (slot >= 22 && slot < 36) {
+                continue;
+            }
+            snapshot.itemIds[slot] = items[slot % items.length];
+            snapshot.counts[slot] = 1 + slot % 64;
+            if (slot % 7 < 2 || slot >= 36) {
+                snapshot.durability[slot] = 900 - slot;
+                snapshot.maxDurability[slot] = 1561;
+            }
+        }
+        snapshot.selectedSlot = 2;
+    }
+
+    @Benchmark
+    public int streamingWriter() {
+        StateJsonWriter writer = StateJsonWriter.forCurrentThread(true);
+        snapshot.write(writer, System.currentTimeMillis());
+        return writer.size();
+    }
+
+    @Benchmark
+    public int gsonTree() {
+        JsonObject state = new JsonObject();
+
+        JsonObject position = new JsonObject();
+        position.addProperty("x", snapshot.x);
+        position.addProperty("y", snapshot.y);
+        position.addProperty("z", snapshot.z);
+        state.add("position", position);
+        state.addProperty("dimension", snapshot.dimension);
+        JsonObject rotation = new JsonObject();
+        rotation.addProperty("yaw", snapshot.yaw);
+        rotation.addProperty("pitch", snapshot.pitch);
+        state.add("rotation", rotation);
+        state.addProperty("biome", snapshot.biome);
+
+        state.addProperty("health", snapshot.health);
+        state.addProperty("max_health", snapshot.maxHealth);
+        state.addProperty("hunger", snapshot.food);
+        state.addProperty("saturation", snapshot.saturation);
+        state.addProperty("gamemode", snapshot.gamemode);
+        state.addProperty("xp_level", snapshot.xpLevel);
+        state.addProperty("xp_progress", snapshot.xpProgress);
+
+        JsonObject inventory = new JsonObject();
+        JsonArray hotbar = new JsonArray();
+        for (int i = 0; i < 9; i++) {
+            hotbar.add(gsonSlot(i, i));
+        }
+        inventory.add("hotbar", hotbar);
+        JsonArray main = new JsonArray();
+        for (int i = 9; i < 36; i++) {
+            if (snapshot.itemIds[i] != null) {
+                main.add(gsonSlot(i, i));
+            }
+        }
+        inventory.add("main", main);
+        JsonObject armor = new JsonObject();
+        armor.add("head", gsonSlot(39, -1));
+        armor.add("chest", gsonSlot(38, -1));
+        armor.add("legs", gsonSlot(37, -1));
+        armor.add("feet", gsonSlot(36, -1));
+        inventory.add("armor", armor);
+        inventory.add("offhand", gsonSlot(40, -1));
+        inventory.addProperty("selected_slot", snapshot.selectedSlot);
+        state.add("inventory", inventory);
+
+        JsonObject world = new JsonObject();
+        JsonObject time = new JsonObject();
+        time.addProperty("ticks", 0L);
+        time.addProperty("day", 0L);
+        time.addProperty("is_day", true);
+        time.addProperty("phase", "morning");
+        world.add("time", time);
+        JsonObject weather = new JsonObject();
+        weather.addProperty("clear", true);
+        weather.addProperty("raining", false);
+        weather.addProperty("thundering", false);
+        world.add("weather", weather);
+        world.addProperty("hardcore", false);
+        JsonObject server = new JsonObject();
+        server.addProperty("player_count", 0);
+        server.addProperty("max_players", 0);
+        world.add("server", server);
+        state.add("world", world);
+
+        state.add("nearby", new JsonObject());
+        state.addProperty("updated_at", Instant.now().toString());
+
+        return GSON.toJson(state).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private JsonObject gsonSlot(int slot, int slotIndex) {
+        if (snapshot.itemIds[slot] == null) {
+            return null;
+        }
+        JsonObject item = new JsonObject();
+        if (slotIndex >= 0) {
+            item.addProperty("slot", slotIndex);
+        }
+        item.addProperty("item", snapshot.itemIds[slot]);
+        item.addProperty("count", snapshot.counts[slot]);
+        if (snapshot.maxDurability[slot] > 0) {
+            item.addProperty("durability", snapshot.durability[slot]);
+            item.addProperty("max_durability", snapshot.maxDurability[slot]);
+        }
+        return item;
+    }
+}
@@ -1,15 +1,33 @@
 package engineering.enablement.claudecraft;
 
+import engineering.enablement.claudecraft.backend.ChatBackends;
+import engineering.enablement.claudecraft.command.ClaudeCraftCommand;
+import engineering.enablement.claudecraft.claude.ClaudeProcessTracker;
+import engineering.enablement.claudecraft.claude.HedgePolicy;
+import engineering.enablement.claudecraft.claude.OrphanReaper;
+import engineering.enablement.claudecraft.claude.ProcessIsolation;
+import engineering.enablement.claudecraft.claude.RunAdmission;
 import engineering.enablement.claudecraft.data.PlayerDataManager;
+import engineering.enablement.claudecraft.data.PlayerStateEvents;
+import engineering.enablement.claudecraft.data.StateSection;
+import engineering.enablement.claudecraft.metrics.ToolLatencies;
+import engineering.enablement.claudecraft.metrics.UsageLedger;
+import engineering.enablement.claudecraft.routing.FaqIndex;
+import engineering.enablement.claudecraft.routing.ModelRouter;
+import engineering.enablement.claudecraft.routing.ResponseCache;
+import engineering.enablement.claudecraft.skill.SkillServer;
 import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.bus.api.IEventBus;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
+import net.neoforged.fml.config.ModConfig;
 import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.RegisterCommandsEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
 import net.neoforged.neoforge.event.server.ServerStartingEvent;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,13 +47,16 @@ public class ClaudeCraft {
     public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 
     private static PlayerDataManager dataManager;
-    private int tickCounter = 0;
-    private static final int STATE_UPDATE_INTERVAL = 20; // Update every second (20 ticks)
+    private static SkillServer skillServer;
+    private static FaqIndex faqIndex;
 
     public ClaudeCraft(IEventBus modEventBus, ModContainer modContainer) {
         // Register mod lifecycle events
         modEventBus.addListener(this::commonSetup);
 
+        // Register server config
+        modContainer.registerConfig(ModConfig.Type.SERVER, ClaudeCraftConfig.SPEC);
+
         // Register server events
         NeoForge.EVENT_BUS.register(this);
 
@@ -57,6 +78,78 @@ public class ClaudeCraft {
                 dataManager.getPluginDir());
         } catch (Exception e) {
             LOGGER.error("Failed to initialize Claude Craft plugin directory", e);
+            return;
+        }
+
+        OrphanReaper.init(dataManager.getPluginDir());
+        ProcessIsolation.init();
+        UsageLedger.init(dataManager.getPluginDir());
+
+        faqIndex = FaqIndex.load(dataManager.getPluginDir().resolve("faq.json"),
+            ClaudeCraftConfig.FAQ_MAX_AGE_DAYS.get() * 24L * 60 * 60 * 1000);
+
+        try {
+            skillServer = new SkillServer(event.getServer(), dataManager);
+            skillServer.start();
+        } catch (Exception e) {
+            LOGGER.error("Failed to start Claude Craft skill server", e);
+            skillServer = null;
+        }
+    }
+
+    @SubscribeEvent
+    public void onRegisterCommands(RegisterCommandsEvent event) {
+        ClaudeCraftCommand.register(event.getDispatcher());
+    }
+
+    @SubscribeEvent
+    public void onServerStopping(ServerStoppingEvent event) {
+        ChatBackends.shutdown();
+        drainRuns();
+        if (skillServer != null) {
+            skillServer.stop();
+            skillServer = null;
+        }
+        if (dataManager != null) {
+            dataManager.saveAll();
+            dataManager.clearCaches();
+            ModelRouter.saveStats(dataManager.getPluginDir().resolve("metrics").resolve("model-latency.json"));
+            ToolLatencies.saveStats(dataManager.getPluginDir().resolve("metrics").resolve("tool-latency.json"));
+            UsageLedger.shutdown();
+        }
+        if (faqIndex != null) {
+            faqIndex.shutdown();
+            faqIndex = null;
+        }
+        LOGGER.info("Response cache: {}", ResponseCache.getStats());
+        LOGGER.info("Hedging: {}", HedgePolicy.getStats());
+        LOGGER.info("Claude processes: {}", ClaudeProcessTracker.getStats());
+        LOGGER.info("Usage today: {}", UsageLedger.getStats());
+    }
+
+    /**
+     * Give running answers the configured grace period to finish, then kill
+     * whatever is left (with child processes). Queued messages are dropped.
+     */
+    private void drainRuns() {
+        int dropped = RunAdmission.clear();
+        long deadline = System.currentTimeMillis() + ClaudeCraftConfig.SHUTDOWN_GRACE_SECONDS.get() * 1000L;
+        int running = ClaudeProcessTracker.getTotalActiveCount();
+        if (running > 0) {
+            LOGGER.info("Waiting up to {}s for {} Claude run(s) to finish",
+                ClaudeCraftConfig.SHUTDOWN_GRACE_SECONDS.get(), running);
+        }
+        try {
+            while (ClaudeProcessTracker.getTotalActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int killed = ClaudeProcessTracker.cancelAll();
+        if (dropped > 0 || killed > 0) {
+            LOGGER.info("Shutdown: dropped {} queued message(s), killed {} Claude run(s)", dropped, killed);
         }
     }
 
@@ -71,13 +164,18 @@ public class ClaudeCraft {
         try {
             if (dataManager != null) {
                 dataManager.initializePlayer(player.getUUID());
+                PlayerStateEvents.trackInventory(player);
                 dataManager.updatePlayerState(player);
+                dataManager.markAllDirty(StateSection.WORLD);  // Player count changed
             }
 
             // Start fresh conversation on join (player can resume old ones via History)
             engineering.enablement.claudecraft.network.ChatSessionManager.newConversation(player.getUUID());
             LOGGER.info("Started fresh conversation for player {}", player.getName().getString());
 
+            // An answer that finished while they were away reopens its conversation
+            engineering.enablement.claudecraft.network.OfflineAnswers.deliver(player);
+
         } catch (Exception e) {
             LOGGER.error("Failed to initialize player data for {}", player.getName().getString(), e);
         }
@@ -95,24 +193,23 @@ public class ClaudeCraft {
 
         // Clean up session manager state and cancel active processes
         engineering.enablement.claudecraft.network.ChatSessionManager.onPlayerDisconnect(playerUuid);
+
+        if (dataManager != null) {
+            dataManager.removePlayer(playerUuid);
+            dataManager.markAllDirty(StateSection.WORLD);  // Player count changed
+        }
     }
 
     @SubscribeEvent
     public void onServerTick(ServerTickEvent.Post event) {
-        tickCounter++;
-        if (tickCounter < STATE_UPDATE_INTERVAL) {
-            return;
-        }
-        tickCounter = 0;
-
-        // Update state files for all online players
+        // Flush state files for players with changes (events mark sections dirty)
         if (dataManager == null) {
             return;
         }
 
         for (ServerPlayer player : event.getServer().getPlayerList().getPlayers()) {
             try {
-                dataManager.updatePlayerState(player);
+                dataManager.flushPlayerState(player);
             } catch (Exception e) {
                 // Don't spam logs, just log debug
                 LOGGER.debug("Failed to update state for {}: {}",
@@ -127,4 +224,18 @@ public class ClaudeCraft {
     public static PlayerDataManager getDataManager() {
         return dataManager;
     }
+
+    /**
+     * Get the skill server, or null if it isn't running.
+     */
+    public static SkillServer getSkillServer() {
+        return skillServer;
+    }
+
+    /**
+     * Get the shared FAQ index, or null if the server isn't running.
+     */
+    public static FaqIndex getFaqIndex() {
+        return faqIndex;
+    }
 }
@@ -0,0 +1,341 @@
+package engineering.enablement.claudecraft;
+
+import net.neoforged.neoforge.common.ModConfigSpec;
+
+/**
+ * Server-side configuration (claudecraft-server.toml in the world's serverconfig folder).
+ * Values are reloaded automatically when the file is edited while the server runs.
+ */
+public class ClaudeCraftConfig {
+    private static final ModConfigSpec.Builder BUILDER = new ModConfigSpec.Builder();
+
+    // Player state files
+    static {
+        BUILDER.comment("Player state files read by the AI skills").push("state");
+    }
+
+    public static final ModConfigSpec.BooleanValue COMPACT_STATE_JSON = BUILDER
+        .comment("Write state.json without indentation (smaller and faster to write)")
+        .define("compactStateJson", false);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Message routing
+    static {
+        BUILDER.comment("How chat messages are routed before reaching Claude").push("routing");
+    }
+
+    public static final ModConfigSpec.BooleanValue INTENT_FAST_PATH = BUILDER
+        .comment("Answer simple game-state questions (position, time, health, ...) in-mod without running Claude")
+        .define("intentFastPath", true);
+
+    public static final ModConfigSpec.BooleanValue RESPONSE_CACHE_ENABLED = BUILDER
+        .comment("Reuse Claude's answers to identical general questions across players")
+        .define("responseCache", true);
+
+    public static final ModConfigSpec.IntValue RESPONSE_CACHE_SIZE = BUILDER
+        .comment("Maximum number of cached answers (least recently used are evicted)")
+        .defineInRange("responseCacheSize", 256, 1, 100_000);
+
+    public static final ModConfigSpec.IntValue RESPONSE_CACHE_TTL_MINUTES = BUILDER
+        .comment("How long a cached answer stays valid, in minutes")
+        .defineInRange("responseCacheTtlMinutes", 60, 1, 7 * 24 * 60);
+
+    public static final ModConfigSpec.BooleanValue FAQ_CACHE_ENABLED = BUILDER
+        .comment("Answer questions similar to a previously answered general question from the shared FAQ index")
+        .define("faqCache", true);
+
+    public static final ModConfigSpec.DoubleValue FAQ_SIMILARITY = BUILDER
+        .comment("Minimum similarity (0-1) for a question to reuse a FAQ answer; higher is stricter")
+        .defineInRange("faqSimilarity", 0.85, 0.5, 1.0);
+
+    public static final ModConfigSpec.IntValue FAQ_MAX_AGE_DAYS = BUILDER
+        .comment("FAQ answers older than this many days are no longer used")
+        .defineInRange("faqMaxAgeDays", 30, 1, 3650);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Model selection
+    static {
+        BUILDER.comment("Which Claude model and turn budget each request gets").push("models");
+    }
+
+    public static final ModConfigSpec.BooleanValue MODEL_ROUTING = BUILDER
+        .comment("Pick the tier per request; when false every request uses the complex tier")
+        .define("modelRouting", true);
+
+    public static final ModConfigSpec.ConfigValue<String> QUICK_MODEL = BUILDER
+        .comment("Model for short, simple questions")
+        .define("quickModel", "haiku");
+
+    public static final ModConfigSpec.IntValue QUICK_MAX_TURNS = BUILDER
+        .defineInRange("quickMaxTurns", 10, 1, 500);
+
+    public static final ModConfigSpec.ConfigValue<String> STANDARD_MODEL = BUILDER
+        .comment("Model for ordinary requests")
+        .define("standardModel", "sonnet");
+
+    public static final ModConfigSpec.IntValue STANDARD_MAX_TURNS = BUILDER
+        .defineInRange("standardMaxTurns", 40, 1, 500);
+
+    public static final ModConfigSpec.ConfigValue<String> COMPLEX_MODEL = BUILDER
+        .comment("Model for long prompts and planning requests")
+        .define("complexModel", "sonnet");
+
+    public static final ModConfigSpec.IntValue COMPLEX_MAX_TURNS = BUILDER
+        .defineInRange("complexMaxTurns", 100, 1, 500);
+
+    public static final ModConfigSpec.IntValue ROUTING_LOAD_THRESHOLD = BUILDER
+        .comment("With this many Claude processes running server-wide, requests drop to the next cheaper tier")
+        .defineInRange("loadThreshold", 4, 1, 1000);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Conversation compaction
+    static {
+        BUILDER.comment("Every message reloads the whole conversation, so long ones get slower and costlier").push("sessions");
+    }
+
+    public static final ModConfigSpec.BooleanValue COMPACT_SESSIONS = BUILDER
+        .comment("Once a conversation grows past compactSessionKb, continue it in a new one seeded with a summary and the latest turns")
+        .define("compactSessions", true);
+
+    public static final ModConfigSpec.IntValue COMPACT_SESSION_KB = BUILDER
+        .comment("Size of a conversation's session file that triggers compaction, in KB")
+        .defineInRange("compactSessionKb", 512, 64, 65536);
+
+    public static final ModConfigSpec.IntValue COMPACT_RECENT_TURNS = BUILDER
+        .comment("How many of the latest question-and-answer turns are carried over word for word")
+        .defineInRange("compactRecentTurns", 4, 0, 50);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Backend
+    static {
+        BUILDER.comment("How messages reach Claude").push("backend");
+    }
+
+    public static final ModConfigSpec.ConfigValue<String> BACKEND_TYPE = BUILDER
+        .comment("\"cli\" runs the Claude Code CLI per message; \"http\" streams the Messages API from the server JVM")
+        .define("type", "cli");
+
+    public static final ModConfigSpec.ConfigValue<String> CLI_COMMAND = BUILDER
+        .comment("Command run instead of the auto-detected claude executable, split on spaces (e.g. the fake CLI",
+            "for load testing: \"java -cp claudecraft.jar engineering.enablement.claudecraft.loadtest.FakeClaudeCli\").",
+            "Empty to auto-detect")
+        .define("cliCommand", "");
+
+    public static final ModConfigSpec.ConfigValue<String> HTTP_BASE_URL = BUILDER
+        .comment("Messages API base URL for the http backend (point at a local mock server for testing)")
+        .define("httpBaseUrl", "https://api.anthropic.com");
+
+    public static final ModConfigSpec.ConfigValue<String> HTTP_API_KEY_ENV = BUILDER
+        .comment("Environment variable holding the API key for the http backend")
+        .define("httpApiKeyEnv", "ANTHROPIC_API_KEY");
+
+    public static final ModConfigSpec.IntValue HTTP_MAX_TOKENS = BUILDER
+        .comment("max_tokens for each model turn with the http backend")
+        .defineInRange("httpMaxTokens", 4096, 256, 64_000);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Speculative pre-spawn
+    static {
+        BUILDER.comment("Start Claude while the player is still typing to hide CLI startup time").push("prespawn");
+    }
+
+    public static final ModConfigSpec.BooleanValue PRESPAWN_ENABLED = BUILDER
+        .comment("Pre-spawn a Claude process when a player opens the chat screen")
+        .define("enabled", true);
+
+    public static final ModConfigSpec.IntValue PRESPAWN_IDLE_SECONDS = BUILDER
+        .comment("Kill a pre-spawned process if no message arrives within this many seconds")
+        .defineInRange("idleSeconds", 45, 5, 600);
+
+    public static final ModConfigSpec.IntValue PRESPAWN_MAX_GLOBAL = BUILDER
+        .comment("Maximum number of pre-spawned processes waiting at once across all players")
+        .defineInRange("maxGlobal", 4, 0, 100);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Server-wide limits
+    static {
+        BUILDER.comment("Server-wide limits on Claude runs").push("limits");
+    }
+
+    public static final ModConfigSpec.IntValue MAX_CONCURRENT_RUNS = BUILDER
+        .comment("Maximum Claude runs at once across all players; further messages wait in a queue")
+        .defineInRange("maxConcurrentRuns", 8, 1, 256);
+
+    public static final ModConfigSpec.IntValue PLAYER_MESSAGES_PER_MINUTE = BUILDER
+        .comment("Messages per minute each player can send to Claude on average; faster messages are delayed, not rejected (0 = no limit)")
+        .defineInRange("playerMessagesPerMinute", 20, 0, 6000);
+
+    public static final ModConfigSpec.IntValue PLAYER_BURST = BUILDER
+        .comment("Messages a player can send back to back before the per-minute rate applies")
+        .defineInRange("playerBurst", 3, 1, 1000);
+
+    public static final ModConfigSpec.IntValue GLOBAL_MESSAGES_PER_MINUTE = BUILDER
+        .comment("Messages per minute across all players on average (0 = no limit)")
+        .defineInRange("globalMessagesPerMinute", 120, 0, 60000);
+
+    public static final ModConfigSpec.IntValue GLOBAL_BURST = BUILDER
+        .comment("Messages all players together can send back to back before the global rate applies")
+        .defineInRange("globalBurst", 20, 1, 10000);
+
+    public static final ModConfigSpec.IntValue MAX_RATE_LIMIT_WAIT_SECONDS = BUILDER
+        .comment("A message that would be delayed longer than this by the rate limits is rejected instead, in seconds")
+        .defineInRange("maxRateLimitWaitSeconds", 60, 0, 3600);
+
+    public static final ModConfigSpec.IntValue MAX_PROCESS_MEMORY_MB = BUILDER
+        .comment("Stop a run whose CLI process tree uses more resident memory than this, in MB (0 = no limit; Linux only)")
+        .defineInRange("maxProcessMemoryMb", 0, 0, 1_048_576);
+
+    public static final ModConfigSpec.IntValue MAX_PROCESS_CPU_SECONDS = BUILDER
+        .comment("Stop a run whose CLI process tree uses more CPU time than this, in seconds (0 = no limit)")
+        .defineInRange("maxProcessCpuSeconds", 0, 0, 86_400);
+
+    public static final ModConfigSpec.BooleanValue FINISH_OFFLINE = BUILDER
+        .comment("Let a running answer finish when its player disconnects (or times out); it is shown on their next login")
+        .define("finishOffline", false);
+
+    public static final ModConfigSpec.IntValue OFFLINE_BUDGET_SECONDS = BUILDER
+        .comment("How long an answer may keep running after its player disconnected, in seconds")
+        .defineInRange("offlineBudgetSeconds", 120, 1, 3600);
+
+    public static final ModConfigSpec.LongValue DAILY_TOKEN_QUOTA = BUILDER
+        .comment("Tokens (input, output and cached) each player may use per day; 0 = unlimited")
+        .defineInRange("dailyTokenQuota", 0L, 0L, Long.MAX_VALUE);
+
+    public static final ModConfigSpec.DoubleValue DAILY_COST_QUOTA_USD = BUILDER
+        .comment("Spend in USD each player may use per day, as reported by Claude Code; 0 = unlimited")
+        .defineInRange("dailyCostQuotaUsd", 0.0, 0.0, 10000.0);
+
+    public static final ModConfigSpec.BooleanValue QUOTA_EXEMPT_OPS = BUILDER
+        .comment("Don't apply the daily quotas to server operators")
+        .define("quotaExemptOps", true);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Process isolation
+    static {
+        BUILDER.comment("Keep Claude processes from competing with the server tick thread (Linux only; each feature is skipped if unavailable)").push("isolation");
+    }
+
+    public static final ModConfigSpec.BooleanValue ISOLATION_ENABLED = BUILDER
+        .comment("Launch CLI processes through nice/ionice/taskset and a cgroup")
+        .define("enabled", false);
+
+    public static final ModConfigSpec.IntValue NICENESS = BUILDER
+        .comment("Niceness for CLI processes (0 = normal priority, 19 = lowest)")
+        .defineInRange("niceness", 10, 0, 19);
+
+    public static final ModConfigSpec.BooleanValue LOW_IO_PRIORITY = BUILDER
+        .comment("Run CLI processes in the lowest best-effort I/O class (ionice)")
+        .define("lowIoPriority", true);
+
+    public static final ModConfigSpec.IntValue RESERVED_CPUS = BUILDER
+        .comment("Keep CLI processes off the first N CPUs so the server always has them (taskset; 0 = no affinity)")
+        .defineInRange("reservedCpus", 1, 0, 256);
+
+    public static final ModConfigSpec.BooleanValue CGROUP_ENABLED = BUILDER
+        .comment("Put CLI processes in a shared cgroup v2 group with the limits below, if cgroups are writable")
+        .define("cgroup", true);
+
+    public static final ModConfigSpec.ConfigValue<String> CGROUP_PATH = BUILDER
+        .comment("cgroup directory to use; empty = a 'claudecraft' group next to the server's own cgroup")
+        .define("cgroupPath", "");
+
+    public static final ModConfigSpec.IntValue CGROUP_CPU_PERCENT = BUILDER
+        .comment("CPU limit for all CLI processes together, in percent of one core (200 = two cores; 0 = no limit)")
+        .defineInRange("cgroupCpuPercent", 0, 0, 25_600);
+
+    public static final ModConfigSpec.IntValue CGROUP_MEMORY_MB = BUILDER
+        .comment("Memory limit for all CLI processes together, in MB (0 = no limit)")
+        .defineInRange("cgroupMemoryMb", 0, 0, 1_048_576);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Time limits
+    static {
+        BUILDER.comment("Time limits for a single Claude run; the run is killed with its child processes when one is hit").push("timeouts");
+    }
+
+    public static final ModConfigSpec.IntValue RUN_DEADLINE_SECONDS = BUILDER
+        .comment("Maximum total time for one message, in seconds")
+        .defineInRange("deadlineSeconds", 300, 10, 3600);
+
+    public static final ModConfigSpec.IntValue RUN_IDLE_SECONDS = BUILDER
+        .comment("Maximum time without output while Claude is generating (including startup), in seconds")
+        .defineInRange("idleSeconds", 60, 5, 3600);
+
+    public static final ModConfigSpec.IntValue RUN_TOOL_SECONDS = BUILDER
+        .comment("Maximum time for a single tool call, in seconds")
+        .defineInRange("toolSeconds", 120, 5, 3600);
+
+    public static final ModConfigSpec.IntValue SHUTDOWN_GRACE_SECONDS = BUILDER
+        .comment("On server stop, how long running answers may finish before they are killed, in seconds")
+        .defineInRange("shutdownGraceSeconds", 10, 0, 300);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Hedged requests
+    static {
+        BUILDER.comment("Start a second CLI attempt when the first is unusually slow to produce output").push("hedging");
+    }
+
+    public static final ModConfigSpec.BooleanValue HEDGING_ENABLED = BUILDER
+        .comment("Hedge requests that start a new conversation and whose first output takes longer than the recent 95th percentile")
+        .define("enabled", false);
+
+    public static final ModConfigSpec.IntValue HEDGE_BUDGET_PERCENT = BUILDER
+        .comment("Extra processes hedging may start, as a percentage of requests")
+        .defineInRange("budgetPercent", 5, 0, 100);
+
+    public static final ModConfigSpec.IntValue HEDGE_MIN_DELAY_MS = BUILDER
+        .comment("Never hedge sooner than this many milliseconds after the first attempt started")
+        .defineInRange("minDelayMs", 2000, 100, 120_000);
+
+    static {
+        BUILDER.pop();
+    }
+
+    // Load testing
+    static {
+        BUILDER.comment("Tools for benchmarking the mod without real Claude usage").push("loadtest");
+    }
+
+    public static final ModConfigSpec.BooleanValue RECORD_TRANSCRIPTS = BUILDER
+        .comment("Save the stream-json output of successful CLI runs to transcripts/ in the plugin directory,",
+            "for replay by the fake CLI")
+        .define("recordTranscripts", false);
+
+    public static final ModConfigSpec.BooleanValue RECORD_SSE_STREAMS = BUILDER
+        .comment("Save the raw SSE body of each successful Messages API response from the http backend to",
+            "sse-transcripts/ in the plugin directory, for replay by the fake Messages API server")
+        .define("recordSseStreams", false);
+
+    static {
+        BUILDER.pop();
+    }
+
+    public static final ModConfigSpec SPEC = BUILDER.build();
+}
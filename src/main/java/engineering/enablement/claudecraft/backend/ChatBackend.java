@@ -0,0 +1,31 @@
+package engineering.enablement.claudecraft.backend;
+
+/**
+ * Something that can answer chat messages: the Claude Code CLI, or the Messages
+ * API called directly from the JVM. Selected with backend.type in the server config.
+ */
+public interface ChatBackend {
+
+    /**
+     * Short name for logs and config ("cli", "http").
+     */
+    String getName();
+
+    /**
+     * Prepare a run for one message. Nothing is started until {@link ChatRun#run}.
+     */
+    ChatRun prepare(ChatRequest request);
+
+    /**
+     * Hint that the player is about to send a message, so expensive startup can
+     * begin early. Optional.
+     */
+    default void prime(ChatRequest request) {
+    }
+
+    /**
+     * Release resources when the server stops.
+     */
+    default void shutdown() {
+    }
+}
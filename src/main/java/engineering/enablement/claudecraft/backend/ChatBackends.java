@@ -0,0 +1,45 @@
+package engineering.enablement.claudecraft.backend;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.backend.http.HttpBackend;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Looks up the configured {@link ChatBackend}. Backends are created on first use
+ * and kept, so switching backend.type in the config takes effect for the next message.
+ */
+public class ChatBackends {
+    private static final Map<String, ChatBackend> backends = new ConcurrentHashMap<>();
+
+    /**
+     * Get the backend selected in the server config (falls back to the CLI).
+     */
+    public static ChatBackend get() {
+        String type = ClaudeCraftConfig.BACKEND_TYPE.get();
+        return backends.computeIfAbsent(type, ChatBackends::create);
+    }
+
+    private static ChatBackend create(String type) {
+        ChatBackend backend = switch (type) {
+            case "http" -> new HttpBackend();
+            case "cli" -> new CliBackend();
+            default -> {
+                ClaudeCraft.LOGGER.warn("Unknown backend type '{}', using cli", type);
+                yield new CliBackend();
+            }
+        };
+        ClaudeCraft.LOGGER.info("Using {} chat backend", backend.getName());
+        return backend;
+    }
+
+    /**
+     * Shut down every backend that was created (server stopping).
+     */
+    public static void shutdown() {
+        backends.values().forEach(ChatBackend::shutdown);
+        backends.clear();
+    }
+}
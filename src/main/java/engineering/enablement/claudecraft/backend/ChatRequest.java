@@ -0,0 +1,21 @@
+package engineering.enablement.claudecraft.backend;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Everything a backend needs to answer a player's message, apart from the prompt.
+ *
+ * @param workingDirectory the plugin directory
+ * @param sessionId the conversation to continue, or null for a new one
+ * @param model model alias from the routing tier (e.g. "sonnet")
+ * @param maxTurns maximum number of model turns (tool round-trips) per message
+ */
+public record ChatRequest(
+    Path workingDirectory,
+    UUID playerUuid,
+    boolean isOp,
+    String sessionId,
+    String model,
+    int maxTurns
+) {}
@@ -0,0 +1,47 @@
+package engineering.enablement.claudecraft.backend;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A single message being answered by a {@link ChatBackend}.
+ */
+public interface ChatRun {
+
+    /**
+     * Run a prompt and stream the response.
+     *
+     * @param prompt The user's message
+     * @param onTextChunk Called for each text chunk (for streaming display)
+     * @param onComplete Called when the response is complete
+     * @param onError Called if an error occurs
+     * @return CompletableFuture that completes when the run finishes
+     */
+    CompletableFuture<String> run(
+        String prompt,
+        Consumer<String> onTextChunk,
+        Consumer<String> onComplete,
+        Consumer<Exception> onError
+    );
+
+    /**
+     * Set a listener told when each tool call starts and finishes (called from
+     * the run's thread). Call before {@link #run}.
+     */
+    void setToolListener(Consumer<ToolProgress> listener);
+
+    /**
+     * Get the session ID (a new conversation gets one during the run).
+     */
+    String getSessionId();
+
+    /**
+     * Tokens and cost of the run so far ({@link RunUsage#EMPTY} if none were reported).
+     */
+    RunUsage getUsage();
+
+    /**
+     * Whether the run called any tools (e.g. read the player's state).
+     */
+    boolean usedTools();
+}
@@ -0,0 +1,44 @@
+package engineering.enablement.claudecraft.backend;
+
+import engineering.enablement.claudecraft.claude.ClaudeProcess;
+import engineering.enablement.claudecraft.claude.PrespawnPool;
+
+/**
+ * Runs each message through a Claude Code CLI subprocess, reusing a process
+ * pre-spawned when the chat screen opened if it still fits.
+ */
+public class CliBackend implements ChatBackend {
+
+    @Override
+    public String getName() {
+        return "cli";
+    }
+
+    @Override
+    public ChatRun prepare(ChatRequest request) {
+        ClaudeProcess prespawned = PrespawnPool.take(
+            request.playerUuid(), request.sessionId(), request.model(), request.maxTurns());
+        if (prespawned != null) {
+            return prespawned;
+        }
+
+        ClaudeProcess claude = new ClaudeProcess(request.workingDirectory(), request.playerUuid(), request.isOp());
+        if (request.sessionId() != null) {
+            claude.setSessionId(request.sessionId());
+        }
+        claude.setModel(request.model());
+        claude.setMaxTurns(request.maxTurns());
+        return claude;
+    }
+
+    @Override
+    public void prime(ChatRequest request) {
+        PrespawnPool.offer(request.workingDirectory(), request.playerUuid(), request.isOp(),
+            request.sessionId(), request.model(), request.maxTurns());
+    }
+
+    @Override
+    public void shutdown() {
+        PrespawnPool.discardAll();
+    }
+}
@@ -0,0 +1,43 @@
+package engineering.enablement.claudecraft.backend;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Tokens and cost of one {@link ChatRun}, as reported by the backend.
+ *
+ * @param costUsd cost reported by the CLI (0 when the backend doesn't report one)
+ */
+public record RunUsage(long inputTokens, long outputTokens, long cacheReadTokens, long cacheCreationTokens,
+                       double costUsd) {
+
+    public static final RunUsage EMPTY = new RunUsage(0, 0, 0, 0, 0);
+
+    /**
+     * Read a Messages API style usage object ("input_tokens", "output_tokens",
+     * "cache_read_input_tokens", "cache_creation_input_tokens"); missing fields are 0.
+     */
+    public static RunUsage fromJson(JsonObject usage, double costUsd) {
+        if (usage == null) {
+            return new RunUsage(0, 0, 0, 0, costUsd);
+        }
+        return new RunUsage(getLong(usage, "input_tokens"), getLong(usage, "output_tokens"),
+            getLong(usage, "cache_read_input_tokens"), getLong(usage, "cache_creation_input_tokens"), costUsd);
+    }
+
+    public RunUsage plus(RunUsage other) {
+        return new RunUsage(inputTokens + other.inputTokens, outputTokens + other.outputTokens,
+            cacheReadTokens + other.cacheReadTokens, cacheCreationTokens + other.cacheCreationTokens,
+            costUsd + other.costUsd);
+    }
+
+    /**
+     * All tokens processed, including cached prompt tokens.
+     */
+    public long totalTokens() {
+        return inputTokens + outputTokens + cacheReadTokens + cacheCreationTokens;
+    }
+
+    private static long getLong(JsonObject json, String key) {
+        return json.has(key) && json.get(key).isJsonPrimitive() ? json.get(key).getAsLong() : 0;
+    }
+}
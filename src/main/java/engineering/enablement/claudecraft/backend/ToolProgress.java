@@ -0,0 +1,24 @@
+package engineering.enablement.claudecraft.backend;
+
+/**
+ * A tool call starting or finishing during a {@link ChatRun}.
+ *
+ * @param name tool name (Bash, Read, Write, ...)
+ * @param detail short description of the target, e.g. the script or file name (may be empty)
+ * @param done false when the call starts, true when its result is back
+ * @param elapsedMs how long the call took (0 when starting)
+ * @param error whether the tool reported an error
+ */
+public record ToolProgress(String name, String detail, boolean done, long elapsedMs, boolean error) {
+
+    public static ToolProgress started(String name, String detail) {
+        return new ToolProgress(name, detail, false, 0, false);
+    }
+
+    /**
+     * "Bash mc-get-inventory.sh", or just the tool name.
+     */
+    public String label() {
+        return detail.isEmpty() ? name : name + " " + detail;
+    }
+}
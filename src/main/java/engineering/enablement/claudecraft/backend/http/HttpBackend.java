@@ -0,0 +1,77 @@
+package engineering.enablement.claudecraft.backend.http;
+
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.backend.ChatBackend;
+import engineering.enablement.claudecraft.backend.ChatRequest;
+import engineering.enablement.claudecraft.backend.ChatRun;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Answers messages by streaming the Messages API over {@link HttpClient} inside
+ * the JVM, with the mc-get-* tools run in-process. Avoids a Node process (and its
+ * memory) per concurrent chat.
+ *
+ * The base URL is configurable (backend.httpBaseUrl), so the backend can be pointed
+ * at {@link engineering.enablement.claudecraft.loadtest.FakeMessagesApi}, which
+ * replays SSE streams recorded with loadtest.recordSseStreams.
+ */
+public class HttpBackend implements ChatBackend {
+    static final String API_VERSION = "2023-06-01";
+
+    // CLI model aliases used by the routing tiers, mapped to API model IDs
+    private static final Map<String, String> MODEL_ALIASES = Map.of(
+        "haiku", "claude-haiku-4-5",
+        "sonnet", "claude-sonnet-4-5",
+        "opus", "claude-opus-4-1"
+    );
+
+    private final HttpClient client;
+    private final URI baseUrl;
+    private final String apiKey;
+
+    public HttpBackend() {
+        this(HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build(),
+            URI.create(ClaudeCraftConfig.HTTP_BASE_URL.get()),
+            System.getenv(ClaudeCraftConfig.HTTP_API_KEY_ENV.get()));
+    }
+
+    public HttpBackend(HttpClient client, URI baseUrl, String apiKey) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public String getName() {
+        return "http";
+    }
+
+    @Override
+    public ChatRun prepare(ChatRequest request) {
+        return new HttpChatRun(this, request);
+    }
+
+    HttpClient getClient() {
+        return client;
+    }
+
+    URI getMessagesUri() {
+        String base = baseUrl.toString();
+        return URI.create((base.endsWith("/") ? base.substring(0, base.length() - 1) : base) + "/v1/messages");
+    }
+
+    String getApiKey() {
+        return apiKey;
+    }
+
+    /**
+     * Resolve a CLI-style model alias to an API model ID (full IDs pass through).
+     */
+    static String resolveModel(String model) {
+        return MODEL_ALIASES.getOrDefault(model, model);
+    }
+}
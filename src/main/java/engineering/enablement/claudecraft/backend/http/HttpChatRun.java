@@ -0,0 +1,396 @@
+package engineering.enablement.claudecraft.backend.http;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.backend.ChatRequest;
+import engineering.enablement.claudecraft.backend.ChatRun;
+import engineering.enablement.claudecraft.backend.RunUsage;
+import engineering.enablement.claudecraft.backend.ToolProgress;
+import engineering.enablement.claudecraft.claude.ClaudeProcessTracker;
+import engineering.enablement.claudecraft.loadtest.TranscriptRecorder;
+import engineering.enablement.claudecraft.metrics.ToolLatencies;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * One message answered through the Messages API: streams each model turn,
+ * runs requested tools in-process and loops until the model stops or the turn
+ * budget is spent. Every message is appended to the session's JSONL file.
+ */
+class HttpChatRun implements ChatRun {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(120);
+
+    private final HttpBackend backend;
+    private final ChatRequest request;
+    private volatile String sessionId;
+    private volatile boolean usedTools;
+    private volatile Consumer<ToolProgress> toolListener;
+    private volatile RunUsage usage = RunUsage.EMPTY;
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+    private volatile InputStream currentBody;
+
+    HttpChatRun(HttpBackend backend, ChatRequest request) {
+        this.backend = backend;
+        this.request = request;
+        this.sessionId = request.sessionId();
+    }
+
+    @Override
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    @Override
+    public boolean usedTools() {
+        return usedTools;
+    }
+
+    /**
+     * Tokens summed over the run's turns; the Messages API reports no cost.
+     */
+    @Override
+    public RunUsage getUsage() {
+        return usage;
+    }
+
+    @Override
+    public void setToolListener(Consumer<ToolProgress> listener) {
+        this.toolListener = listener;
+    }
+
+    @Override
+    public CompletableFuture<String> run(
+        String prompt,
+        Consumer<String> onTextChunk,
+        Consumer<String> onComplete,
+        Consumer<Exception> onError
+    ) {
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+            UUID playerUuid = request.playerUuid();
+            ClaudeProcessTracker.register(playerUuid, this, () -> !finished, this::cancel);
+            try {
+                if (backend.getApiKey() == null || backend.getApiKey().isBlank()) {
+                    throw new IOException("No API key set (environment variable "
+                        + ClaudeCraftConfig.HTTP_API_KEY_ENV.get() + ")");
+                }
+
+                if (sessionId == null) {
+                    sessionId = UUID.randomUUID().toString();
+                }
+                HttpSessionStore store = new HttpSessionStore(sessionId);
+                List<JsonObject> messages = store.loadMessages();
+
+                JsonObject userMessage = new JsonObject();
+                userMessage.addProperty("role", "user");
+                userMessage.addProperty("content", prompt);
+                messages.add(userMessage);
+                store.append(userMessage);
+
+                String response = "";
+                for (int turn = 0; turn < request.maxTurns(); turn++) {
+                    Turn result = streamTurn(messages, onTextChunk);
+                    usage = usage.plus(result.usage);
+
+                    JsonObject assistantMessage = new JsonObject();
+                    assistantMessage.addProperty("role", "assistant");
+                    assistantMessage.add("content", result.content);
+                    messages.add(assistantMessage);
+                    store.append(assistantMessage);
+
+                    if (!result.text.isEmpty()) {
+                        response = result.text;
+                    }
+                    if (!"tool_use".equals(result.stopReason)) {
+                        break;
+                    }
+
+                    usedTools = true;
+                    JsonObject toolResults = runTools(result.content);
+                    messages.add(toolResults);
+                    store.append(toolResults);
+                }
+
+                if (onComplete != null) {
+                    onComplete.accept(response);
+                }
+                return response;
+
+            } catch (Exception e) {
+                Exception error = cancelled ? new CancellationException("Request cancelled") : e;
+                ClaudeCraft.LOGGER.error("HTTP chat error for {}: {}", playerUuid, error.getMessage());
+                if (onError != null) {
+                    onError.accept(error);
+                }
+                throw new RuntimeException(error);
+            } finally {
+                finished = true;
+                ClaudeProcessTracker.unregister(playerUuid, this);
+            }
+        });
+
+        // Cancelling the future (stop button) closes the stream
+        future.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                cancel();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stop the run; the in-flight stream is closed so the reading thread exits.
+     */
+    void cancel() {
+        cancelled = true;
+        InputStream body = currentBody;
+        if (body != null) {
+            try {
+                body.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Send the conversation and stream one assistant turn.
+     */
+    private Turn streamTurn(List<JsonObject> messages, Consumer<String> onTextChunk) throws Exception {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+
+        JsonArray messageArray = new JsonArray();
+        messages.forEach(messageArray::add);
+
+        JsonObject body = new JsonObject();
+        body.addProperty("model", HttpBackend.resolveModel(request.model()));
+        body.addProperty("max_tokens", ClaudeCraftConfig.HTTP_MAX_TOKENS.get());
+        body.addProperty("stream", true);
+        body.addProperty("system", systemPrompt());
+        body.add("tools", InProcessTools.definitions());
+        body.add("messages", messageArray);
+
+        HttpRequest httpRequest = HttpRequest.newBuilder(backend.getMessagesUri())
+            .timeout(REQUEST_TIMEOUT)
+            .header("content-type", "application/json")
+            .header("accept", "text/event-stream")
+            .header("x-api-key", backend.getApiKey())
+            .header("anthropic-version", HttpBackend.API_VERSION)
+            .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
+            .build();
+
+        HttpResponse<InputStream> response = backend.getClient()
+            .send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        currentBody = response.body();
+
+        if (response.statusCode() != 200) {
+            String error;
+            try (InputStream in = response.body()) {
+                error = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            throw new IOException("Messages API returned " + response.statusCode() + ": " + errorMessage(error));
+        }
+
+        TranscriptRecorder transcript = TranscriptRecorder.startSse(request.model());
+        boolean succeeded = false;
+        try (SseReader reader = new SseReader(response.body(), transcript != null ? transcript::record : null)) {
+            Turn turn = readTurn(reader, onTextChunk);
+            succeeded = !cancelled;  // A cancelled stream ends early
+            return turn;
+        } finally {
+            currentBody = null;
+            if (transcript != null) {
+                transcript.finish(succeeded);
+            }
+        }
+    }
+
+    /**
+     * Assemble one assistant turn from the stream's events, forwarding text as it arrives.
+     */
+    static Turn readTurn(SseReader reader, Consumer<String> onTextChunk) throws IOException {
+        List<JsonObject> blocks = new ArrayList<>();
+        List<StringBuilder> partialInputs = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        String stopReason = null;
+        RunUsage usage = RunUsage.EMPTY;
+
+        SseReader.Event event;
+        while ((event = reader.next()) != null) {
+            if (event.data().isEmpty()) {
+                continue;
+            }
+            JsonObject data = JsonParser.parseString(event.data()).getAsJsonObject();
+            String type = data.has("type") ? data.get("type").getAsString() : event.name();
+
+            switch (type) {
+                case "content_block_start" -> {
+                    int index = data.get("index").getAsInt();
+                    JsonObject block = data.getAsJsonObject("content_block").deepCopy();
+                    while (blocks.size() <= index) {
+                        blocks.add(null);
+                        partialInputs.add(new StringBuilder());
+                    }
+                    blocks.set(index, block);
+                }
+                case "content_block_delta" -> {
+                    int index = data.get("index").getAsInt();
+                    JsonObject delta = data.getAsJsonObject("delta");
+                    String deltaType = delta.get("type").getAsString();
+                    if ("text_delta".equals(deltaType) && index < blocks.size()) {
+                        String chunk = delta.get("text").getAsString();
+                        JsonObject block = blocks.get(index);
+                        block.addProperty("text", block.has("text") ? block.get("text").getAsString() + chunk : chunk);
+                        text.append(chunk);
+                        if (onTextChunk != null && !chunk.isEmpty()) {
+                            onTextChunk.accept(chunk);
+                        }
+                    } else if ("input_json_delta".equals(deltaType) && index < partialInputs.size()) {
+                        partialInputs.get(index).append(delta.get("partial_json").getAsString());
+                    }
+                }
+                case "content_block_stop" -> {
+                    int index = data.get("index").getAsInt();
+                    JsonObject block = index < blocks.size() ? blocks.get(index) : null;
+                    if (block != null && "tool_use".equals(block.get("type").getAsString())) {
+                        String json = partialInputs.get(index).toString();
+                        block.add("input", json.isBlank() ? new JsonObject() : JsonParser.parseString(json));
+                    }
+                }
+                case "message_start" -> {
+                    JsonObject message = data.getAsJsonObject("message");
+                    if (message != null && message.has("usage")) {
+                        usage = RunUsage.fromJson(message.getAsJsonObject("usage"), 0);
+                    }
+                }
+                case "message_delta" -> {
+                    if (data.has("usage") && data.get("usage").isJsonObject()) {
+                        // Cumulative output tokens for the message
+                        JsonObject deltaUsage = data.getAsJsonObject("usage");
+                        usage = new RunUsage(usage.inputTokens(),
+                            deltaUsage.has("output_tokens") ? deltaUsage.get("output_tokens").getAsLong() : usage.outputTokens(),
+                            usage.cacheReadTokens(), usage.cacheCreationTokens(), 0);
+                    }
+                    JsonObject delta = data.getAsJsonObject("delta");
+                    if (delta != null && delta.has("stop_reason") && !delta.get("stop_reason").isJsonNull()) {
+                        stopReason = delta.get("stop_reason").getAsString();
+                    }
+                }
+                case "error" -> throw new IOException("Messages API stream error: " + errorMessage(event.data()));
+                default -> {
+                    // message_stop, ping
+                }
+            }
+
+            if ("message_stop".equals(type)) {
+                break;
+            }
+        }
+
+        JsonArray content = new JsonArray();
+        for (JsonObject block : blocks) {
+            if (block != null) {
+                content.add(block);
+            }
+        }
+        return new Turn(content, text.toString(), stopReason, usage);
+    }
+
+    /**
+     * Run every tool_use block of a turn and build the tool_result user message.
+     */
+    private JsonObject runTools(JsonArray content) {
+        JsonArray results = new JsonArray();
+        for (JsonElement element : content) {
+            JsonObject block = element.getAsJsonObject();
+            if (!"tool_use".equals(block.get("type").getAsString())) {
+                continue;
+            }
+
+            JsonObject result = new JsonObject();
+            result.addProperty("type", "tool_result");
+            result.addProperty("tool_use_id", block.get("id").getAsString());
+            String name = block.get("name").getAsString();
+            Consumer<ToolProgress> listener = toolListener;
+            if (listener != null) {
+                listener.accept(ToolProgress.started(name, ""));
+            }
+            long start = System.nanoTime();
+            boolean error = false;
+            try {
+                result.addProperty("content",
+                    InProcessTools.execute(name, request.workingDirectory(), request.playerUuid()));
+            } catch (Exception e) {
+                result.addProperty("content", "Error: " + e.getMessage());
+                result.addProperty("is_error", true);
+                error = true;
+            }
+            ToolProgress progress = new ToolProgress(name, "", true, (System.nanoTime() - start) / 1_000_000, error);
+            ToolLatencies.record(progress);
+            if (listener != null) {
+                listener.accept(progress);
+            }
+            ClaudeCraft.LOGGER.debug("Ran in-process tool {} for {} in {} ms", name, request.playerUuid(), progress.elapsedMs());
+            results.add(result);
+        }
+
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "user");
+        message.add("content", results);
+        return message;
+    }
+
+    /**
+     * The shared CLAUDE.md plus the player's own CLAUDE.md, as the CLI would load them.
+     */
+    private String systemPrompt() {
+        StringBuilder sb = new StringBuilder();
+        Path pluginDir = request.workingDirectory();
+        Path playerDir = pluginDir.resolve("players").resolve(request.playerUuid().toString());
+        for (Path file : List.of(pluginDir.resolve("CLAUDE.md"), playerDir.resolve("CLAUDE.md"))) {
+            try {
+                if (Files.exists(file)) {
+                    sb.append(Files.readString(file)).append("\n\n");
+                }
+            } catch (IOException e) {
+                ClaudeCraft.LOGGER.debug("Failed to read {}: {}", file, e.getMessage());
+            }
+        }
+        sb.append("The player's UUID is ").append(request.playerUuid())
+            .append(". Use the mc_get_* tools to look up their current game state.");
+        return sb.toString();
+    }
+
+    private static String errorMessage(String body) {
+        try {
+            JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+            if (json.has("error") && json.get("error").isJsonObject()) {
+                return json.getAsJsonObject("error").get("message").getAsString();
+            }
+        } catch (Exception e) {
+            // Not JSON; use the raw body
+        }
+        return body.length() > 200 ? body.substring(0, 200) + "..." : body;
+    }
+
+    record Turn(JsonArray content, String text, String stopReason, RunUsage usage) {}
+}
@@ -0,0 +1,84 @@
+package engineering.enablement.claudecraft.backend.http;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.claude.ClaudeSessionReader;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversation history for the HTTP backend, stored as JSONL in the same place
+ * and shape as Claude Code's own session files (one {type, message} object per
+ * line under ~/.claude/projects/) so {@link ClaudeSessionReader} lists and loads
+ * HTTP conversations unchanged.
+ */
+class HttpSessionStore {
+    static final String PROJECT_DIR_NAME = "claude-craft-http";
+
+    private final String sessionId;
+    private final Path file;
+
+    HttpSessionStore(String sessionId) {
+        this.sessionId = sessionId;
+        this.file = ClaudeSessionReader.getGlobalClaudeProjectsDir()
+            .resolve(PROJECT_DIR_NAME)
+            .resolve(sessionId + ".jsonl");
+    }
+
+    /**
+     * Load the conversation as Messages API messages (role + content), oldest first.
+     * Returns an empty list for a session that isn't an HTTP session.
+     */
+    List<JsonObject> loadMessages() {
+        List<JsonObject> messages = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return messages;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonObject obj = JsonParser.parseString(line).getAsJsonObject();
+                    JsonElement message = obj.get("message");
+                    if (message != null && message.isJsonObject()) {
+                        messages.add(message.getAsJsonObject());
+                    }
+                } catch (Exception e) {
+                    // Skip malformed lines
+                }
+            }
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.warn("Failed to read HTTP session {}: {}", sessionId, e.getMessage());
+        }
+        return messages;
+    }
+
+    /**
+     * Append one message (role "user" or "assistant") to the session file.
+     */
+    void append(JsonObject message) throws IOException {
+        JsonObject line = new JsonObject();
+        line.addProperty("type", message.get("role").getAsString());
+        line.addProperty("sessionId", sessionId);
+        line.addProperty("timestamp", Instant.now().toString());
+        line.add("message", message);
+
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, line + "\n", StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,90 @@
+package engineering.enablement.claudecraft.backend.http;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The mc-get-* skills as Messages API tools, answered inside the JVM from the
+ * same files the skill scripts read (players/{uuid}/state.json, trail.json)
+ * instead of spawning a shell.
+ */
+class InProcessTools {
+
+    private record Tool(String name, String description, String file, List<String> keys) {}
+
+    private static final List<Tool> TOOLS = List.of(
+        new Tool("mc_get_position",
+            "Get the player's current position, dimension, rotation and biome.",
+            "state.json", List.of("position", "dimension", "rotation", "biome", "updated_at")),
+        new Tool("mc_get_inventory",
+            "Get the player's inventory: hotbar, main inventory, armor, offhand and selected slot.",
+            "state.json", List.of("inventory", "updated_at")),
+        new Tool("mc_get_nearby",
+            "Get blocks and entities near the player.",
+            "state.json", List.of("nearby", "updated_at")),
+        new Tool("mc_get_world_info",
+            "Get world time, weather, difficulty and the player's vitals and game mode.",
+            "state.json", List.of("world", "health", "max_health", "hunger", "saturation",
+                "gamemode", "xp_level", "xp_progress", "updated_at")),
+        new Tool("mc_get_trail",
+            "Get the player's recent position history, newest first, for retracing steps.",
+            "trail.json", List.of())
+    );
+
+    /**
+     * Tool definitions for the request body.
+     */
+    static JsonArray definitions() {
+        JsonArray array = new JsonArray();
+        for (Tool tool : TOOLS) {
+            JsonObject schema = new JsonObject();
+            schema.addProperty("type", "object");
+            schema.add("properties", new JsonObject());
+
+            JsonObject def = new JsonObject();
+            def.addProperty("name", tool.name);
+            def.addProperty("description", tool.description);
+            def.add("input_schema", schema);
+            array.add(def);
+        }
+        return array;
+    }
+
+    /**
+     * Run a tool for a player.
+     *
+     * @return the tool output
+     * @throws IOException if the tool is unknown or its data can't be read (reported to the model as an error)
+     */
+    static String execute(String name, Path workingDirectory, UUID playerUuid) throws IOException {
+        Tool tool = TOOLS.stream().filter(t -> t.name.equals(name)).findFirst()
+            .orElseThrow(() -> new IOException("Unknown tool: " + name));
+
+        Path file = workingDirectory.resolve("players").resolve(playerUuid.toString()).resolve(tool.file);
+        if (!Files.exists(file)) {
+            throw new IOException(tool.file + " not found. Make sure you are in-game.");
+        }
+
+        String content = Files.readString(file);
+        if (tool.keys.isEmpty()) {
+            return content;
+        }
+
+        // Only return the part of the state this tool is about
+        JsonObject state = JsonParser.parseString(content).getAsJsonObject();
+        JsonObject result = new JsonObject();
+        for (String key : tool.keys) {
+            if (state.has(key)) {
+                result.add(key, state.get(key));
+            }
+        }
+        return result.toString();
+    }
+}
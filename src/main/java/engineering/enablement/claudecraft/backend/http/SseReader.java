@@ -0,0 +1,82 @@
+package engineering.enablement.claudecraft.backend.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Minimal server-sent events reader: yields one (event, data) pair per blank-line
+ * terminated block. Comments and unknown fields are skipped; multi-line data is
+ * joined with newlines as the spec requires. An optional listener sees every raw
+ * line, for recording streams.
+ */
+class SseReader implements AutoCloseable {
+    private final BufferedReader reader;
+    private final Consumer<String> lineListener;
+
+    record Event(String name, String data) {}
+
+    SseReader(InputStream in) {
+        this(in, null);
+    }
+
+    SseReader(InputStream in, Consumer<String> lineListener) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.lineListener = lineListener;
+    }
+
+    /**
+     * Read the next event.
+     *
+     * @return the event, or null at end of stream
+     */
+    Event next() throws IOException {
+        String name = "message";
+        StringBuilder data = null;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (lineListener != null) {
+                lineListener.accept(line);
+            }
+            if (line.isEmpty()) {
+                if (data != null) {
+                    return new Event(name, data.toString());
+                }
+                name = "message";  // Block with no data; reset and keep reading
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue;  // Comment / keep-alive
+            }
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+
+            if (field.equals("event")) {
+                name = value;
+            } else if (field.equals("data")) {
+                if (data == null) {
+                    data = new StringBuilder(value);
+                } else {
+                    data.append('\n').append(value);
+                }
+            }
+        }
+
+        // Stream ended; deliver a final unterminated event if there is one
+        return data != null ? new Event(name, data.toString()) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,15 +1,32 @@
 package engineering.enablement.claudecraft.claude;
 
 import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.backend.ChatRun;
+import engineering.enablement.claudecraft.backend.RunUsage;
+import engineering.enablement.claudecraft.backend.ToolProgress;
+import engineering.enablement.claudecraft.loadtest.TranscriptRecorder;
+import engineering.enablement.claudecraft.metrics.ToolLatencies;
+import engineering.enablement.claudecraft.metrics.UsageLedger;
+import engineering.enablement.claudecraft.skill.SkillServer;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -17,14 +34,21 @@ import java.util.function.Consumer;
  * Wrapper for invoking Claude Code as a subprocess.
  * Handles streaming output and session management.
  */
-public class ClaudeProcess {
-    private static final long TIMEOUT_SECONDS = 120;
+public class ClaudeProcess implements ChatRun {
+    private static final String DEFAULT_MODEL = "sonnet";
+    private static final int DEFAULT_MAX_TURNS = 100;
     private static final String CLAUDE_COMMAND = findClaudeCommand();
 
     private final Path workingDirectory;
     private final UUID playerUuid;
     private final boolean isOp;
     private String sessionId;
+    private String model = DEFAULT_MODEL;
+    private int maxTurns = DEFAULT_MAX_TURNS;
+    private volatile boolean usedTools;
+    private volatile Consumer<ToolProgress> toolListener;
+    private volatile RunUsage usage = RunUsage.EMPTY;
+    private Process primedProcess;  // Spawned ahead of time, waiting for the prompt on stdin
 
     public ClaudeProcess(Path workingDirectory, UUID playerUuid, boolean isOp) {
         this.workingDirectory = workingDirectory;
@@ -42,10 +66,81 @@ public class ClaudeProcess {
     /**
      * Get the current session ID (may be updated after a run).
      */
+    @Override
     public String getSessionId() {
         return sessionId;
     }
 
+    /**
+     * Set the model alias or name passed to --model.
+     */
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    /**
+     * Set the turn budget passed to --max-turns.
+     */
+    public void setMaxTurns(int maxTurns) {
+        this.maxTurns = maxTurns;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Spawn the CLI ahead of time in streaming-input mode so its startup overlaps
+     * with the player typing. The prompt is written to stdin by {@link #run}.
+     */
+    public synchronized void prime() throws IOException {
+        if (primedProcess == null) {
+            primedProcess = startProcess(buildCommand(null));
+            ClaudeCraft.LOGGER.debug("Primed Claude process {} for player {}", primedProcess.pid(), playerUuid);
+        }
+    }
+
+    /**
+     * Whether a primed process is waiting and still alive.
+     */
+    public synchronized boolean isPrimed() {
+        return primedProcess != null && primedProcess.isAlive();
+    }
+
+    /**
+     * Kill a primed process that was never used.
+     */
+    public synchronized void discardPrimed() {
+        if (primedProcess != null) {
+            RunWatchdog.killTree(primedProcess.toHandle());
+            primedProcess = null;
+        }
+    }
+
+    private synchronized Process takePrimed() {
+        Process process = primedProcess;
+        primedProcess = null;
+        return process != null && process.isAlive() ? process : null;
+    }
+
+    /**
+     * Whether the last run called any tools (e.g. read the player's state files).
+     */
+    @Override
+    public boolean usedTools() {
+        return usedTools;
+    }
+
+    @Override
+    public RunUsage getUsage() {
+        return usage;
+    }
+
+    @Override
+    public void setToolListener(Consumer<ToolProgress> listener) {
+        this.toolListener = listener;
+    }
+
     /**
      * Run a prompt and stream the response.
      *
@@ -55,105 +150,165 @@ public class ClaudeProcess {
      * @param onError Called if an error occurs
      * @return CompletableFuture that completes when the process finishes
      */
+    @Override
     public CompletableFuture<String> run(
         String prompt,
         Consumer<String> onTextChunk,
         Consumer<String> onComplete,
         Consumer<Exception> onError
     ) {
-        return CompletableFuture.supplyAsync(() -> {
+        RunWatchdog watchdog = RunWatchdog.start();
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
             ClaudeCraft.LOGGER.info("ClaudeProcess.run() async block started");
-            Process process = null;  // Declare outside try for finally block access
+            BlockingQueue<Output> output = new LinkedBlockingQueue<>();
+            List<Attempt> attempts = new ArrayList<>();  // Declare outside try for finally block access
+            TranscriptRecorder transcript = null;
+            boolean succeeded = false;
             try {
-                List<String> command = buildCommand(prompt);
-                ClaudeCraft.LOGGER.info("Built command: {}", String.join(" ", command));
-
-                ProcessBuilder pb = new ProcessBuilder(command);
-                pb.directory(workingDirectory.toFile());
-                pb.redirectErrorStream(true);
-
-                // Set environment variables for hooks
-                pb.environment().put("MINECRAFT_PLAYER_UUID", playerUuid.toString());
-                pb.environment().put("MINECRAFT_IS_OP", String.valueOf(isOp));
-                pb.environment().put("CLAUDE_PROJECT_DIR", workingDirectory.toString());
-                // Use global Claude config (for API key), but track sessions per-player
-                pb.environment().put("TERM", "dumb");  // Non-interactive terminal
-                pb.environment().put("CI", "true");    // Signal non-interactive environment
-
-                ClaudeCraft.LOGGER.info("Starting Claude process in: {}", workingDirectory);
-                process = pb.start();
-
-                // Register process for tracking (enables cancellation on disconnect)
-                ClaudeProcessTracker.register(playerUuid, process);
-
-                ClaudeCraft.LOGGER.info("Claude process started with PID: {}", process.pid());
-
-                // Close stdin immediately - we're using -p flag so no input needed
-                process.getOutputStream().close();
+                Process primed = takePrimed();
+                if (primed != null) {
+                    // Pre-spawned process: hand over the prompt
+                    attempts.add(startAttempt(primed, false, output, watchdog));
+                    ClaudeCraft.LOGGER.info("Using primed Claude process with PID: {}", primed.pid());
+                    writePrompt(primed, prompt);
+                } else {
+                    attempts.add(spawnAttempt(prompt, output, watchdog));
+                }
                 ClaudeCraft.LOGGER.info("Closed stdin, waiting for output...");
-
+                transcript = TranscriptRecorder.start(model);
+
+                // A fresh spawn that stays silent past the recent p95 gets a second attempt.
+                // Only new conversations are hedged: two processes resuming one session
+                // would both append to its history.
+                long hedgeAfterMs = primed == null && sessionId == null ? HedgePolicy.delayMs() : -1;
+                Attempt winner = null;
+                int ended = 0;
                 StringBuilder fullResponse = new StringBuilder();
-
-                try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream())
-                )) {
-                    ClaudeCraft.LOGGER.info("Reading from process stdout...");
-
-                    // Check if process exited immediately
-                    if (!process.isAlive()) {
-                        ClaudeCraft.LOGGER.error("Process exited immediately with code: {}", process.exitValue());
+                Map<String, ToolCall> toolCalls = new HashMap<>();
+
+                while (true) {
+                    Output out;
+                    if (winner == null && hedgeAfterMs >= 0) {
+                        long waitMs = hedgeAfterMs - attempts.get(0).elapsedMs();
+                        out = waitMs > 0 ? output.poll(waitMs, TimeUnit.MILLISECONDS) : null;
+                        if (out == null) {
+                            if (HedgePolicy.tryAcquire()) {
+                                ClaudeCraft.LOGGER.info("No output from Claude after {}ms, hedging with a second process",
+                                    attempts.get(0).elapsedMs());
+                                attempts.add(spawnAttempt(prompt, output, watchdog));
+                            }
+                            hedgeAfterMs = -1;
+                            continue;
+                        }
+                    } else {
+                        out = output.take();
                     }
 
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        ClaudeCraft.LOGGER.info("Claude line: {} (length={})",
-                            line.length() > 100 ? line.substring(0, 100) + "..." : line, line.length());
+                    if (winner != null && out.attempt != winner) {
+                        continue;  // Leftovers from a killed attempt
+                    }
+                    watchdog.onOutput();
 
-                        ClaudeStreamEvent event = ClaudeStreamEvent.parse(line);
-                        if (event == null) {
-                            ClaudeCraft.LOGGER.warn("Failed to parse Claude event");
+                    if (out.line == null) {
+                        // End of output; a hedge pair keeps waiting while the other attempt runs
+                        ended++;
+                        if (winner == null && ended < attempts.size()) {
+                            ClaudeCraft.LOGGER.warn("Claude process {} exited before any output", out.attempt.process.pid());
                             continue;
                         }
+                        winner = out.attempt;
+                        break;
+                    }
 
-                        ClaudeCraft.LOGGER.info("Parsed event type={}, text={}",
-                            event.type(), event.text().length() > 50 ? event.text().substring(0, 50) + "..." : event.text());
+                    String line = out.line;
+                    ClaudeCraft.LOGGER.info("Claude line: {} (length={})",
+                        line.length() > 100 ? line.substring(0, 100) + "..." : line, line.length());
 
-                        // Capture session ID from init event
-                        if (event.isInit() && event.sessionId() != null) {
-                            this.sessionId = event.sessionId();
-                            ClaudeCraft.LOGGER.info("Got session ID: {}", sessionId);
-                        }
+                    ClaudeStreamEvent event = ClaudeStreamEvent.parse(line);
+                    if (event == null) {
+                        ClaudeCraft.LOGGER.warn("Failed to parse Claude event");
+                        continue;
+                    }
 
-                        // Stream text chunks to the callback
-                        if (event.isTextDelta() && onTextChunk != null) {
-                            ClaudeCraft.LOGGER.info("Sending text chunk: {}", event.text());
-                            onTextChunk.accept(event.text());
-                            fullResponse.append(event.text());
+                    if (winner == null) {
+                        // First process to stream wins; the others are killed
+                        winner = out.attempt;
+                        if (winner.fresh) {
+                            HedgePolicy.recordFirstOutput(winner.elapsedMs());
+                        }
+                        for (Attempt attempt : attempts) {
+                            if (attempt != winner) {
+                                ClaudeProcessTracker.cancel(playerUuid, attempt.process);
+                                UsageLedger.recordUnmeteredAttempt();  // Killed before reporting usage
+                            }
                         }
+                        if (attempts.indexOf(winner) > 0) {
+                            HedgePolicy.recordHedgeWin();
+                            ClaudeCraft.LOGGER.info("Hedged Claude process {} answered first", winner.process.pid());
+                        }
+                    }
+                    if (transcript != null) {
+                        transcript.record(line);
+                    }
 
-                        // Capture final result
-                        if (event.isResult()) {
-                            String result = event.text();
-                            ClaudeCraft.LOGGER.info("Got result: {}", result);
-                            if (result != null && !result.isEmpty()) {
-                                fullResponse.setLength(0);
-                                fullResponse.append(result);
+                    ClaudeCraft.LOGGER.info("Parsed event type={}, text={}",
+                        event.type(), event.text().length() > 50 ? event.text().substring(0, 50) + "..." : event.text());
+
+                    // Capture session ID from init event
+                    if (event.isInit() && event.sessionId() != null) {
+                        this.sessionId = event.sessionId();
+                        ClaudeCraft.LOGGER.info("Got session ID: {}", sessionId);
+                    }
+
+                    if (event.isToolUse()) {
+                        usedTools = true;
+                        List<ClaudeStreamEvent.ToolUse> uses = event.toolUses();
+                        watchdog.onToolStart(uses.size());
+                        for (ClaudeStreamEvent.ToolUse use : uses) {
+                            toolCalls.put(use.id(), new ToolCall(use, System.nanoTime()));
+                            notifyTool(ToolProgress.started(use.name(), use.detail()));
+                        }
+                    } else if ("user".equals(event.type())) {
+                        // Tool results come back as user messages
+                        List<ClaudeStreamEvent.ToolResult> results = event.toolResults();
+                        watchdog.onToolEnd(results.size());
+                        for (ClaudeStreamEvent.ToolResult result : results) {
+                            ToolCall call = toolCalls.remove(result.toolUseId());
+                            if (call != null) {
+                                toolFinished(call, result.error());
                             }
                         }
                     }
-                }
 
-                boolean finished = process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                if (!finished) {
-                    process.destroyForcibly();
-                    throw new IOException("Claude process timed out after " + TIMEOUT_SECONDS + " seconds");
+                    // Stream text chunks to the callback
+                    if (event.isTextDelta() && onTextChunk != null) {
+                        ClaudeCraft.LOGGER.info("Sending text chunk: {}", event.text());
+                        onTextChunk.accept(event.text());
+                        fullResponse.append(event.text());
+                    }
+
+                    // Capture final result
+                    if (event.isResult()) {
+                        usage = event.usage();
+                        String result = event.text();
+                        ClaudeCraft.LOGGER.info("Got result: {}", result);
+                        if (result != null && !result.isEmpty()) {
+                            fullResponse.setLength(0);
+                            fullResponse.append(result);
+                        }
+                    }
                 }
 
-                int exitCode = process.exitValue();
+                // The watchdog kills the process if it hangs on exit
+                int exitCode = winner.process.waitFor();
+                if (watchdog.getStopReason() != null) {
+                    throw new IOException(watchdog.getStopReason());
+                }
                 if (exitCode != 0) {
                     throw new IOException("Claude process exited with code " + exitCode);
                 }
 
+                succeeded = true;
                 String response = fullResponse.toString();
                 if (onComplete != null) {
                     onComplete.accept(response);
@@ -167,29 +322,144 @@ public class ClaudeProcess {
                 }
                 throw new RuntimeException(e);
             } finally {
-                // Always unregister the process when done (success or failure)
-                if (process != null) {
-                    ClaudeProcessTracker.unregister(playerUuid, process);
+                watchdog.close();
+                if (transcript != null) {
+                    transcript.finish(succeeded);
                 }
+                // Always unregister the processes when done (success or failure)
+                for (Attempt attempt : attempts) {
+                    if (attempt.process.isAlive()) {
+                        ClaudeProcessTracker.cancel(playerUuid, attempt.process);
+                    } else {
+                        ClaudeProcessTracker.unregister(playerUuid, attempt.process);
+                    }
+                }
+            }
+        });
+
+        // Cancelling the future (stop button) kills the run's process tree
+        future.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                watchdog.stop("Stopped by player.");
             }
         });
+        return future;
+    }
+
+    /**
+     * Spawn a process with the prompt on the command line.
+     */
+    private Attempt spawnAttempt(String prompt, BlockingQueue<Output> output, RunWatchdog watchdog) throws IOException {
+        Process process = startProcess(buildCommand(prompt));
+        Attempt attempt = startAttempt(process, true, output, watchdog);
+        ClaudeCraft.LOGGER.info("Claude process started with PID: {}", process.pid());
+
+        // Close stdin immediately - we're using -p flag so no input needed
+        process.getOutputStream().close();
+        return attempt;
+    }
+
+    /**
+     * Register a process for tracking (enables cancellation on disconnect) and
+     * the watchdog, and pump its stdout into the shared queue, ending with a null line.
+     */
+    private Attempt startAttempt(Process process, boolean fresh, BlockingQueue<Output> output, RunWatchdog watchdog) {
+        ClaudeProcessTracker.register(playerUuid, process, watchdog::stop);
+        watchdog.watch(process);
+        Attempt attempt = new Attempt(process, fresh, System.nanoTime());
+
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    output.add(new Output(attempt, line));
+                }
+            } catch (IOException e) {
+                // Stream closed because the process was killed
+            } finally {
+                output.add(new Output(attempt, null));
+            }
+        }, "ClaudeCraft-Output-" + process.pid());
+        reader.setDaemon(true);
+        reader.start();
+        return attempt;
+    }
+
+    private Process startProcess(List<String> command) throws IOException {
+        ClaudeCraft.LOGGER.info("Built command: {}", String.join(" ", command));
+
+        ProcessBuilder pb = new ProcessBuilder(ProcessIsolation.wrap(command));
+        pb.directory(workingDirectory.toFile());
+        pb.redirectErrorStream(true);
+
+        // Set environment variables for hooks
+        pb.environment().put("MINECRAFT_PLAYER_UUID", playerUuid.toString());
+        pb.environment().put("MINECRAFT_IS_OP", String.valueOf(isOp));
+        pb.environment().put("CLAUDE_PROJECT_DIR", workingDirectory.toString());
+        SkillServer skillServer = ClaudeCraft.getSkillServer();
+        if (skillServer != null) {
+            pb.environment().put("MINECRAFT_SKILL_URL", skillServer.getUrl());
+            pb.environment().put("MINECRAFT_SKILL_TOKEN", skillServer.getToken(playerUuid));
+        }
+        // Use global Claude config (for API key), but track sessions per-player
+        pb.environment().put("TERM", "dumb");  // Non-interactive terminal
+        pb.environment().put("CI", "true");    // Signal non-interactive environment
+        pb.environment().put(OrphanReaper.SERVER_PID_ENV, String.valueOf(ProcessHandle.current().pid()));  // Checked by OrphanReaper
+
+        ClaudeCraft.LOGGER.info("Starting Claude process in: {}", workingDirectory);
+        long spawnStart = System.nanoTime();
+        Process process = pb.start();
+        ClaudeProcessTracker.recordSpawnTime((System.nanoTime() - spawnStart) / 1_000_000);
+        OrphanReaper.track(process, playerUuid);
+        return process;
+    }
+
+    /**
+     * Send the prompt to a process started in streaming-input mode, then close
+     * stdin so it exits after answering.
+     */
+    private static void writePrompt(Process process, String prompt) throws IOException {
+        JsonObject text = new JsonObject();
+        text.addProperty("type", "text");
+        text.addProperty("text", prompt);
+        JsonArray content = new JsonArray();
+        content.add(text);
+
+        JsonObject message = new JsonObject();
+        message.addProperty("role", "user");
+        message.add("content", content);
+
+        JsonObject event = new JsonObject();
+        event.addProperty("type", "user");
+        event.add("message", message);
+
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write((event + "\n").getBytes(StandardCharsets.UTF_8));
+        }
     }
 
     /**
      * Build the Claude command with appropriate flags.
+     *
+     * @param prompt the prompt, or null to read it from stdin as stream-json
      */
     private List<String> buildCommand(String prompt) {
         List<String> command = new ArrayList<>();
-        command.add(CLAUDE_COMMAND);
+        command.addAll(cliCommand());
         command.add("-p");
-        command.add(prompt);
+        if (prompt != null) {
+            command.add(prompt);
+        } else {
+            command.add("--input-format");
+            command.add("stream-json");
+        }
         command.add("--output-format");
         command.add("stream-json");
         command.add("--verbose");  // Required for stream-json with -p
         command.add("--max-turns");
-        command.add("100");
+        command.add(String.valueOf(maxTurns));
         command.add("--model");
-        command.add("sonnet");  // Use Sonnet for faster responses
+        command.add(model);
 
         // Allowed tools: Read, Write (restricted by hook), Bash (restricted to bin/)
         command.add("--allowedTools");
@@ -208,7 +478,16 @@ public class ClaudeProcess {
      * Run a prompt synchronously (blocking).
      */
     public String runSync(String prompt) throws Exception {
-        return run(prompt, null, null, null).get(TIMEOUT_SECONDS + 10, TimeUnit.SECONDS);
+        return run(prompt, null, null, null).get(ClaudeCraftConfig.RUN_DEADLINE_SECONDS.get() + 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The executable (plus any leading arguments) to run: the configured override,
+     * such as the fake CLI used for load testing, or the detected claude binary.
+     */
+    private static List<String> cliCommand() {
+        String override = ClaudeCraftConfig.CLI_COMMAND.get().trim();
+        return override.isEmpty() ? List.of(CLAUDE_COMMAND) : List.of(override.split("\\s+"));
     }
 
     /**
@@ -235,4 +514,38 @@ public class ClaudeProcess {
         ClaudeCraft.LOGGER.warn("Claude CLI not found in common locations, falling back to PATH");
         return "claude";
     }
+
+    private void toolFinished(ToolCall call, boolean error) {
+        long elapsedMs = (System.nanoTime() - call.startNanos()) / 1_000_000;
+        ToolProgress progress = new ToolProgress(call.use().name(), call.use().detail(), true, elapsedMs, error);
+        ToolLatencies.record(progress);
+        ClaudeCraft.LOGGER.info("Tool {} took {} ms{}", progress.label(), elapsedMs, error ? " (error)" : "");
+        notifyTool(progress);
+    }
+
+    private void notifyTool(ToolProgress progress) {
+        Consumer<ToolProgress> listener = toolListener;
+        if (listener != null) {
+            listener.accept(progress);
+        }
+    }
+
+    /**
+     * A tool call waiting for its result.
+     */
+    private record ToolCall(ClaudeStreamEvent.ToolUse use, long startNanos) {}
+
+    /**
+     * One spawned CLI process answering the prompt; a hedged request has two.
+     */
+    private record Attempt(Process process, boolean fresh, long startNanos) {
+        long elapsedMs() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+    }
+
+    /**
+     * A stdout line from an attempt, or null at end of output.
+     */
+    private record Output(Attempt attempt, String line) {}
 }
@@ -1,41 +1,147 @@
 package engineering.enablement.claudecraft.claude;
 
 import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.metrics.LatencyHistogram;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
- * Tracks active Claude processes per player for cleanup on disconnect.
- * Thread-safe - all methods can be called from any thread.
+ * Tracks active Claude processes per player for rate limiting and cleanup on
+ * disconnect. In-JVM runs (the HTTP backend) are tracked alongside processes so
+ * rate limits and load checks see them too.
+ *
+ * Processes are unregistered by their own {@link Process#onExit()} callback, so
+ * the per-player and global counts are maintained as they change and reading them
+ * is O(1). A periodic reaper drops anything that ended without unregistering
+ * (in-JVM runs have no exit callback).
+ *
+ * Every few seconds each process tree is sampled for CPU time and resident memory
+ * ({@link ProcessUsage}), feeding per-player and global totals; a tree over the
+ * configured memory or CPU budget is stopped. CPU used after the last sample of a
+ * process is not counted. Thread-safe - all methods can be called from any thread.
  */
 public class ClaudeProcessTracker {
+    private static final long REAP_INTERVAL_SECONDS = 30;
+    private static final long SAMPLE_INTERVAL_SECONDS = 2;
+    private static final long MB = 1024 * 1024;
 
-    // Map of player UUID -> Set of active processes
-    private static final Map<UUID, Set<TrackedProcess>> activeProcesses =
-        new ConcurrentHashMap<>();
+    // Handle (Process or in-JVM run) -> tracking entry
+    private static final Map<Object, TrackedProcess> active = new ConcurrentHashMap<>();
+
+    // Gauges
+    private static final Map<UUID, Integer> playerCounts = new ConcurrentHashMap<>();
+    private static final AtomicInteger totalCount = new AtomicInteger();
+
+    // Metrics
+    private static final LatencyHistogram spawnTime = new LatencyHistogram();
+    private static final LatencyHistogram wallClock = new LatencyHistogram();
+    private static final AtomicLong started = new AtomicLong();
+    private static final AtomicLong reaped = new AtomicLong();
+
+    // Resource accounting
+    private static final Map<UUID, PlayerUsage> playerUsage = new ConcurrentHashMap<>();
+    private static final AtomicLong totalCpuMillis = new AtomicLong();
+    private static final AtomicLong peakRssBytes = new AtomicLong();
+    private static volatile long currentRssBytes;
+    private static final AtomicLong limitKills = new AtomicLong();
+
+    private static final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ClaudeCraft-Reaper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        reaper.scheduleAtFixedRate(ClaudeProcessTracker::reap,
+            REAP_INTERVAL_SECONDS, REAP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        reaper.scheduleAtFixedRate(ClaudeProcessTracker::sample,
+            SAMPLE_INTERVAL_SECONDS, SAMPLE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
 
     /**
      * Register a process for tracking.
-     * Called when a new Claude process starts.
+     * Called when a new Claude process starts; it unregisters itself when it exits.
      */
     public static void register(UUID playerUuid, Process process) {
-        activeProcesses
-            .computeIfAbsent(playerUuid, k -> ConcurrentHashMap.newKeySet())
-            .add(new TrackedProcess(process, System.currentTimeMillis()));
+        register(playerUuid, process, null);
+    }
+
+    /**
+     * Register a process for tracking.
+     *
+     * @param onLimit stops the run with a reason when the process exceeds a resource
+     *                budget, or null to just kill the process tree
+     */
+    public static void register(UUID playerUuid, Process process, Consumer<String> onLimit) {
+        register(playerUuid, process, process::isAlive, () -> RunWatchdog.killTree(process.toHandle()));
+        TrackedProcess tracked = active.get(process);
+        if (tracked != null) {
+            tracked.onLimit = onLimit;
+        }
+        process.onExit().thenRun(() -> unregister(playerUuid, process));
         ClaudeCraft.LOGGER.debug("Registered Claude process {} for player {}",
             process.pid(), playerUuid);
     }
 
     /**
-     * Unregister a process (called when it completes normally).
+     * Register an in-JVM run that has no process of its own.
+     *
+     * @param handle identifies the run for {@link #unregister}
+     * @param isAlive whether the run is still going
+     * @param cancel stops the run
+     */
+    public static void register(UUID playerUuid, Object handle, BooleanSupplier isAlive, Runnable cancel) {
+        TrackedProcess tracked = new TrackedProcess(playerUuid, handle, isAlive, cancel, System.currentTimeMillis());
+        if (active.putIfAbsent(handle, tracked) == null) {
+            playerCounts.merge(playerUuid, 1, Integer::sum);
+            totalCount.incrementAndGet();
+            started.incrementAndGet();
+            playerUsage.computeIfAbsent(playerUuid, k -> new PlayerUsage()).runs.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record how long spawning a process took (ProcessBuilder.start()).
+     */
+    public static void recordSpawnTime(long millis) {
+        spawnTime.record(millis);
+    }
+
+    /**
+     * Unregister a process or run (called when it completes normally).
+     * Safe to call more than once.
      */
-    public static void unregister(UUID playerUuid, Process process) {
-        Set<TrackedProcess> processes = activeProcesses.get(playerUuid);
-        if (processes != null) {
-            processes.removeIf(tp -> tp.process.equals(process));
+    public static void unregister(UUID playerUuid, Object handle) {
+        TrackedProcess tracked = active.remove(handle);
+        if (tracked != null) {
+            release(tracked);
+        }
+    }
+
+    /**
+     * Kill one tracked process or run and stop tracking it (e.g. the losing
+     * attempt of a hedged request).
+     */
+    public static void cancel(UUID playerUuid, Object handle) {
+        TrackedProcess tracked = active.remove(handle);
+        if (tracked != null) {
+            release(tracked);
+            kill(tracked);
+            ClaudeCraft.LOGGER.debug("Cancelled Claude {} after {}ms",
+                tracked.describe(), System.currentTimeMillis() - tracked.startTime);
         }
     }
 
@@ -44,8 +150,14 @@ public class ClaudeProcessTracker {
      * Called on player disconnect.
      */
     public static void cancelPlayerProcesses(UUID playerUuid) {
-        Set<TrackedProcess> processes = activeProcesses.remove(playerUuid);
-        if (processes == null || processes.isEmpty()) {
+        List<TrackedProcess> processes = new ArrayList<>();
+        for (TrackedProcess tp : active.values()) {
+            if (tp.playerUuid.equals(playerUuid) && active.remove(tp.handle, tp)) {
+                release(tp);
+                processes.add(tp);
+            }
+        }
+        if (processes.isEmpty()) {
             return;
         }
 
@@ -53,39 +165,245 @@ public class ClaudeProcessTracker {
             processes.size(), playerUuid);
 
         for (TrackedProcess tp : processes) {
-            try {
-                if (tp.process.isAlive()) {
-                    tp.process.destroyForcibly();
-                    ClaudeCraft.LOGGER.info("Killed Claude process {} (running for {}ms)",
-                        tp.process.pid(), System.currentTimeMillis() - tp.startTime);
+            if (tp.isAlive.getAsBoolean()) {
+                kill(tp);
+                ClaudeCraft.LOGGER.info("Killed Claude {} (running for {}ms)",
+                    tp.describe(), System.currentTimeMillis() - tp.startTime);
+            }
+        }
+    }
+
+    /**
+     * Kill every tracked process and run (end of the shutdown grace period).
+     *
+     * @return how many were still running
+     */
+    public static int cancelAll() {
+        int killed = 0;
+        for (TrackedProcess tp : active.values()) {
+            if (active.remove(tp.handle, tp)) {
+                release(tp);
+                if (tp.isAlive.getAsBoolean()) {
+                    kill(tp);
+                    killed++;
                 }
-            } catch (Exception e) {
-                ClaudeCraft.LOGGER.warn("Failed to kill Claude process: {}", e.getMessage());
             }
         }
+        return killed;
     }
 
     /**
      * Get count of active processes for a player (for rate limiting).
      */
     public static int getActiveCount(UUID playerUuid) {
-        Set<TrackedProcess> processes = activeProcesses.get(playerUuid);
-        if (processes == null) {
-            return 0;
-        }
-        // Clean up dead processes while counting
-        processes.removeIf(tp -> !tp.process.isAlive());
-        return processes.size();
+        return playerCounts.getOrDefault(playerUuid, 0);
     }
 
     /**
      * Get total active process count across all players (for monitoring).
      */
     public static int getTotalActiveCount() {
-        return activeProcesses.values().stream()
-            .mapToInt(Set::size)
-            .sum();
+        return totalCount.get();
+    }
+
+    /**
+     * Time taken to spawn each CLI process.
+     */
+    public static LatencyHistogram getSpawnTime() {
+        return spawnTime;
+    }
+
+    /**
+     * Wall-clock lifetime of each tracked process or run, from registration to exit.
+     */
+    public static LatencyHistogram getWallClock() {
+        return wallClock;
+    }
+
+    /**
+     * Snapshot of the tracked processes and runs, oldest first.
+     */
+    public static List<ActiveProcess> getActive() {
+        long now = System.currentTimeMillis();
+        return active.values().stream()
+            .sorted(Comparator.comparingLong(tp -> tp.startTime))
+            .map(tp -> new ActiveProcess(tp.playerUuid, tp.describe(), now - tp.startTime, tp.usage))
+            .toList();
+    }
+
+    /**
+     * Resource totals per player since the server started.
+     */
+    public static Map<UUID, PlayerUsage> getPlayerUsage() {
+        return Map.copyOf(playerUsage);
+    }
+
+    /**
+     * CPU time used by all Claude process trees since the server started.
+     */
+    public static long getTotalCpuMillis() {
+        return totalCpuMillis.get();
+    }
+
+    /**
+     * Resident memory of all Claude process trees at the last sample, or 0 if unknown.
+     */
+    public static long getCurrentRssBytes() {
+        return currentRssBytes;
+    }
+
+    public static long getPeakRssBytes() {
+        return peakRssBytes.get();
+    }
+
+    /**
+     * One-line summary of process activity, for logs.
+     */
+    public static String getStats() {
+        return String.format("%d active, %d started, %d reaped, %d over budget; CPU %.1fs, peak RSS %d MB; spawn %s; wall clock %s",
+            totalCount.get(), started.get(), reaped.get(), limitKills.get(), totalCpuMillis.get() / 1000.0,
+            peakRssBytes.get() / MB, spawnTime, wallClock);
+    }
+
+    /**
+     * Sample CPU and memory of every tracked process tree, update the totals and
+     * stop trees over budget.
+     */
+    private static void sample() {
+        if (active.isEmpty() && currentRssBytes == 0) {
+            return;
+        }
+
+        long maxRssBytes = ClaudeCraftConfig.MAX_PROCESS_MEMORY_MB.get() * MB;
+        long maxCpuMillis = ClaudeCraftConfig.MAX_PROCESS_CPU_SECONDS.get() * 1000L;
+        long totalRss = 0;
+        for (TrackedProcess tp : active.values()) {
+            if (!(tp.handle instanceof Process process) || !process.isAlive()) {
+                continue;
+            }
+            try {
+                ProcessUsage usage = ProcessUsage.sample(process.toHandle());
+                PlayerUsage player = playerUsage.computeIfAbsent(tp.playerUuid, k -> new PlayerUsage());
+
+                // Descendants that exited take their CPU time with them; never count backwards
+                long cpuDelta = usage.cpuMillis() - tp.cpuMillis;
+                if (cpuDelta > 0) {
+                    tp.cpuMillis = usage.cpuMillis();
+                    totalCpuMillis.addAndGet(cpuDelta);
+                    player.cpuMillis.addAndGet(cpuDelta);
+                }
+                tp.usage = new ProcessUsage(tp.cpuMillis, usage.rssBytes(), usage.processCount());
+                if (usage.rssBytes() > 0) {
+                    totalRss += usage.rssBytes();
+                    player.peakRssBytes.accumulateAndGet(usage.rssBytes(), Math::max);
+                }
+
+                String reason = null;
+                if (maxRssBytes > 0 && usage.rssBytes() > maxRssBytes) {
+                    reason = "Claude used more than " + maxRssBytes / MB + " MB of memory and was stopped.";
+                } else if (maxCpuMillis > 0 && tp.cpuMillis > maxCpuMillis) {
+                    reason = "Claude used more than " + maxCpuMillis / 1000 + " seconds of CPU time and was stopped.";
+                }
+                if (reason != null && active.remove(tp.handle, tp)) {
+                    ClaudeCraft.LOGGER.warn("Stopping Claude {} for player {} ({} ms CPU, {} MB RSS): {}",
+                        tp.describe(), tp.playerUuid, tp.cpuMillis, usage.rssBytes() / MB, reason);
+                    release(tp);
+                    limitKills.incrementAndGet();
+                    if (tp.onLimit != null) {
+                        tp.onLimit.accept(reason);
+                    }
+                    kill(tp);
+                }
+            } catch (Exception e) {
+                ClaudeCraft.LOGGER.debug("Failed to sample Claude {}: {}", tp.describe(), e.getMessage());
+            }
+        }
+        currentRssBytes = totalRss;
+        peakRssBytes.accumulateAndGet(totalRss, Math::max);
+    }
+
+    /**
+     * Drop entries whose process or run ended without unregistering.
+     */
+    private static void reap() {
+        for (TrackedProcess tp : active.values()) {
+            try {
+                if (!tp.isAlive.getAsBoolean() && active.remove(tp.handle, tp)) {
+                    release(tp);
+                    reaped.incrementAndGet();
+                    ClaudeCraft.LOGGER.warn("Reaped leaked Claude {} for player {}", tp.describe(), tp.playerUuid);
+                }
+            } catch (Exception e) {
+                ClaudeCraft.LOGGER.warn("Failed to check Claude {}: {}", tp.describe(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Update the gauges for an entry that was just removed.
+     */
+    private static void release(TrackedProcess tracked) {
+        playerCounts.computeIfPresent(tracked.playerUuid, (k, count) -> count > 1 ? count - 1 : null);
+        totalCount.decrementAndGet();
+        wallClock.record(System.currentTimeMillis() - tracked.startTime);
+    }
+
+    private static void kill(TrackedProcess tracked) {
+        try {
+            tracked.cancel.run();
+        } catch (Exception e) {
+            ClaudeCraft.LOGGER.warn("Failed to kill Claude process: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A tracked process or run with its latest resource sample.
+     */
+    public record ActiveProcess(UUID playerUuid, String description, long ageMillis, ProcessUsage usage) {}
+
+    /**
+     * Resource totals for one player.
+     */
+    public static final class PlayerUsage {
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong cpuMillis = new AtomicLong();
+        private final AtomicLong peakRssBytes = new AtomicLong();
+
+        public long getRuns() {
+            return runs.get();
+        }
+
+        public long getCpuMillis() {
+            return cpuMillis.get();
+        }
+
+        public long getPeakRssBytes() {
+            return peakRssBytes.get();
+        }
     }
 
-    private record TrackedProcess(Process process, long startTime) {}
+    private static final class TrackedProcess {
+        final UUID playerUuid;
+        final Object handle;
+        final BooleanSupplier isAlive;
+        final Runnable cancel;
+        final long startTime;
+        volatile Consumer<String> onLimit;
+
+        // Latest sample; only written by the sampler thread
+        volatile long cpuMillis;
+        volatile ProcessUsage usage;
+
+        TrackedProcess(UUID playerUuid, Object handle, BooleanSupplier isAlive, Runnable cancel, long startTime) {
+            this.playerUuid = playerUuid;
+            this.handle = handle;
+            this.isAlive = isAlive;
+            this.cancel = cancel;
+            this.startTime = startTime;
+        }
+
+        String describe() {
+            return handle instanceof Process process ? "process " + process.pid() : "run " + handle;
+        }
+    }
 }
@@ -13,7 +13,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
@@ -26,6 +28,7 @@ import java.util.stream.Stream;
 public class ClaudeSessionReader {
     private static final Gson GSON = new Gson();
     private static final int MAX_PREVIEW_LENGTH = 50;
+    private static final Map<String, Path> sessionFiles = new ConcurrentHashMap<>();
 
     /**
      * Summary of a conversation for display in the UI.
@@ -257,10 +260,32 @@ public class ClaudeSessionReader {
         return null;
     }
 
+    /**
+     * Get the size of a session's file in bytes (0 if not found).
+     * A cheap proxy for how long the conversation is.
+     */
+    public static long getSessionSize(String sessionId) {
+        Path sessionFile = findSessionFile(sessionId);
+        if (sessionFile == null) {
+            return 0;
+        }
+        try {
+            return Files.size(sessionFile);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
     /**
      * Find the session file for a given session ID in global Claude storage.
+     * Found paths are cached, so only the first lookup scans the project directories.
      */
     private static Path findSessionFile(String sessionId) {
+        Path cached = sessionFiles.get(sessionId);
+        if (cached != null && Files.exists(cached)) {
+            return cached;
+        }
+
         Path projectsDir = getGlobalClaudeProjectsDir();
 
         if (!Files.exists(projectsDir)) {
@@ -268,12 +293,18 @@ public class ClaudeSessionReader {
         }
 
         try (Stream<Path> projectDirs = Files.list(projectsDir)) {
-            return projectDirs
+            Path found = projectDirs
                 .filter(Files::isDirectory)
                 .map(dir -> dir.resolve(sessionId + ".jsonl"))
                 .filter(Files::exists)
                 .findFirst()
                 .orElse(null);
+            if (found != null) {
+                sessionFiles.put(sessionId, found);
+            } else {
+                sessionFiles.remove(sessionId);
+            }
+            return found;
         } catch (IOException e) {
             return null;
         }
@@ -1,8 +1,13 @@
 package engineering.enablement.claudecraft.claude;
 
+import engineering.enablement.claudecraft.backend.RunUsage;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents a parsed event from Claude Code's stream-json output.
  */
@@ -13,6 +18,20 @@ public record ClaudeStreamEvent(
     String text,
     JsonObject raw
 ) {
+    private static final int MAX_DETAIL_LENGTH = 40;
+
+    /**
+     * A tool call requested by an assistant message.
+     *
+     * @param detail the script or file it targets (may be empty)
+     */
+    public record ToolUse(String id, String name, String detail) {}
+
+    /**
+     * A tool result returned in a user message.
+     */
+    public record ToolResult(String toolUseId, boolean error) {}
+
     /**
      * Parse a line of stream-json output into a ClaudeStreamEvent.
      */
@@ -70,6 +89,117 @@ public record ClaudeStreamEvent(
         return ("assistant".equals(type) || "content_block_delta".equals(type)) && !text.isEmpty();
     }
 
+    /**
+     * Check if this is an assistant message that calls a tool.
+     */
+    public boolean isToolUse() {
+        if (!"assistant".equals(type) || raw == null || !raw.has("message")) {
+            return false;
+        }
+        JsonObject message = raw.getAsJsonObject("message");
+        if (!message.has("content") || !message.get("content").isJsonArray()) {
+            return false;
+        }
+        for (var element : message.getAsJsonArray("content")) {
+            if (element.isJsonObject() && element.getAsJsonObject().has("type")
+                && "tool_use".equals(element.getAsJsonObject().get("type").getAsString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The tool calls in an assistant message (empty for other events).
+     */
+    public List<ToolUse> toolUses() {
+        List<ToolUse> uses = new ArrayList<>();
+        for (JsonObject block : contentBlocks("assistant")) {
+            if ("tool_use".equals(getString(block, "type"))) {
+                JsonObject input = block.has("input") && block.get("input").isJsonObject()
+                    ? block.getAsJsonObject("input") : new JsonObject();
+                String name = getString(block, "name");
+                uses.add(new ToolUse(getString(block, "id"), name, toolDetail(name, input)));
+            }
+        }
+        return uses;
+    }
+
+    /**
+     * The tool results in a user message (empty for other events).
+     */
+    public List<ToolResult> toolResults() {
+        List<ToolResult> results = new ArrayList<>();
+        for (JsonObject block : contentBlocks("user")) {
+            if ("tool_result".equals(getString(block, "type"))) {
+                boolean error = block.has("is_error") && block.get("is_error").getAsBoolean();
+                results.add(new ToolResult(getString(block, "tool_use_id"), error));
+            }
+        }
+        return results;
+    }
+
+    private List<JsonObject> contentBlocks(String eventType) {
+        List<JsonObject> blocks = new ArrayList<>();
+        if (!eventType.equals(type) || raw == null || !raw.has("message") || !raw.get("message").isJsonObject()) {
+            return blocks;
+        }
+        JsonObject message = raw.getAsJsonObject("message");
+        if (message.has("content") && message.get("content").isJsonArray()) {
+            JsonArray content = message.getAsJsonArray("content");
+            for (var element : content) {
+                if (element.isJsonObject()) {
+                    blocks.add(element.getAsJsonObject());
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * What a tool call works on, kept short for display: the script a Bash command
+     * runs, or the name of the file a file tool touches.
+     */
+    private static String toolDetail(String name, JsonObject input) {
+        String detail = "";
+        if ("Bash".equals(name)) {
+            String command = getString(input, "command").trim();
+            String[] words = command.split("\\s+");
+            detail = words[0];
+            for (String word : words) {
+                if (word.endsWith(".sh")) {
+                    detail = word;
+                    break;
+                }
+            }
+        } else if (input.has("file_path")) {
+            detail = getString(input, "file_path");
+        }
+        // Plain string handling: a Bash word may not be a valid path on this platform
+        int slash = detail.lastIndexOf('/');
+        if (slash >= 0 && slash < detail.length() - 1) {
+            detail = detail.substring(slash + 1);
+        }
+        return detail.length() > MAX_DETAIL_LENGTH ? detail.substring(0, MAX_DETAIL_LENGTH) + "..." : detail;
+    }
+
+    private static String getString(JsonObject json, String key) {
+        return json.has(key) && json.get(key).isJsonPrimitive() ? json.get(key).getAsString() : "";
+    }
+
+    /**
+     * Tokens and cost from the final result event, or null for other events.
+     */
+    public RunUsage usage() {
+        if (!isResult() || raw == null) {
+            return null;
+        }
+        JsonObject usage = raw.has("usage") && raw.get("usage").isJsonObject() ? raw.getAsJsonObject("usage") : null;
+        double cost = raw.has("total_cost_usd") && raw.get("total_cost_usd").isJsonPrimitive()
+            ? raw.get("total_cost_usd").getAsDouble() : 0;
+        return RunUsage.fromJson(usage, cost);
+    }
+
     /**
      * Check if this is the final result.
      */
@@ -0,0 +1,98 @@
+package engineering.enablement.claudecraft.claude;
+
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a slow-starting CLI run gets a second attempt.
+ *
+ * The hedge delay is the 95th percentile of recent time-to-first-output samples,
+ * so only runs in the tail are hedged. A retry budget keeps hedging from adding
+ * load: every request earns a fraction of a hedge (budgetPercent / 100) and each
+ * hedge spends one, with the balance capped so a quiet period can't save up a
+ * burst. Thread-safe.
+ */
+public class HedgePolicy {
+    private static final int WINDOW = 200;
+    private static final int MIN_SAMPLES = 20;
+    private static final double MAX_BALANCE = 2.0;
+
+    // Ring buffer of recent time-to-first-output samples
+    private static final long[] samples = new long[WINDOW];
+    private static int sampleCount;
+    private static int nextSample;
+
+    private static double balance;
+
+    // Metrics
+    private static final AtomicLong hedged = new AtomicLong();
+    private static final AtomicLong hedgeWins = new AtomicLong();
+    private static final AtomicLong denied = new AtomicLong();
+
+    /**
+     * How long to wait for the first output before hedging a request that is
+     * starting now. Also credits the request to the hedge budget.
+     *
+     * @return the delay in milliseconds, or -1 if this request should not be hedged
+     */
+    public static long delayMs() {
+        if (!ClaudeCraftConfig.HEDGING_ENABLED.get()) {
+            return -1;
+        }
+
+        synchronized (samples) {
+            balance = Math.min(MAX_BALANCE, balance + ClaudeCraftConfig.HEDGE_BUDGET_PERCENT.get() / 100.0);
+            if (sampleCount < MIN_SAMPLES) {
+                return -1;  // No reliable estimate of the tail yet
+            }
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            long p95 = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+            return Math.max(ClaudeCraftConfig.HEDGE_MIN_DELAY_MS.get(), p95);
+        }
+    }
+
+    /**
+     * Spend one hedge from the budget.
+     *
+     * @return false if the budget is exhausted
+     */
+    public static boolean tryAcquire() {
+        synchronized (samples) {
+            if (balance < 1.0) {
+                denied.incrementAndGet();
+                return false;
+            }
+            balance -= 1.0;
+        }
+        hedged.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Record how long a freshly spawned process took to produce its first output.
+     */
+    public static void recordFirstOutput(long millis) {
+        synchronized (samples) {
+            samples[nextSample] = millis;
+            nextSample = (nextSample + 1) % WINDOW;
+            sampleCount = Math.min(WINDOW, sampleCount + 1);
+        }
+    }
+
+    /**
+     * Record that a hedge attempt produced output before the original.
+     */
+    public static void recordHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    /**
+     * One-line summary of hedging activity, for logs.
+     */
+    public static String getStats() {
+        return String.format("%d hedged (%d won), %d denied by budget", hedged.get(), hedgeWins.get(), denied.get());
+    }
+}
@@ -0,0 +1,159 @@
+package engineering.enablement.claudecraft.claude;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Finds Claude processes left behind by a previous server run (crash, kill -9)
+ * and kills them.
+ *
+ * Every spawned CLI gets a PID file in the plugin's pids/ directory, removed when
+ * the process exits. On server start, any PID file that is still there belongs to
+ * a process this server no longer controls; if a live process still has that PID
+ * and the same start time (so a reused PID is left alone), it is killed along with
+ * its descendants. Where a process's environment is readable (/proc on Linux), it
+ * must also carry the {@link #SERVER_PID_ENV} marker with the PID of the server
+ * that spawned it. Thread-safe.
+ */
+public class OrphanReaper {
+
+    /**
+     * Environment variable set on every spawned CLI to the server's PID.
+     */
+    public static final String SERVER_PID_ENV = "CLAUDECRAFT_SERVER_PID";
+
+    private static volatile Path pidDir;
+
+    /**
+     * Set the PID file directory and reap anything recorded there by a previous run.
+     * Called on server start.
+     */
+    public static void init(Path pluginDir) {
+        pidDir = pluginDir.resolve("pids");
+        try {
+            Files.createDirectories(pidDir);
+            reapOrphans();
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.warn("Failed to reap orphaned Claude processes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Record a freshly spawned process; its PID file is deleted when it exits.
+     */
+    public static void track(Process process, UUID playerUuid) {
+        Path dir = pidDir;
+        if (dir == null) {
+            return;
+        }
+
+        ProcessHandle.Info info = process.info();
+        JsonObject json = new JsonObject();
+        json.addProperty("pid", process.pid());
+        info.startInstant().ifPresent(start -> json.addProperty("started", start.toEpochMilli()));
+        info.command().ifPresent(command -> json.addProperty("command", command));
+        json.addProperty("player", playerUuid.toString());
+        json.addProperty("serverPid", ProcessHandle.current().pid());
+
+        Path file = dir.resolve(process.pid() + ".json");
+        try {
+            Files.writeString(file, json.toString());
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.debug("Failed to write PID file {}: {}", file, e.getMessage());
+            return;
+        }
+        process.onExit().thenRun(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                ClaudeCraft.LOGGER.debug("Failed to delete PID file {}: {}", file, e.getMessage());
+            }
+        });
+    }
+
+    private static void reapOrphans() throws IOException {
+        Map<Long, JsonObject> recorded = new HashMap<>();
+        List<Path> files;
+        try (Stream<Path> list = Files.list(pidDir)) {
+            files = list.filter(p -> p.toString().endsWith(".json")).toList();
+        }
+        for (Path file : files) {
+            try {
+                JsonObject json = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+                recorded.put(json.get("pid").getAsLong(), json);
+            } catch (Exception e) {
+                ClaudeCraft.LOGGER.debug("Ignoring unreadable PID file {}", file);
+            }
+            Files.deleteIfExists(file);
+        }
+        if (recorded.isEmpty()) {
+            return;
+        }
+
+        int reaped = 0;
+        try (Stream<ProcessHandle> processes = ProcessHandle.allProcesses()) {
+            for (ProcessHandle process : (Iterable<ProcessHandle>) processes::iterator) {
+                JsonObject json = recorded.get(process.pid());
+                boolean ours = process.parent().map(p -> p.pid() == ProcessHandle.current().pid()).orElse(false);
+                if (json != null && !ours && isSameProcess(process, json)) {
+                    ClaudeCraft.LOGGER.warn("Killing orphaned Claude process {} for player {} from a previous run",
+                        process.pid(), json.has("player") ? json.get("player").getAsString() : "?");
+                    RunWatchdog.killTree(process);
+                    reaped++;
+                }
+            }
+        }
+        ClaudeCraft.LOGGER.info("Checked {} Claude PID file(s) from the previous run, killed {} orphan(s)",
+            recorded.size(), reaped);
+    }
+
+    /**
+     * Whether a live process is the one a PID file was written for, not a later
+     * process that reused the PID.
+     */
+    private static boolean isSameProcess(ProcessHandle process, JsonObject json) {
+        String marker = readEnv(process.pid(), SERVER_PID_ENV);
+        if (marker != null && !(json.has("serverPid") && marker.equals(json.get("serverPid").getAsString()))) {
+            return false;  // Readable environment without our marker: not a process we spawned
+        }
+
+        ProcessHandle.Info info = process.info();
+        if (json.has("started") && info.startInstant().isPresent()) {
+            // Start times may be reported with different precision; allow a second
+            return Math.abs(info.startInstant().get().toEpochMilli() - json.get("started").getAsLong()) < 1000;
+        }
+        return json.has("command") && info.command().map(c -> c.equals(json.get("command").getAsString())).orElse(false);
+    }
+
+    /**
+     * A variable from a process's environment: its value, "" if the environment is
+     * readable but doesn't have it, or null if the environment can't be read.
+     */
+    private static String readEnv(long pid, String name) {
+        Path environ = Path.of("/proc", String.valueOf(pid), "environ");
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(environ);
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+        String prefix = name + "=";
+        for (String entry : new String(bytes, StandardCharsets.UTF_8).split("\0")) {
+            if (entry.startsWith(prefix)) {
+                return entry.substring(prefix.length());
+            }
+        }
+        return "";
+    }
+}
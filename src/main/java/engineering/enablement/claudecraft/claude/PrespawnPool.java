@@ -0,0 +1,162 @@
+package engineering.enablement.claudecraft.claude;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speculatively started Claude processes, one per player at most.
+ *
+ * When a player opens the chat screen, a process for their current session is
+ * spawned in streaming-input mode so CLI startup overlaps with typing. The next
+ * message claims it if the session and model still match; otherwise, or after the
+ * idle timeout, it is killed. The total number of waiting processes is capped
+ * server-wide. Thread-safe.
+ */
+public class PrespawnPool {
+
+    private static final Map<UUID, Prespawn> waiting = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ClaudeCraft-Prespawn");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Pre-spawn a process for a player unless one is already waiting, the global
+     * cap is reached or the server is busy. Spawning happens on the pool's own
+     * thread, which also keeps the cap exact.
+     */
+    public static void offer(Path workingDirectory, UUID playerUuid, boolean isOp,
+                             String sessionId, String model, int maxTurns) {
+        if (ClaudeCraftConfig.PRESPAWN_ENABLED.get()) {
+            timer.execute(() -> spawn(workingDirectory, playerUuid, isOp, sessionId, model, maxTurns));
+        }
+    }
+
+    private static void spawn(Path workingDirectory, UUID playerUuid, boolean isOp,
+                              String sessionId, String model, int maxTurns) {
+        Prespawn existing = waiting.get(playerUuid);
+        if (existing != null) {
+            if (existing.matches(sessionId, model, maxTurns) && existing.process.isPrimed()) {
+                existing.rescheduleTimeout();  // Still useful; give it a fresh timeout
+                return;
+            }
+            discard(playerUuid);
+        }
+
+        if (waiting.size() >= ClaudeCraftConfig.PRESPAWN_MAX_GLOBAL.get()
+            || ClaudeProcessTracker.getTotalActiveCount() >= ClaudeCraftConfig.ROUTING_LOAD_THRESHOLD.get()) {
+            return;
+        }
+
+        ClaudeProcess process = new ClaudeProcess(workingDirectory, playerUuid, isOp);
+        process.setSessionId(sessionId);
+        process.setModel(model);
+        process.setMaxTurns(maxTurns);
+        try {
+            process.prime();
+        } catch (Exception e) {
+            ClaudeCraft.LOGGER.warn("Failed to pre-spawn Claude for {}: {}", playerUuid, e.getMessage());
+            return;
+        }
+
+        Prespawn prespawn = new Prespawn(playerUuid, process, sessionId, model, maxTurns);
+        waiting.put(playerUuid, prespawn);
+        prespawn.rescheduleTimeout();
+        ClaudeCraft.LOGGER.debug("Pre-spawned Claude ({}) for player {}", model, playerUuid);
+    }
+
+    /**
+     * Claim the player's pre-spawned process if it was started with the same
+     * session, model and turn budget.
+     *
+     * @return the primed process, or null if there is none usable
+     */
+    public static ClaudeProcess take(UUID playerUuid, String sessionId, String model, int maxTurns) {
+        Prespawn prespawn = waiting.remove(playerUuid);
+        if (prespawn == null) {
+            return null;
+        }
+        prespawn.cancelTimeout();
+
+        if (!prespawn.matches(sessionId, model, maxTurns) || !prespawn.process.isPrimed()) {
+            prespawn.process.discardPrimed();
+            return null;
+        }
+        return prespawn.process;
+    }
+
+    /**
+     * Kill a player's waiting process, if any (disconnect, new conversation).
+     */
+    public static void discard(UUID playerUuid) {
+        Prespawn prespawn = waiting.remove(playerUuid);
+        if (prespawn != null) {
+            prespawn.cancelTimeout();
+            prespawn.process.discardPrimed();
+        }
+    }
+
+    /**
+     * Kill every waiting process (server stopping).
+     */
+    public static void discardAll() {
+        for (UUID playerUuid : waiting.keySet()) {
+            discard(playerUuid);
+        }
+    }
+
+    public static int getWaitingCount() {
+        return waiting.size();
+    }
+
+    private static class Prespawn {
+        final UUID playerUuid;
+        final ClaudeProcess process;
+        final String sessionId;
+        final String model;
+        final int maxTurns;
+        ScheduledFuture<?> timeout;
+
+        Prespawn(UUID playerUuid, ClaudeProcess process, String sessionId, String model, int maxTurns) {
+            this.playerUuid = playerUuid;
+            this.process = process;
+            this.sessionId = sessionId;
+            this.model = model;
+            this.maxTurns = maxTurns;
+        }
+
+        boolean matches(String sessionId, String model, int maxTurns) {
+            return Objects.equals(this.sessionId, sessionId)
+                && this.model.equals(model)
+                && this.maxTurns == maxTurns;
+        }
+
+        synchronized void rescheduleTimeout() {
+            cancelTimeout();
+            timeout = timer.schedule(() -> {
+                if (waiting.remove(playerUuid, this)) {
+                    process.discardPrimed();
+                    ClaudeCraft.LOGGER.debug("Pre-spawned Claude for {} unused, killed", playerUuid);
+                }
+            }, ClaudeCraftConfig.PRESPAWN_IDLE_SECONDS.get(), TimeUnit.SECONDS);
+        }
+
+        synchronized void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel(false);
+                timeout = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package engineering.enablement.claudecraft.claude;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Launches CLI processes at lower priority than the server on Linux, so a burst of
+ * Claude runs doesn't push up MSPT.
+ *
+ * The command is prefixed with nice, ionice and taskset (keeping the first
+ * reservedCpus CPUs free for the server), and a small shell step that moves the
+ * process into a shared cgroup v2 group with cpu.max/memory.max before exec'ing
+ * the CLI, so every tool it starts is inside the group too. All of these exec in
+ * place, so the spawned PID stays the CLI's. Each feature is checked once at
+ * server start and left out if missing (no binary, read-only cgroupfs, not Linux).
+ */
+public class ProcessIsolation {
+
+    private static final Path CGROUP_ROOT = Path.of("/sys/fs/cgroup");
+    private static final long CPU_PERIOD_MICROS = 100_000;
+
+    private static volatile List<String> prefix = List.of();
+
+    /**
+     * Work out which isolation features are available. Called on server start.
+     */
+    public static void init() {
+        if (!ClaudeCraftConfig.ISOLATION_ENABLED.get()) {
+            prefix = List.of();
+            return;
+        }
+        if (!System.getProperty("os.name", "").toLowerCase().contains("linux")) {
+            ClaudeCraft.LOGGER.info("Process isolation is only supported on Linux; CLI processes run normally");
+            prefix = List.of();
+            return;
+        }
+
+        List<String> launcher = new ArrayList<>();
+        List<String> enabled = new ArrayList<>();
+
+        Path procs = ClaudeCraftConfig.CGROUP_ENABLED.get() ? setUpCgroup() : null;
+        String sh = find("sh");
+        if (procs != null && sh != null) {
+            // $1 is the cgroup.procs file; if the write fails the CLI still starts
+            launcher.addAll(List.of(sh, "-c", "{ echo $$ > \"$1\"; } 2>/dev/null; shift; exec \"$@\"", "sh", procs.toString()));
+            enabled.add("cgroup " + procs.getParent());
+        }
+
+        int niceness = ClaudeCraftConfig.NICENESS.get();
+        String nice = find("nice");
+        if (niceness > 0 && nice != null) {
+            launcher.addAll(List.of(nice, "-n", String.valueOf(niceness)));
+            enabled.add("nice " + niceness);
+        }
+
+        String ionice = find("ionice");
+        if (ClaudeCraftConfig.LOW_IO_PRIORITY.get() && ionice != null) {
+            launcher.addAll(List.of(ionice, "-c", "2", "-n", "7"));
+            enabled.add("ionice");
+        }
+
+        int reserved = ClaudeCraftConfig.RESERVED_CPUS.get();
+        int cpus = Runtime.getRuntime().availableProcessors();
+        String taskset = find("taskset");
+        if (reserved > 0 && taskset != null) {
+            if (cpus > reserved) {
+                String cpuList = reserved + "-" + (cpus - 1);
+                launcher.addAll(List.of(taskset, "-c", cpuList));
+                enabled.add("CPUs " + cpuList);
+            } else {
+                ClaudeCraft.LOGGER.warn("Not reserving {} CPU(s) for the server: only {} available", reserved, cpus);
+            }
+        }
+
+        prefix = List.copyOf(launcher);
+        ClaudeCraft.LOGGER.info("Process isolation: {}", enabled.isEmpty() ? "nothing available" : String.join(", ", enabled));
+    }
+
+    /**
+     * The command to start, with the isolation launcher in front if enabled.
+     */
+    public static List<String> wrap(List<String> command) {
+        List<String> launcher = prefix;
+        if (launcher.isEmpty()) {
+            return command;
+        }
+        List<String> wrapped = new ArrayList<>(launcher.size() + command.size());
+        wrapped.addAll(launcher);
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    /**
+     * Create (or reuse) the cgroup and apply its limits.
+     *
+     * @return its cgroup.procs file, or null if cgroups can't be used
+     */
+    private static Path setUpCgroup() {
+        if (!Files.exists(CGROUP_ROOT.resolve("cgroup.controllers"))) {
+            ClaudeCraft.LOGGER.info("cgroup v2 not mounted; CLI processes won't be put in a cgroup");
+            return null;
+        }
+
+        try {
+            Path group = cgroupDir();
+            Files.createDirectories(group);
+            Path procs = group.resolve("cgroup.procs");
+            if (!Files.isWritable(procs)) {
+                ClaudeCraft.LOGGER.info("cgroup {} is not writable; CLI processes won't be put in a cgroup", group);
+                return null;
+            }
+
+            int cpuPercent = ClaudeCraftConfig.CGROUP_CPU_PERCENT.get();
+            int memoryMb = ClaudeCraftConfig.CGROUP_MEMORY_MB.get();
+            if (cpuPercent > 0 || memoryMb > 0) {
+                enableControllers(group);
+            }
+            writeLimit(group, "cpu.max", cpuPercent > 0
+                ? (CPU_PERIOD_MICROS * cpuPercent / 100) + " " + CPU_PERIOD_MICROS
+                : "max " + CPU_PERIOD_MICROS);
+            writeLimit(group, "memory.max", memoryMb > 0 ? String.valueOf(memoryMb * 1024L * 1024) : "max");
+            return procs;
+        } catch (IOException | RuntimeException e) {
+            ClaudeCraft.LOGGER.info("Can't set up a cgroup for CLI processes: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The configured cgroup, or a "claudecraft" group next to the server's own (the
+     * server's group itself can't have child groups with controllers while it holds
+     * processes).
+     */
+    private static Path cgroupDir() throws IOException {
+        String configured = ClaudeCraftConfig.CGROUP_PATH.get().trim();
+        if (!configured.isEmpty()) {
+            return Path.of(configured);
+        }
+
+        // cgroup v2 has a single line: "0::/path/of/our/group"
+        for (String line : Files.readAllLines(Path.of("/proc/self/cgroup"))) {
+            if (line.startsWith("0::")) {
+                Path own = CGROUP_ROOT.resolve(line.substring(3).replaceFirst("^/", ""));
+                Path parent = own.equals(CGROUP_ROOT) ? CGROUP_ROOT : own.getParent();
+                return parent.resolve("claudecraft");
+            }
+        }
+        throw new IOException("no cgroup v2 entry in /proc/self/cgroup");
+    }
+
+    /**
+     * Make the cpu and memory controllers available to the group if its parent allows it.
+     */
+    private static void enableControllers(Path group) {
+        Path subtreeControl = group.getParent().resolve("cgroup.subtree_control");
+        for (String controller : List.of("cpu", "memory")) {
+            if (Files.exists(group.resolve(controller + ".max"))) {
+                continue;
+            }
+            try {
+                Files.writeString(subtreeControl, "+" + controller);
+            } catch (IOException e) {
+                ClaudeCraft.LOGGER.info("Can't enable the {} controller for {}: {}", controller, group, e.getMessage());
+            }
+        }
+    }
+
+    private static void writeLimit(Path group, String file, String value) {
+        Path path = group.resolve(file);
+        if (!Files.exists(path)) {
+            if (!value.startsWith("max")) {
+                ClaudeCraft.LOGGER.info("cgroup {} has no {}; that limit is not applied", group, file);
+            }
+            return;
+        }
+        try {
+            Files.writeString(path, value);
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.info("Can't set {} of {}: {}", file, group, e.getMessage());
+        }
+    }
+
+    /**
+     * Find an executable on the PATH (plus the usual system directories, since the
+     * server may run with a minimal environment), or null.
+     */
+    private static String find(String name) {
+        List<String> dirs = new ArrayList<>();
+        String path = System.getenv("PATH");
+        if (path != null) {
+            dirs.addAll(List.of(path.split(File.pathSeparator)));
+        }
+        dirs.addAll(List.of("/usr/bin", "/bin", "/usr/sbin", "/sbin"));
+        for (String dir : dirs) {
+            if (dir.isEmpty()) {
+                continue;
+            }
+            Path candidate = Path.of(dir, name);
+            if (Files.isExecutable(candidate)) {
+                return candidate.toString();
+            }
+        }
+        return null;
+    }
+}
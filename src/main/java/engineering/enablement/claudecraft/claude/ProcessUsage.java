@@ -0,0 +1,62 @@
+package engineering.enablement.claudecraft.claude;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * CPU time and resident memory of a process together with all its descendants
+ * (the CLI plus the node, shell and tool processes it starts).
+ *
+ * CPU time comes from {@link ProcessHandle.Info}; resident memory is read from
+ * /proc/&lt;pid&gt;/status, so it is only available on Linux (-1 elsewhere).
+ *
+ * @param cpuMillis total CPU time of the live processes in the tree
+ * @param rssBytes total resident memory, or -1 if unknown
+ * @param processCount number of live processes in the tree
+ */
+public record ProcessUsage(long cpuMillis, long rssBytes, int processCount) {
+
+    private static final boolean HAS_PROC = Files.isDirectory(Path.of("/proc/self"));
+
+    /**
+     * Sample a process tree.
+     */
+    public static ProcessUsage sample(ProcessHandle root) {
+        List<ProcessHandle> tree;
+        try (Stream<ProcessHandle> descendants = root.descendants()) {
+            tree = Stream.concat(Stream.of(root), descendants).filter(ProcessHandle::isAlive).toList();
+        }
+
+        long cpuMillis = 0;
+        long rssBytes = HAS_PROC ? 0 : -1;
+        for (ProcessHandle process : tree) {
+            cpuMillis += process.info().totalCpuDuration().map(Duration::toMillis).orElse(0L);
+            if (rssBytes >= 0) {
+                long rss = readRssBytes(process.pid());
+                rssBytes = rss >= 0 ? rssBytes + rss : rssBytes;
+            }
+        }
+        return new ProcessUsage(cpuMillis, rssBytes, tree.size());
+    }
+
+    /**
+     * VmRSS from /proc/&lt;pid&gt;/status, or -1 if it can't be read (process gone, not Linux).
+     */
+    private static long readRssBytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    // "VmRSS:      123456 kB"
+                    return Long.parseLong(line.substring(6).trim().split("\\s+")[0]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Process exited between listing and reading
+        }
+        return -1;
+    }
+}
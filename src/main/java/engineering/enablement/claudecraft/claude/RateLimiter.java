@@ -0,0 +1,130 @@
+package engineering.enablement.claudecraft.claude;
+
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-player and server-wide token buckets for chat messages.
+ *
+ * Each bucket holds up to its burst size in tokens and refills at the configured
+ * messages per minute. A message takes one token from both buckets; if either is
+ * empty the message is not rejected but told how long to wait, and the tokens are
+ * taken in advance so later messages queue up behind it. Rates and bursts are read
+ * from the config on every call, so changes apply at once. Thread-safe.
+ */
+public class RateLimiter {
+
+    private static final double NANOS_PER_MINUTE = 60e9;
+
+    private static final Map<UUID, Bucket> playerBuckets = new HashMap<>();
+    private static final Bucket globalBucket = new Bucket();
+
+    /**
+     * Reserve a token for a message.
+     *
+     * @return milliseconds to wait before sending it (0 = now), or -1 if the wait
+     *         would be over the configured maximum (nothing is reserved then)
+     */
+    public static synchronized long reserve(UUID playerUuid) {
+        long now = System.nanoTime();
+        Bucket player = playerBuckets.computeIfAbsent(playerUuid, k -> new Bucket());
+        double playerRate = ClaudeCraftConfig.PLAYER_MESSAGES_PER_MINUTE.get() / NANOS_PER_MINUTE;
+        double globalRate = ClaudeCraftConfig.GLOBAL_MESSAGES_PER_MINUTE.get() / NANOS_PER_MINUTE;
+        player.refill(now, playerRate, ClaudeCraftConfig.PLAYER_BURST.get());
+        globalBucket.refill(now, globalRate, ClaudeCraftConfig.GLOBAL_BURST.get());
+
+        long waitNanos = Math.max(player.waitNanos(playerRate), globalBucket.waitNanos(globalRate));
+        if (waitNanos > ClaudeCraftConfig.MAX_RATE_LIMIT_WAIT_SECONDS.get() * 1_000_000_000L) {
+            return -1;
+        }
+        player.take(playerRate);
+        globalBucket.take(globalRate);
+        return (waitNanos + 999_999) / 1_000_000;
+    }
+
+    /**
+     * Give back the tokens reserved for a message that was withdrawn before it was sent.
+     */
+    public static synchronized void refund(UUID playerUuid) {
+        long now = System.nanoTime();
+        double playerRate = ClaudeCraftConfig.PLAYER_MESSAGES_PER_MINUTE.get() / NANOS_PER_MINUTE;
+        double globalRate = ClaudeCraftConfig.GLOBAL_MESSAGES_PER_MINUTE.get() / NANOS_PER_MINUTE;
+        Bucket player = playerBuckets.get(playerUuid);
+        if (player != null) {
+            int burst = ClaudeCraftConfig.PLAYER_BURST.get();
+            player.refill(now, playerRate, burst);
+            player.give(playerRate, burst);
+        }
+        int globalBurst = ClaudeCraftConfig.GLOBAL_BURST.get();
+        globalBucket.refill(now, globalRate, globalBurst);
+        globalBucket.give(globalRate, globalBurst);
+    }
+
+    /**
+     * Forget a player's bucket once it has refilled (called on disconnect); a
+     * partly drained bucket is kept so reconnecting doesn't reset the limit.
+     */
+    public static synchronized void cleanupPlayer(UUID playerUuid) {
+        Bucket bucket = playerBuckets.get(playerUuid);
+        if (bucket == null) {
+            return;
+        }
+        double rate = ClaudeCraftConfig.PLAYER_MESSAGES_PER_MINUTE.get() / NANOS_PER_MINUTE;
+        int burst = ClaudeCraftConfig.PLAYER_BURST.get();
+        bucket.refill(System.nanoTime(), rate, burst);
+        if (rate <= 0 || bucket.tokens >= burst) {
+            playerBuckets.remove(playerUuid);
+        }
+    }
+
+    /**
+     * Current limits and bucket levels, for the admin command.
+     */
+    public static synchronized String getStats() {
+        long now = System.nanoTime();
+        double globalRate = ClaudeCraftConfig.GLOBAL_MESSAGES_PER_MINUTE.get() / NANOS_PER_MINUTE;
+        globalBucket.refill(now, globalRate, ClaudeCraftConfig.GLOBAL_BURST.get());
+        return String.format("player %s, global %s; global bucket %.1f tokens, %d player bucket(s)",
+            describe(ClaudeCraftConfig.PLAYER_MESSAGES_PER_MINUTE.get(), ClaudeCraftConfig.PLAYER_BURST.get()),
+            describe(ClaudeCraftConfig.GLOBAL_MESSAGES_PER_MINUTE.get(), ClaudeCraftConfig.GLOBAL_BURST.get()),
+            globalBucket.tokens, playerBuckets.size());
+    }
+
+    private static String describe(int perMinute, int burst) {
+        return perMinute == 0 ? "unlimited" : perMinute + "/min (burst " + burst + ")";
+    }
+
+    private static final class Bucket {
+        // Negative while messages are waiting for tokens that haven't refilled yet
+        double tokens = Double.NaN;
+        long lastNanos;
+
+        void refill(long now, double ratePerNano, int burst) {
+            if (Double.isNaN(tokens)) {
+                tokens = burst;
+            } else if (ratePerNano > 0) {
+                tokens = Math.min(burst, tokens + (now - lastNanos) * ratePerNano);
+            }
+            lastNanos = now;
+        }
+
+        long waitNanos(double ratePerNano) {
+            return ratePerNano <= 0 || tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+        }
+
+        void take(double ratePerNano) {
+            if (ratePerNano > 0) {
+                tokens -= 1;
+            }
+        }
+
+        void give(double ratePerNano, int burst) {
+            if (ratePerNano > 0) {
+                tokens = Math.min(burst, tokens + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package engineering.enablement.claudecraft.claude;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Server-wide cap on concurrent Claude runs, with a FIFO queue for requests that
+ * arrive while the cap is reached.
+ *
+ * A run that was admitted must call {@link #release} exactly once when it ends
+ * (completed, failed or cancelled); the next queued request starts right away on
+ * the releasing thread. Thread-safe.
+ */
+public class RunAdmission {
+
+    private static final Deque<Queued> queue = new ArrayDeque<>();
+    private static int running;
+
+    /**
+     * Start a run now if there is capacity, otherwise queue it.
+     *
+     * @param start starts the run; must arrange for {@link #release} to be called when it ends.
+     *              If it throws, the slot is released here and the exception rethrown
+     * @return 0 if started, otherwise the position in the queue (1 = next)
+     */
+    public static int submit(UUID playerUuid, Runnable start) {
+        synchronized (queue) {
+            if (running >= ClaudeCraftConfig.MAX_CONCURRENT_RUNS.get()) {
+                queue.addLast(new Queued(playerUuid, start));
+                return queue.size();
+            }
+            running++;
+        }
+        try {
+            start.run();
+        } catch (RuntimeException e) {
+            release();  // The run never started, so it can't release its slot
+            throw e;
+        }
+        return 0;
+    }
+
+    /**
+     * Free the slot of a finished run, starting queued requests that now fit.
+     */
+    public static void release() {
+        List<Queued> toStart = new ArrayList<>();
+        synchronized (queue) {
+            running = Math.max(0, running - 1);
+            while (!queue.isEmpty() && running < ClaudeCraftConfig.MAX_CONCURRENT_RUNS.get()) {
+                toStart.add(queue.pollFirst());
+                running++;
+            }
+        }
+
+        for (Queued queued : toStart) {
+            try {
+                queued.start.run();
+            } catch (Exception e) {
+                ClaudeCraft.LOGGER.error("Failed to start queued Claude run for {}", queued.playerUuid, e);
+                release();
+            }
+        }
+    }
+
+    /**
+     * Drop a player's queued requests (stop button, disconnect).
+     *
+     * @return true if anything was removed
+     */
+    public static boolean cancelQueued(UUID playerUuid) {
+        synchronized (queue) {
+            return queue.removeIf(q -> q.playerUuid.equals(playerUuid));
+        }
+    }
+
+    /**
+     * Drop every queued request (server shutdown).
+     *
+     * @return how many were dropped
+     */
+    public static int clear() {
+        synchronized (queue) {
+            int dropped = queue.size();
+            queue.clear();
+            return dropped;
+        }
+    }
+
+    public static boolean isQueued(UUID playerUuid) {
+        synchronized (queue) {
+            return queue.stream().anyMatch(q -> q.playerUuid.equals(playerUuid));
+        }
+    }
+
+    public static int getQueueLength() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    private record Queued(UUID playerUuid, Runnable start) {}
+}
@@ -0,0 +1,150 @@
+package engineering.enablement.claudecraft.claude;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces time limits on a CLI run from outside the thread reading its output,
+ * which may be blocked in readLine() on a process that prints nothing.
+ *
+ * Three limits apply: a total deadline, an idle limit on output while Claude is
+ * generating, and a limit on tool calls (the CLI is silent while tools run, so the
+ * idle limit is suspended until every outstanding call has returned). When one is exceeded, every process of the
+ * run is killed together with its descendants, which closes stdout and unblocks the
+ * reader. Thread-safe.
+ */
+public class RunWatchdog {
+    private static final long CHECK_INTERVAL_MS = 500;
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ClaudeCraft-Watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final List<Process> processes = new CopyOnWriteArrayList<>();
+    private final long startNanos = System.nanoTime();
+    private final long deadlineMs = ClaudeCraftConfig.RUN_DEADLINE_SECONDS.get() * 1000L;
+    private final long idleMs = ClaudeCraftConfig.RUN_IDLE_SECONDS.get() * 1000L;
+    private final long toolMs = ClaudeCraftConfig.RUN_TOOL_SECONDS.get() * 1000L;
+    private final ScheduledFuture<?> check;
+
+    private volatile long lastOutputNanos = startNanos;
+    private volatile long toolStartNanos = -1;  // When the outstanding tool calls started
+    private int toolsOutstanding;  // Guarded by this
+    private volatile String stopReason;
+
+    private RunWatchdog() {
+        check = timer.scheduleAtFixedRate(this::check, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start watching a run. Call {@link #close} when it ends.
+     */
+    public static RunWatchdog start() {
+        return new RunWatchdog();
+    }
+
+    /**
+     * Add a process belonging to the run (hedged runs have two). A process added
+     * after the run was stopped is killed immediately.
+     */
+    public void watch(Process process) {
+        processes.add(process);
+        if (stopReason != null) {
+            killTree(process.toHandle());
+        }
+    }
+
+    /**
+     * Note a line of output.
+     */
+    public void onOutput() {
+        lastOutputNanos = System.nanoTime();
+    }
+
+    /**
+     * Note that Claude called tools (several at once when they run in parallel);
+     * output pauses until they all return.
+     */
+    public synchronized void onToolStart(int calls) {
+        if (toolsOutstanding == 0 && calls > 0) {
+            toolStartNanos = System.nanoTime();
+        }
+        toolsOutstanding += calls;
+    }
+
+    /**
+     * Note that tool results came back.
+     */
+    public synchronized void onToolEnd(int results) {
+        toolsOutstanding = Math.max(0, toolsOutstanding - results);
+        if (toolsOutstanding == 0) {
+            toolStartNanos = -1;
+        }
+        lastOutputNanos = System.nanoTime();
+    }
+
+    /**
+     * Why the run was killed, or null if it wasn't.
+     */
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public void close() {
+        check.cancel(false);
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        long toolStart = toolStartNanos;
+        String reason = null;
+
+        if (millisSince(startNanos, now) > deadlineMs) {
+            reason = "Claude took longer than " + deadlineMs / 1000 + " seconds and was stopped.";
+        } else if (toolStart >= 0 && millisSince(toolStart, now) > toolMs) {
+            reason = "A tool call ran for more than " + toolMs / 1000 + " seconds and was stopped.";
+        } else if (toolStart < 0 && millisSince(lastOutputNanos, now) > idleMs) {
+            reason = "Claude produced no output for " + idleMs / 1000 + " seconds and was stopped.";
+        }
+
+        if (reason != null) {
+            ClaudeCraft.LOGGER.warn("Watchdog killing Claude run after {}ms: {}", millisSince(startNanos, now), reason);
+            stop(reason);
+        }
+    }
+
+    /**
+     * Kill every process of the run and its descendants (timeouts, stop button).
+     *
+     * @param reason reported to the player as the run's error
+     */
+    public void stop(String reason) {
+        stopReason = reason;
+        check.cancel(false);
+        for (Process process : processes) {
+            killTree(process.toHandle());
+        }
+    }
+
+    /**
+     * Forcibly kill a process and everything it started (tool scripts, shells).
+     * Descendants go first so none are re-parented and left holding stdout open.
+     */
+    public static void killTree(ProcessHandle process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private static long millisSince(long startNanos, long nowNanos) {
+        return (nowNanos - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,163 @@
+package engineering.enablement.claudecraft.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.claude.ClaudeProcessTracker;
+import engineering.enablement.claudecraft.claude.ProcessUsage;
+import engineering.enablement.claudecraft.claude.RateLimiter;
+import engineering.enablement.claudecraft.claude.RunAdmission;
+import engineering.enablement.claudecraft.metrics.UsageLedger;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.common.ModConfigSpec;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Admin commands under /claudecraft (permission level 2).
+ *
+ * /claudecraft processes - running Claude processes with their CPU and memory use,
+ * and per-player totals since the server started.
+ * /claudecraft ratelimit [player|global &lt;perMinute&gt; &lt;burst&gt;] - show or change the
+ * message rate limits; changes are saved to the server config and apply at once.
+ * /claudecraft usage [export] - today's token and cost totals, overall and for the
+ * heaviest players; export writes every stored day to metrics/usage.csv.
+ */
+public class ClaudeCraftCommand {
+
+    private static final long MB = 1024 * 1024;
+    private static final int TOP_PLAYERS = 10;
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("claudecraft")
+            .requires(source -> source.hasPermission(2))
+            .then(Commands.literal("processes").executes(ClaudeCraftCommand::processes))
+            .then(Commands.literal("ratelimit")
+                .executes(ClaudeCraftCommand::showRateLimit)
+                .then(rateLimitArgs("player",
+                    ClaudeCraftConfig.PLAYER_MESSAGES_PER_MINUTE, ClaudeCraftConfig.PLAYER_BURST))
+                .then(rateLimitArgs("global",
+                    ClaudeCraftConfig.GLOBAL_MESSAGES_PER_MINUTE, ClaudeCraftConfig.GLOBAL_BURST)))
+            .then(Commands.literal("usage")
+                .executes(ClaudeCraftCommand::usage)
+                .then(Commands.literal("export").executes(ClaudeCraftCommand::exportUsage))));
+    }
+
+    private static LiteralArgumentBuilder<CommandSourceStack> rateLimitArgs(String scope, ModConfigSpec.IntValue perMinute,
+                                                                           ModConfigSpec.IntValue burst) {
+        return Commands.literal(scope)
+            .then(Commands.argument("perMinute", IntegerArgumentType.integer(0))
+                .then(Commands.argument("burst", IntegerArgumentType.integer(1))
+                    .executes(ctx -> {
+                        perMinute.set(IntegerArgumentType.getInteger(ctx, "perMinute"));
+                        burst.set(IntegerArgumentType.getInteger(ctx, "burst"));
+                        ClaudeCraftConfig.SPEC.save();
+                        return showRateLimit(ctx);
+                    })));
+    }
+
+    private static int showRateLimit(CommandContext<CommandSourceStack> ctx) {
+        String text = "Claude rate limits: " + RateLimiter.getStats();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return 1;
+    }
+
+    private static int processes(CommandContext<CommandSourceStack> ctx) {
+        CommandSourceStack source = ctx.getSource();
+        MinecraftServer server = source.getServer();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Claude processes: %d active, %d queued; CPU %.1fs total; RSS %s now, %s peak",
+            ClaudeProcessTracker.getTotalActiveCount(), RunAdmission.getQueueLength(),
+            ClaudeProcessTracker.getTotalCpuMillis() / 1000.0,
+            formatMb(ClaudeProcessTracker.getCurrentRssBytes()), formatMb(ClaudeProcessTracker.getPeakRssBytes())));
+
+        for (ClaudeProcessTracker.ActiveProcess process : ClaudeProcessTracker.getActive()) {
+            ProcessUsage usage = process.usage();
+            sb.append(String.format("\n  %s  %s  %ds", process.description(),
+                playerName(server, process.playerUuid()), process.ageMillis() / 1000));
+            if (usage != null) {
+                sb.append(String.format("  CPU %.1fs  RSS %s  (%d procs)",
+                    usage.cpuMillis() / 1000.0, formatMb(usage.rssBytes()), usage.processCount()));
+            }
+        }
+
+        Map<UUID, ClaudeProcessTracker.PlayerUsage> players = ClaudeProcessTracker.getPlayerUsage();
+        if (!players.isEmpty()) {
+            sb.append("\nPer player:");
+            players.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().getCpuMillis(), a.getValue().getCpuMillis()))
+                .forEach(entry -> sb.append(String.format("\n  %s  %d runs  CPU %.1fs  peak RSS %s",
+                    playerName(server, entry.getKey()), entry.getValue().getRuns(),
+                    entry.getValue().getCpuMillis() / 1000.0, formatMb(entry.getValue().getPeakRssBytes()))));
+        }
+
+        String text = sb.toString();
+        source.sendSuccess(() -> Component.literal(text), false);
+        return ClaudeProcessTracker.getTotalActiveCount();
+    }
+
+    private static int usage(CommandContext<CommandSourceStack> ctx) {
+        UsageLedger.Day day = UsageLedger.getDay(LocalDate.now());
+        if (day == null) {
+            ctx.getSource().sendSuccess(() -> Component.literal("No Claude usage today."), false);
+            return 0;
+        }
+
+        StringBuilder sb = new StringBuilder("Claude usage today: " + day.getGlobal());
+        long tokenQuota = ClaudeCraftConfig.DAILY_TOKEN_QUOTA.get();
+        double costQuota = ClaudeCraftConfig.DAILY_COST_QUOTA_USD.get();
+        if (tokenQuota > 0 || costQuota > 0) {
+            sb.append(String.format("\nDaily quota per player: %s tokens, %s",
+                tokenQuota > 0 ? tokenQuota : "unlimited",
+                costQuota > 0 ? String.format("$%.2f", costQuota) : "unlimited cost"));
+        }
+
+        List<Map.Entry<String, UsageLedger.Totals>> players = day.getPlayersBySpend();
+        sb.append("\nTop players:");
+        players.stream().limit(TOP_PLAYERS).forEach(entry -> {
+            UsageLedger.Totals totals = entry.getValue();
+            sb.append(String.format("\n  %s  %d requests  %d tokens (%d avg prompt)  $%.4f  %.1fs avg",
+                totals.getName(), totals.getRequests(), totals.getTotalTokens(), totals.getAverageInputTokens(),
+                totals.getCostUsd(), totals.getWallClockMs() / 1000.0 / totals.getRequests()));
+        });
+        if (players.size() > TOP_PLAYERS) {
+            sb.append("\n  ... and ").append(players.size() - TOP_PLAYERS).append(" more");
+        }
+
+        String text = sb.toString();
+        ctx.getSource().sendSuccess(() -> Component.literal(text), false);
+        return players.size();
+    }
+
+    private static int exportUsage(CommandContext<CommandSourceStack> ctx) {
+        try {
+            Path file = UsageLedger.exportCsv();
+            ctx.getSource().sendSuccess(() -> Component.literal("Claude usage exported to " + file), true);
+            return 1;
+        } catch (IOException e) {
+            ctx.getSource().sendFailure(Component.literal("Failed to export Claude usage: " + e.getMessage()));
+            return 0;
+        }
+    }
+
+    private static String playerName(MinecraftServer server, UUID playerUuid) {
+        ServerPlayer player = server.getPlayerList().getPlayer(playerUuid);
+        return player != null ? player.getName().getString() : playerUuid.toString();
+    }
+
+    private static String formatMb(long bytes) {
+        return bytes < 0 ? "n/a" : (bytes / MB) + " MB";
+    }
+}
@@ -1,28 +1,42 @@
 package engineering.enablement.claudecraft.data;
 
 import engineering.enablement.claudecraft.ClaudeCraft;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.entity.player.Inventory;
-import net.minecraft.world.item.ItemStack;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.AtomicMoveNotSupportedException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages player data directories and state files for the AI.
  */
 public class PlayerDataManager {
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    // Movement smaller than this (in blocks) doesn't trigger a position rewrite
+    private static final double MOVEMENT_THRESHOLD_SQ = 1.0;
+    private static final float ROTATION_THRESHOLD = 15.0f;
+    static final long WORLD_TIME_BUCKET = 1000;  // Ticks; matches time phase boundaries
+    private static final int TRAIL_SAVE_EVERY = 30;  // New trail samples between checkpoints
+    private static final long MIN_WRITE_INTERVAL_MS = 250;  // Changes within this window share one write
 
     private final Path pluginDir;
     private final Path playersDir;
+    private final Map<UUID, PlayerStateSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final WorldInfoCache worldInfoCache = new WorldInfoCache();
+    private final Map<UUID, TrailEntry> trails = new ConcurrentHashMap<>();
+    private final Map<UUID, WaypointStore> waypointStores = new ConcurrentHashMap<>();
 
     public PlayerDataManager(MinecraftServer server) {
         // Use the server's world directory
@@ -60,6 +74,8 @@ public class PlayerDataManager {
         copySkill("mc-get-inventory");
         copySkill("mc-get-nearby");
         copySkill("mc-get-world-info");
+        copySkill("mc-get-trail");
+        copySkill("mc-waypoints");
 
         // Copy/update bin scripts (always overwrite)
         copyResource("claude-craft-defaults/bin/mc-get-position.sh",
@@ -70,6 +86,10 @@ public class PlayerDataManager {
             pluginDir.resolve("bin").resolve("mc-get-nearby.sh"));
         copyResource("claude-craft-defaults/bin/mc-get-world-info.sh",
             pluginDir.resolve("bin").resolve("mc-get-world-info.sh"));
+        copyResource("claude-craft-defaults/bin/mc-get-trail.sh",
+            pluginDir.resolve("bin").resolve("mc-get-trail.sh"));
+        copyResource("claude-craft-defaults/bin/mc-waypoints.sh",
+            pluginDir.resolve("bin").resolve("mc-waypoints.sh"));
 
         // Make scripts executable
         makeExecutable(pluginDir.resolve(".claude").resolve("hooks").resolve("validate_write.sh"));
@@ -78,6 +98,8 @@ public class PlayerDataManager {
         makeExecutable(pluginDir.resolve("bin").resolve("mc-get-inventory.sh"));
         makeExecutable(pluginDir.resolve("bin").resolve("mc-get-nearby.sh"));
         makeExecutable(pluginDir.resolve("bin").resolve("mc-get-world-info.sh"));
+        makeExecutable(pluginDir.resolve("bin").resolve("mc-get-trail.sh"));
+        makeExecutable(pluginDir.resolve("bin").resolve("mc-waypoints.sh"));
 
         ClaudeCraft.LOGGER.info("Claude Craft plugin directory initialized");
     }
@@ -152,178 +174,226 @@ public class PlayerDataManager {
     }
 
     /**
-     * Update a player's state.json with current game state.
+     * Force a full refresh of a player's state.json (e.g. on join).
      */
     public void updatePlayerState(ServerPlayer player) throws IOException {
-        Path playerDir = getPlayerDir(player.getUUID());
-        Files.createDirectories(playerDir);
+        PlayerStateSnapshot snapshot = snapshots.computeIfAbsent(player.getUUID(),
+            k -> new PlayerStateSnapshot());
+        snapshot.dirty.addAll(EnumSet.allOf(StateSection.class));
+        snapshot.lastWriteMillis = 0;
+        flushPlayerState(player);
+    }
 
-        JsonObject state = new JsonObject();
+    /**
+     * Mark sections of a player's state as changed.
+     * Safe to call from event handlers; the work happens on the next flush.
+     */
+    public void markDirty(ServerPlayer player, StateSection... sections) {
+        PlayerStateSnapshot snapshot = snapshots.get(player.getUUID());
+        if (snapshot != null) {
+            Collections.addAll(snapshot.dirty, sections);
+        }
+    }
 
-        // Position
-        JsonObject position = new JsonObject();
-        position.addProperty("x", player.getX());
-        position.addProperty("y", player.getY());
-        position.addProperty("z", player.getZ());
-        state.add("position", position);
+    /**
+     * Mark a section dirty for every tracked player (e.g. player count changed).
+     */
+    public void markAllDirty(StateSection section) {
+        for (PlayerStateSnapshot snapshot : snapshots.values()) {
+            snapshot.dirty.add(section);
+        }
+    }
 
-        // Dimension
-        state.addProperty("dimension", player.level().dimension().location().toString());
+    /**
+     * Recapture and persist only the dirty sections of a player's state.
+     * Cheap probes cover changes that have no event (movement, hunger drain, hotbar
+     * selection, time of day). Returns immediately if nothing changed, and
+     * changes within MIN_WRITE_INTERVAL_MS of the last write are held back so a
+     * moving player costs at most a few writes per second.
+     */
+    public void flushPlayerState(ServerPlayer player) throws IOException {
+        PlayerStateSnapshot snapshot = snapshots.get(player.getUUID());
+        if (snapshot == null) {
+            return;
+        }
 
-        // Rotation
-        JsonObject rotation = new JsonObject();
-        rotation.addProperty("yaw", player.getYRot());
-        rotation.addProperty("pitch", player.getXRot());
-        state.add("rotation", rotation);
+        probeForChanges(player, snapshot);
+        long now = System.currentTimeMillis();
+        if (snapshot.dirty.isEmpty() || now - snapshot.lastWriteMillis < MIN_WRITE_INTERVAL_MS) {
+            return;
+        }
+        snapshot.lastWriteMillis = now;
 
-        // Biome
-        state.addProperty("biome", player.level().getBiome(player.blockPosition())
-            .unwrapKey().map(k -> k.location().toString()).orElse("unknown"));
+        // Any rewrite also refreshes world info so timestamps stay consistent
+        snapshot.dirty.add(StateSection.WORLD);
+        boolean moved = snapshot.dirty.contains(StateSection.POSITION);
 
-        // Health and hunger
-        state.addProperty("health", player.getHealth());
-        state.addProperty("max_health", player.getMaxHealth());
-        state.addProperty("hunger", player.getFoodData().getFoodLevel());
-        state.addProperty("saturation", player.getFoodData().getSaturationLevel());
+        for (StateSection section : snapshot.dirty) {
+            snapshot.capture(section, player, worldInfoCache);
+        }
+        snapshot.dirty.clear();
 
-        // Game mode
-        state.addProperty("gamemode", player.gameMode.getGameModeForPlayer().getName());
+        writeState(player.getUUID(), snapshot);
 
-        // Experience
-        state.addProperty("xp_level", player.experienceLevel);
-        state.addProperty("xp_progress", player.experienceProgress);
+        if (moved) {
+            recordTrail(player.getUUID(), snapshot);
+        }
+    }
 
-        // Inventory
-        state.add("inventory", serializeInventory(player.getInventory()));
+    /**
+     * Stop tracking a player (called on disconnect).
+     */
+    public void removePlayer(UUID playerUuid) {
+        snapshots.remove(playerUuid);
+        waypointStores.remove(playerUuid);
+        TrailEntry trail = trails.remove(playerUuid);
+        if (trail != null) {
+            saveTrail(playerUuid, trail);
+        }
+    }
 
-        // World info
-        state.add("world", serializeWorldInfo(player));
+    /**
+     * Get a player's waypoint store, loading it from disk on first use.
+     * Callable from any thread.
+     */
+    public WaypointStore getWaypoints(UUID playerUuid) {
+        return waypointStores.computeIfAbsent(playerUuid, k -> WaypointStore.load(getPlayerDir(k)));
+    }
 
-        // Nearby (placeholder - would need more complex logic)
-        JsonObject nearby = new JsonObject();
-        state.add("nearby", nearby);
+    /**
+     * Persist all in-memory data (called on server stop).
+     */
+    public void saveAll() {
+        for (var entry : trails.entrySet()) {
+            saveTrail(entry.getKey(), entry.getValue());
+        }
+    }
 
-        // Timestamp
-        state.addProperty("updated_at", java.time.Instant.now().toString());
+    /**
+     * Drop cached world info and biome lookups (called on server stop).
+     */
+    public void clearCaches() {
+        worldInfoCache.clear();
+    }
 
-        // Write state file atomically (write to temp, then rename)
-        // This prevents Claude from reading a partially-written file
-        Path stateFile = playerDir.resolve("state.json");
-        Path tempFile = playerDir.resolve("state.json.tmp");
+    /**
+     * Add the snapshot's position to the player's trail and refresh trail.json if it changed.
+     */
+    private void recordTrail(UUID playerUuid, PlayerStateSnapshot snapshot) throws IOException {
+        TrailEntry entry = trails.computeIfAbsent(playerUuid, this::loadTrail);
+        long now = System.currentTimeMillis();
+        if (!entry.trail.record(snapshot.x, snapshot.y, snapshot.z, snapshot.dimension, now)) {
+            return;
+        }
 
-        Files.writeString(tempFile, GSON.toJson(state),
-            StandardOpenOption.CREATE,
-            StandardOpenOption.TRUNCATE_EXISTING);
+        StateJsonWriter writer = StateJsonWriter.forCurrentThread(
+            !ClaudeCraftConfig.COMPACT_STATE_JSON.get());
+        entry.trail.write(writer, now);
+        writeAtomically(writer, getPlayerDir(playerUuid).resolve("trail.json"));
 
-        try {
-            Files.move(tempFile, stateFile,
-                StandardCopyOption.REPLACE_EXISTING,
-                StandardCopyOption.ATOMIC_MOVE);
-        } catch (AtomicMoveNotSupportedException e) {
-            // Fallback to non-atomic move (still better than direct write)
-            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING);
+        // Checkpoint periodically so a crash loses at most a few minutes of trail
+        if (++entry.unsavedSamples >= TRAIL_SAVE_EVERY) {
+            saveTrail(playerUuid, entry);
         }
     }
 
-    private JsonObject serializeInventory(Inventory inventory) {
-        JsonObject inv = new JsonObject();
-
-        // Hotbar (slots 0-8)
-        com.google.gson.JsonArray hotbar = new com.google.gson.JsonArray();
-        for (int i = 0; i < 9; i++) {
-            hotbar.add(serializeItemStack(inventory.getItem(i), i));
-        }
-        inv.add("hotbar", hotbar);
-
-        // Main inventory (slots 9-35)
-        com.google.gson.JsonArray main = new com.google.gson.JsonArray();
-        for (int i = 9; i < 36; i++) {
-            ItemStack stack = inventory.getItem(i);
-            if (!stack.isEmpty()) {
-                main.add(serializeItemStack(stack, i));
+    private TrailEntry loadTrail(UUID playerUuid) {
+        Path trailFile = getPlayerDir(playerUuid).resolve("trail.bin");
+        if (Files.exists(trailFile)) {
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(trailFile)))) {
+                return new TrailEntry(PositionTrail.load(in));
+            } catch (IOException e) {
+                ClaudeCraft.LOGGER.warn("Failed to load position trail for {}: {}",
+                    playerUuid, e.getMessage());
             }
         }
-        inv.add("main", main);
-
-        // Armor
-        JsonObject armor = new JsonObject();
-        armor.add("head", serializeItemStack(inventory.getArmor(3), -1));
-        armor.add("chest", serializeItemStack(inventory.getArmor(2), -1));
-        armor.add("legs", serializeItemStack(inventory.getArmor(1), -1));
-        armor.add("feet", serializeItemStack(inventory.getArmor(0), -1));
-        inv.add("armor", armor);
-
-        // Offhand
-        inv.add("offhand", serializeItemStack(inventory.offhand.get(0), -1));
-
-        // Selected slot
-        inv.addProperty("selected_slot", inventory.selected);
+        return new TrailEntry(new PositionTrail());
+    }
 
-        return inv;
+    private void saveTrail(UUID playerUuid, TrailEntry entry) {
+        Path trailFile = getPlayerDir(playerUuid).resolve("trail.bin");
+        Path tempFile = getPlayerDir(playerUuid).resolve("trail.bin.tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                entry.trail.save(out);
+            }
+            Files.move(tempFile, trailFile, StandardCopyOption.REPLACE_EXISTING);
+            entry.unsavedSamples = 0;
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.warn("Failed to save position trail for {}: {}",
+                playerUuid, e.getMessage());
+        }
     }
 
-    private JsonObject serializeItemStack(ItemStack stack, int slot) {
-        if (stack.isEmpty()) {
-            return null;
+    /**
+     * Detect changes that don't fire events by comparing against the snapshot.
+     */
+    private void probeForChanges(ServerPlayer player, PlayerStateSnapshot snapshot) {
+        double dx = player.getX() - snapshot.x;
+        double dy = player.getY() - snapshot.y;
+        double dz = player.getZ() - snapshot.z;
+        if (dx * dx + dy * dy + dz * dz >= MOVEMENT_THRESHOLD_SQ
+            || Math.abs(player.getYRot() - snapshot.yaw) >= ROTATION_THRESHOLD) {
+            snapshot.dirty.add(StateSection.POSITION);
         }
 
-        JsonObject item = new JsonObject();
-        if (slot >= 0) {
-            item.addProperty("slot", slot);
+        // Hunger drains via exhaustion, which has no event
+        if (player.getFoodData().getFoodLevel() != snapshot.food
+            || player.getFoodData().getSaturationLevel() != snapshot.saturation) {
+            snapshot.dirty.add(StateSection.VITALS);
         }
-        item.addProperty("item", stack.getItem().builtInRegistryHolder().key().location().toString());
-        item.addProperty("count", stack.getCount());
 
-        if (stack.isDamageableItem()) {
-            item.addProperty("durability", stack.getMaxDamage() - stack.getDamageValue());
-            item.addProperty("max_durability", stack.getMaxDamage());
+        // Hotbar scrolling doesn't change any slot contents
+        if (player.getInventory().selected != snapshot.selectedSlot) {
+            snapshot.dirty.add(StateSection.INVENTORY);
         }
 
-        return item;
+        // Time buckets line up with the phase boundaries in WorldInfoCache.getTimePhase()
+        if (player.level().getDayTime() / WORLD_TIME_BUCKET != snapshot.timeBucket
+            || player.level().isRaining() != snapshot.raining
+            || player.level().isThundering() != snapshot.thundering) {
+            snapshot.dirty.add(StateSection.WORLD);
+        }
     }
 
-    private JsonObject serializeWorldInfo(ServerPlayer player) {
-        JsonObject world = new JsonObject();
-
-        // Time
-        JsonObject time = new JsonObject();
-        long dayTime = player.level().getDayTime() % 24000;
-        time.addProperty("ticks", dayTime);
-        time.addProperty("day", player.level().getDayTime() / 24000);
-        time.addProperty("is_day", dayTime < 13000);
-        time.addProperty("phase", getTimePhase(dayTime));
-        world.add("time", time);
-
-        // Weather
-        JsonObject weather = new JsonObject();
-        weather.addProperty("clear", !player.level().isRaining() && !player.level().isThundering());
-        weather.addProperty("raining", player.level().isRaining());
-        weather.addProperty("thundering", player.level().isThundering());
-        world.add("weather", weather);
-
-        // World settings
-        world.addProperty("name", player.server.getWorldData().getLevelName());
-        world.addProperty("difficulty", player.server.getWorldData().getDifficulty().getKey());
-        world.addProperty("hardcore", player.server.getWorldData().isHardcore());
-
-        // Server info
-        JsonObject server = new JsonObject();
-        server.addProperty("player_count", player.server.getPlayerCount());
-        server.addProperty("max_players", player.server.getMaxPlayers());
-        world.add("server", server);
-
-        return world;
+    /**
+     * Stream the snapshot into the thread's reusable buffer and write state.json.
+     */
+    private void writeState(UUID playerUuid, PlayerStateSnapshot snapshot) throws IOException {
+        Path playerDir = getPlayerDir(playerUuid);
+        Files.createDirectories(playerDir);
+
+        StateJsonWriter writer = StateJsonWriter.forCurrentThread(
+            !ClaudeCraftConfig.COMPACT_STATE_JSON.get());
+        snapshot.write(writer, System.currentTimeMillis());
+
+        writeAtomically(writer, playerDir.resolve("state.json"));
     }
 
-    private String getTimePhase(long dayTime) {
-        if (dayTime < 1000) return "dawn";
-        if (dayTime < 6000) return "morning";
-        if (dayTime < 7000) return "noon";
-        if (dayTime < 11000) return "afternoon";
-        if (dayTime < 13000) return "dusk";
-        if (dayTime < 18000) return "night";
-        if (dayTime < 19000) return "midnight";
-        return "night";
+    /**
+     * Write an encoded document to a file atomically (write to temp, then rename).
+     * This prevents Claude from reading a partially-written file.
+     */
+    void writeAtomically(StateJsonWriter writer, Path target) throws IOException {
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tempFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            writer.writeTo(channel);
+        }
+
+        try {
+            Files.move(tempFile, target,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Fallback to non-atomic move (still better than direct write)
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     /**
@@ -339,4 +409,16 @@ public class PlayerDataManager {
     public Path getPlayerDir(UUID playerUuid) {
         return playersDir.resolve(playerUuid.toString());
     }
+
+    /**
+     * A player's position trail plus how many samples haven't been saved yet.
+     */
+    private static class TrailEntry {
+        final PositionTrail trail;
+        int unsavedSamples;
+
+        TrailEntry(PositionTrail trail) {
+            this.trail = trail;
+        }
+    }
 }
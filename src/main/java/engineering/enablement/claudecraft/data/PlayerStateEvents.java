@@ -0,0 +1,101 @@
+package engineering.enablement.claudecraft.data;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ContainerListener;
+import net.minecraft.world.item.ItemStack;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.entity.living.LivingDamageEvent;
+import net.neoforged.neoforge.event.entity.living.LivingEntityUseItemEvent;
+import net.neoforged.neoforge.event.entity.living.LivingHealEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerContainerEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerXpEvent;
+
+/**
+ * Marks sections of a player's state dirty in response to game events,
+ * so state.json is only rebuilt when something actually changed.
+ */
+@EventBusSubscriber(modid = ClaudeCraft.MOD_ID)
+public class PlayerStateEvents {
+
+    /**
+     * Start listening for inventory slot changes on a player's inventory menu.
+     * Must be called again after respawn, since the player entity is replaced.
+     */
+    public static void trackInventory(ServerPlayer player) {
+        player.inventoryMenu.addSlotListener(new ContainerListener() {
+            @Override
+            public void slotChanged(AbstractContainerMenu menu, int slot, ItemStack stack) {
+                mark(player, StateSection.INVENTORY);
+            }
+
+            @Override
+            public void dataChanged(AbstractContainerMenu menu, int index, int value) {
+                // Inventory menu has no data slots
+            }
+        });
+    }
+
+    @SubscribeEvent
+    public static void onRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            trackInventory(player);
+            mark(player, StateSection.values());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onDimensionChange(PlayerEvent.PlayerChangedDimensionEvent event) {
+        mark(event.getEntity(), StateSection.POSITION, StateSection.WORLD);
+    }
+
+    @SubscribeEvent
+    public static void onGameModeChange(PlayerEvent.PlayerChangeGameModeEvent event) {
+        mark(event.getEntity(), StateSection.GAMEMODE);
+    }
+
+    @SubscribeEvent
+    public static void onDamage(LivingDamageEvent.Post event) {
+        mark(event.getEntity(), StateSection.VITALS);
+    }
+
+    @SubscribeEvent
+    public static void onHeal(LivingHealEvent event) {
+        mark(event.getEntity(), StateSection.VITALS);
+    }
+
+    @SubscribeEvent
+    public static void onXpChange(PlayerXpEvent.XpChange event) {
+        mark(event.getEntity(), StateSection.EXPERIENCE);
+    }
+
+    @SubscribeEvent
+    public static void onLevelChange(PlayerXpEvent.LevelChange event) {
+        mark(event.getEntity(), StateSection.EXPERIENCE);
+    }
+
+    @SubscribeEvent
+    public static void onItemUseFinish(LivingEntityUseItemEvent.Finish event) {
+        // Eating/drinking changes both the held stack and hunger
+        mark(event.getEntity(), StateSection.INVENTORY, StateSection.VITALS);
+    }
+
+    @SubscribeEvent
+    public static void onContainerClose(PlayerContainerEvent.Close event) {
+        mark(event.getEntity(), StateSection.INVENTORY);
+    }
+
+    private static void mark(Entity entity, StateSection... sections) {
+        if (!(entity instanceof ServerPlayer player)) {
+            return;
+        }
+        PlayerDataManager dataManager = ClaudeCraft.getDataManager();
+        if (dataManager != null) {
+            dataManager.markDirty(player, sections);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package engineering.enablement.claudecraft.data;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.Level;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Mutable, primitive-only snapshot of a player's state, refreshed section by section.
+ * Only dirty sections are recaptured; {@link #write} streams the whole snapshot
+ * as state.json without building an intermediate JSON tree.
+ *
+ * Only touched from the server thread (events and ticks).
+ */
+class PlayerStateSnapshot {
+    // Slot layout: 0-8 hotbar, 9-35 main, 36-39 armor (feet..head), 40 offhand
+    private static final int SLOT_COUNT = 41;
+    private static final int ARMOR_START = 36;
+    private static final int OFFHAND_SLOT = 40;
+
+    final Set<StateSection> dirty = EnumSet.noneOf(StateSection.class);
+    long lastWriteMillis;  // When state.json was last written, for coalescing
+
+    // POSITION
+    double x, y, z;
+    float yaw, pitch;
+    String dimension;
+    private ResourceKey<Level> dimensionKey;
+    String biome;
+
+    // VITALS
+    float health, maxHealth;
+    int food;
+    float saturation;
+
+    // GAMEMODE
+    String gamemode;
+
+    // EXPERIENCE
+    int xpLevel;
+    float xpProgress;
+
+    // INVENTORY
+    private final Item[] items = new Item[SLOT_COUNT];
+    final String[] itemIds = new String[SLOT_COUNT];  // null = empty slot
+    final int[] counts = new int[SLOT_COUNT];
+    final int[] durability = new int[SLOT_COUNT];
+    final int[] maxDurability = new int[SLOT_COUNT];  // 0 = not damageable
+    int selectedSlot;
+
+    // WORLD (shared per dimension, see WorldInfoCache)
+    WorldInfoCache.WorldSnapshot world;
+    long timeBucket;
+    boolean raining, thundering;
+
+    /**
+     * Recapture one section from the live player.
+     */
+    void capture(StateSection section, ServerPlayer player, WorldInfoCache worldInfoCache) {
+        switch (section) {
+            case POSITION -> {
+                x = player.getX();
+                y = player.getY();
+                z = player.getZ();
+                yaw = player.getYRot();
+                pitch = player.getXRot();
+                if (dimensionKey != player.level().dimension()) {
+                    dimensionKey = player.level().dimension();
+                    dimension = dimensionKey.location().toString();
+                }
+                biome = worldInfoCache.getBiome(player.serverLevel(), player.blockPosition());
+            }
+            case VITALS -> {
+                health = player.getHealth();
+                maxHealth = player.getMaxHealth();
+                food = player.getFoodData().getFoodLevel();
+                saturation = player.getFoodData().getSaturationLevel();
+            }
+            case GAMEMODE -> gamemode = player.gameMode.getGameModeForPlayer().getName();
+            case EXPERIENCE -> {
+                xpLevel = player.experienceLevel;
+                xpProgress = player.experienceProgress;
+            }
+            case INVENTORY -> captureInventory(player.getInventory());
+            case WORLD -> {
+                world = worldInfoCache.getWorldInfo(player.serverLevel());
+                timeBucket = player.level().getDayTime() / PlayerDataManager.WORLD_TIME_BUCKET;
+                raining = player.level().isRaining();
+                thundering = player.level().isThundering();
+            }
+        }
+    }
+
+    private void captureInventory(Inventory inventory) {
+        for (int i = 0; i < ARMOR_START; i++) {
+            captureSlot(i, inventory.getItem(i));
+        }
+        for (int i = 0; i < 4; i++) {
+            captureSlot(ARMOR_START + i, inventory.getArmor(i));
+        }
+        captureSlot(OFFHAND_SLOT, inventory.offhand.get(0));
+        selectedSlot = inventory.selected;
+    }
+
+    private void captureSlot(int slot, ItemStack stack) {
+        if (stack.isEmpty()) {
+            itemIds[slot] = null;
+            return;
+        }
+        // Only format the registry ID when the item type in the slot changes
+        if (items[slot] != stack.getItem() || itemIds[slot] == null) {
+            items[slot] = stack.getItem();
+            itemIds[slot] = stack.getItem().builtInRegistryHolder().key().location().toString();
+        }
+        counts[slot] = stack.getCount();
+        if (stack.isDamageableItem()) {
+            durability[slot] = stack.getMaxDamage() - stack.getDamageValue();
+            maxDurability[slot] = stack.getMaxDamage();
+        } else {
+            maxDurability[slot] = 0;
+        }
+    }
+
+    /**
+     * Stream the snapshot in the state.json layout read by the mc-get-* skills.
+     * Position keeps full precision, as before; rotation, health, saturation and xp
+     * progress are rounded (1-3 places), which is all the skills display.
+     */
+    void write(StateJsonWriter out, long updatedAtMillis) {
+        out.beginObject();
+
+        // Position
+        out.name("position").beginObject()
+            .name("x").value(x)
+            .name("y").value(y)
+            .name("z").value(z)
+            .endObject();
+
+        // Dimension
+        out.name("dimension").value(dimension);
+
+        // Rotation
+        out.name("rotation").beginObject()
+            .name("yaw").value(yaw, 1)
+            .name("pitch").value(pitch, 1)
+            .endObject();
+
+        // Biome
+        out.name("biome").value(biome);
+
+        // Health and hunger
+        out.name("health").value(health, 2);
+        out.name("max_health").value(maxHealth, 2);
+        out.name("hunger").value(food);
+        out.name("saturation").value(saturation, 2);
+
+        // Game mode
+        out.name("gamemode").value(gamemode);
+
+        // Experience
+        out.name("xp_level").value(xpLevel);
+        out.name("xp_progress").value(xpProgress, 3);
+
+        // Inventory
+        writeInventory(out);
+
+        // World info
+        out.name("world");
+        world.write(out);
+
+        // Nearby (placeholder - would need more complex logic)
+        out.name("nearby").beginObject().endObject();
+
+        // Timestamp
+        out.name("updated_at").instantValue(updatedAtMillis);
+
+        out.endObject();
+    }
+
+    private void writeInventory(StateJsonWriter out) {
+        out.name("inventory").beginObject();
+
+        // Hotbar (slots 0-8), empty slots as null
+        out.name("hotbar").beginArray();
+        for (int i = 0; i < 9; i++) {
+            writeSlot(out, i, true);
+        }
+        out.endArray();
+
+        // Main inventory (slots 9-35), empty slots omitted
+        out.name("main").beginArray();
+        for (int i = 9; i < ARMOR_START; i++) {
+            if (itemIds[i] != null) {
+                writeSlot(out, i, true);
+            }
+        }
+        out.endArray();
+
+        // Armor, empty slots omitted
+        out.name("armor").beginObject();
+        writeNamedSlot(out, "head", ARMOR_START + 3);
+        writeNamedSlot(out, "chest", ARMOR_START + 2);
+        writeNamedSlot(out, "legs", ARMOR_START + 1);
+        writeNamedSlot(out, "feet", ARMOR_START);
+        out.endObject();
+
+        // Offhand
+        writeNamedSlot(out, "offhand", OFFHAND_SLOT);
+
+        // Selected slot
+        out.name("selected_slot").value(selectedSlot);
+
+        out.endObject();
+    }
+
+    private void writeNamedSlot(StateJsonWriter out, String name, int slot) {
+        if (itemIds[slot] != null) {
+            out.name(name);
+            writeSlot(out, slot, false);
+        }
+    }
+
+    private void writeSlot(StateJsonWriter out, int slot, boolean includeSlotIndex) {
+        if (itemIds[slot] == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        if (includeSlotIndex) {
+            out.name("slot").value(slot);
+        }
+        out.name("item").value(itemIds[slot]);
+        out.name("count").value(counts[slot]);
+        if (maxDurability[slot] > 0) {
+            out.name("durability").value(durability[slot]);
+            out.name("max_durability").value(maxDurability[slot]);
+        }
+        out.endObject();
+    }
+}
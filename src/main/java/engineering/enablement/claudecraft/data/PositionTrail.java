@@ -0,0 +1,223 @@
+package engineering.enablement.claudecraft.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Downsampled history of where a player has been, for "how do I get back" questions.
+ *
+ * Samples are kept in fixed-size primitive ring buffers arranged in tiers of
+ * decreasing resolution. New samples go into the first tier; when a tier is full its
+ * oldest sample is promoted to the next tier only if it is far enough in time from
+ * that tier's newest sample, so recent history stays detailed and older history is
+ * progressively thinned. Memory use is fixed regardless of how long a player plays.
+ *
+ * Only touched from the server thread.
+ */
+public class PositionTrail {
+    private static final int FORMAT_VERSION = 1;
+
+    // Minimum spacing for a new sample in the first tier
+    private static final long MIN_SAMPLE_INTERVAL_MS = 2_000;
+    private static final double MIN_SAMPLE_DISTANCE_SQ = 8.0 * 8.0;
+
+    // Tier capacities and minimum spacing between samples in each tier
+    private static final int[] TIER_CAPACITY = {120, 120, 120};
+    private static final long[] TIER_SPACING_MS = {0, 60_000, 600_000};
+
+    private final Tier[] tiers = new Tier[TIER_CAPACITY.length];
+    private final List<String> dimensions = new ArrayList<>();
+
+    public PositionTrail() {
+        for (int i = 0; i < tiers.length; i++) {
+            tiers[i] = new Tier(TIER_CAPACITY[i]);
+        }
+    }
+
+    /**
+     * Record a position if it is far enough (in time or space) from the last sample,
+     * or if the player changed dimension.
+     *
+     * @return true if a sample was added
+     */
+    public boolean record(double x, double y, double z, String dimension, long timeMillis) {
+        int dim = dimensionIndex(dimension);
+        Tier recent = tiers[0];
+
+        if (recent.size > 0) {
+            int last = recent.newest();
+            double dx = x - recent.xs[last];
+            double dy = y - recent.ys[last];
+            double dz = z - recent.zs[last];
+            boolean sameDimension = recent.dims[last] == dim;
+            if (sameDimension && (timeMillis - recent.times[last] < MIN_SAMPLE_INTERVAL_MS
+                || dx * dx + dy * dy + dz * dz < MIN_SAMPLE_DISTANCE_SQ)) {
+                return false;
+            }
+        }
+
+        push(0, x, y, z, dim, timeMillis);
+        return true;
+    }
+
+    /**
+     * Total number of samples across all tiers.
+     */
+    public int size() {
+        int total = 0;
+        for (Tier tier : tiers) {
+            total += tier.size;
+        }
+        return total;
+    }
+
+    private void push(int tierIndex, double x, double y, double z, int dim, long time) {
+        Tier tier = tiers[tierIndex];
+
+        if (tier.size > 0 && time - tier.times[tier.newest()] < TIER_SPACING_MS[tierIndex]) {
+            return;  // Too close to this tier's newest sample; thinned out
+        }
+
+        if (tier.size == tier.capacity) {
+            // Evict the oldest sample, promoting it to the next (coarser) tier
+            int oldest = tier.head;
+            if (tierIndex + 1 < tiers.length) {
+                push(tierIndex + 1, tier.xs[oldest], tier.ys[oldest], tier.zs[oldest],
+                    tier.dims[oldest], tier.times[oldest]);
+            }
+            tier.head = (tier.head + 1) % tier.capacity;
+            tier.size--;
+        }
+
+        int slot = (tier.head + tier.size) % tier.capacity;
+        tier.xs[slot] = x;
+        tier.ys[slot] = y;
+        tier.zs[slot] = z;
+        tier.dims[slot] = dim;
+        tier.times[slot] = time;
+        tier.size++;
+    }
+
+    private int dimensionIndex(String dimension) {
+        int index = dimensions.indexOf(dimension);
+        if (index < 0) {
+            dimensions.add(dimension);
+            index = dimensions.size() - 1;
+        }
+        return index;
+    }
+
+    /**
+     * Stream the trail as trail.json, newest sample first.
+     */
+    public void write(StateJsonWriter out, long nowMillis) {
+        out.beginObject();
+        out.name("sample_count").value(size());
+        out.name("points").beginArray();
+
+        for (Tier tier : tiers) {
+            for (int i = tier.size - 1; i >= 0; i--) {
+                int slot = (tier.head + i) % tier.capacity;
+                out.beginObject()
+                    .name("dimension").value(dimensions.get(tier.dims[slot]))
+                    .name("x").value(tier.xs[slot], 1)
+                    .name("y").value(tier.ys[slot], 1)
+                    .name("z").value(tier.zs[slot], 1)
+                    .name("time").instantValue(tier.times[slot])
+                    .name("seconds_ago").value((nowMillis - tier.times[slot]) / 1000)
+                    .endObject();
+            }
+        }
+
+        out.endArray();
+        out.name("updated_at").instantValue(nowMillis);
+        out.endObject();
+    }
+
+    /**
+     * Save the trail in a compact binary form (about 36 bytes per sample).
+     */
+    public void save(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+
+        out.writeShort(dimensions.size());
+        for (String dimension : dimensions) {
+            out.writeUTF(dimension);
+        }
+
+        out.writeByte(tiers.length);
+        for (Tier tier : tiers) {
+            out.writeShort(tier.size);
+            for (int i = 0; i < tier.size; i++) {
+                int slot = (tier.head + i) % tier.capacity;
+                out.writeDouble(tier.xs[slot]);
+                out.writeDouble(tier.ys[slot]);
+                out.writeDouble(tier.zs[slot]);
+                out.writeLong(tier.times[slot]);
+                out.writeShort(tier.dims[slot]);
+            }
+        }
+    }
+
+    /**
+     * Load a trail saved by {@link #save}. Samples beyond the current tier
+     * capacities are thinned the same way as live samples.
+     */
+    public static PositionTrail load(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported trail format version " + version);
+        }
+
+        PositionTrail trail = new PositionTrail();
+        int dimensionCount = in.readUnsignedShort();
+        for (int i = 0; i < dimensionCount; i++) {
+            trail.dimensions.add(in.readUTF());
+        }
+
+        int tierCount = in.readUnsignedByte();
+        for (int t = 0; t < tierCount; t++) {
+            int count = in.readUnsignedShort();
+            int target = Math.min(t, trail.tiers.length - 1);
+            for (int i = 0; i < count; i++) {
+                double x = in.readDouble();
+                double y = in.readDouble();
+                double z = in.readDouble();
+                long time = in.readLong();
+                int dim = in.readUnsignedShort();
+                if (dim < dimensionCount) {
+                    trail.push(target, x, y, z, dim, time);
+                }
+            }
+        }
+        return trail;
+    }
+
+    /**
+     * A fixed-capacity ring buffer of samples stored in parallel primitive arrays.
+     */
+    private static class Tier {
+        final int capacity;
+        final double[] xs, ys, zs;
+        final long[] times;
+        final int[] dims;
+        int head;  // Index of the oldest sample
+        int size;
+
+        Tier(int capacity) {
+            this.capacity = capacity;
+            this.xs = new double[capacity];
+            this.ys = new double[capacity];
+            this.zs = new double[capacity];
+            this.times = new long[capacity];
+            this.dims = new int[capacity];
+        }
+
+        int newest() {
+            return (head + size - 1) % capacity;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package engineering.enablement.claudecraft.data;
+
+/**
+ * Independently refreshable parts of a player's state.json.
+ * Events mark sections dirty; only dirty sections are recomputed on the next flush.
+ */
+public enum StateSection {
+    POSITION,    // position, dimension, rotation, biome
+    VITALS,      // health, max health, hunger, saturation
+    GAMEMODE,
+    EXPERIENCE,
+    INVENTORY,
+    WORLD        // time, weather, world settings, server info
+}
@@ -0,0 +1,24 @@
+package engineering.enablement.claudecraft.data;
+
+/**
+ * A named location saved by a player (base, portal, village, ...).
+ */
+public record Waypoint(
+    String name,
+    String dimension,
+    double x,
+    double y,
+    double z,
+    String note,
+    long createdAt
+) {
+    /**
+     * Squared 3D distance to a point.
+     */
+    public double distanceSq(double px, double py, double pz) {
+        double dx = x - px;
+        double dy = y - py;
+        double dz = z - pz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
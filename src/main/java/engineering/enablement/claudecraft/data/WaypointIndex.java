@@ -0,0 +1,200 @@
+package engineering.enablement.claudecraft.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Uniform grid spatial index over waypoints, one grid per dimension.
+ * Cells are square columns on the X/Z plane; distances are full 3D.
+ *
+ * Not thread-safe; owned by a {@link WaypointStore}.
+ */
+class WaypointIndex {
+    private static final int CELL_SIZE = 128;  // Blocks per cell edge
+
+    private final Map<String, DimensionGrid> grids = new HashMap<>();
+
+    void add(Waypoint waypoint) {
+        grids.computeIfAbsent(waypoint.dimension(), k -> new DimensionGrid()).add(waypoint);
+    }
+
+    void remove(Waypoint waypoint) {
+        DimensionGrid grid = grids.get(waypoint.dimension());
+        if (grid != null) {
+            grid.remove(waypoint);
+        }
+    }
+
+    /**
+     * Find up to n waypoints closest to a point, nearest first.
+     * Searches rings of cells outward and stops once no closer waypoint can exist,
+     * or scans the occupied cells once a ring would cover more cells than they are.
+     */
+    List<Waypoint> nearest(String dimension, double x, double y, double z, int n) {
+        DimensionGrid grid = grids.get(dimension);
+        if (grid == null || grid.size == 0 || n <= 0) {
+            return List.of();
+        }
+
+        // Max-heap of the best n candidates by distance
+        PriorityQueue<Waypoint> best = new PriorityQueue<>(
+            Comparator.comparingDouble((Waypoint w) -> w.distanceSq(x, y, z)).reversed());
+
+        int cx = cell(x);
+        int cz = cell(z);
+        int maxRing = grid.maxRingFrom(cx, cz);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Closest any point in this ring can be (horizontal distance is a lower bound)
+            if (best.size() == n && ring > 0) {
+                double ringMin = (ring - 1) * (double) CELL_SIZE;
+                if (ringMin * ringMin > best.peek().distanceSq(x, y, z)) {
+                    break;
+                }
+            }
+
+            long side = 2L * ring + 1;
+            if (side * side > grid.cells.size()) {
+                // Sparse grid: scan the occupied cells not visited in earlier rings
+                for (Map.Entry<Long, List<Waypoint>> entry : grid.cells.entrySet()) {
+                    long key = entry.getKey();
+                    int ringOf = Math.max(Math.abs((int) (key >> 32) - cx), Math.abs((int) key - cz));
+                    if (ringOf >= ring) {
+                        offer(best, entry.getValue(), x, y, z, n);
+                    }
+                }
+                break;
+            }
+
+            // Only the ring's perimeter; interior cells were visited in earlier rings
+            for (int d = -ring; d <= ring; d++) {
+                offer(best, grid.cells.get(key(cx + d, cz - ring)), x, y, z, n);
+                if (ring > 0) {
+                    offer(best, grid.cells.get(key(cx + d, cz + ring)), x, y, z, n);
+                }
+                if (d > -ring && d < ring) {
+                    offer(best, grid.cells.get(key(cx - ring, cz + d)), x, y, z, n);
+                    offer(best, grid.cells.get(key(cx + ring, cz + d)), x, y, z, n);
+                }
+            }
+        }
+
+        List<Waypoint> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(w -> w.distanceSq(x, y, z)));
+        return result;
+    }
+
+    /**
+     * Find all waypoints within a radius of a point, nearest first.
+     */
+    List<Waypoint> within(String dimension, double x, double y, double z, double radius) {
+        DimensionGrid grid = grids.get(dimension);
+        if (grid == null || grid.size == 0 || radius < 0) {
+            return List.of();
+        }
+
+        double radiusSq = radius * radius;
+        List<Waypoint> result = new ArrayList<>();
+
+        int minX = cell(x - radius), maxX = cell(x + radius);
+        int minZ = cell(z - radius), maxZ = cell(z + radius);
+        long cellCount = (long) (maxX - minX + 1) * (maxZ - minZ + 1);
+
+        if (cellCount > grid.cells.size()) {
+            // Huge radius: scanning occupied cells is cheaper than visiting empty ones
+            for (List<Waypoint> cell : grid.cells.values()) {
+                collectWithin(cell, x, y, z, radiusSq, result);
+            }
+        } else {
+            for (int gx = minX; gx <= maxX; gx++) {
+                for (int gz = minZ; gz <= maxZ; gz++) {
+                    List<Waypoint> cell = grid.cells.get(key(gx, gz));
+                    if (cell != null) {
+                        collectWithin(cell, x, y, z, radiusSq, result);
+                    }
+                }
+            }
+        }
+
+        result.sort(Comparator.comparingDouble(w -> w.distanceSq(x, y, z)));
+        return result;
+    }
+
+    private static void offer(PriorityQueue<Waypoint> best, List<Waypoint> cell,
+                              double x, double y, double z, int n) {
+        if (cell == null) {
+            return;
+        }
+        for (Waypoint w : cell) {
+            if (best.size() < n) {
+                best.add(w);
+            } else if (w.distanceSq(x, y, z) < best.peek().distanceSq(x, y, z)) {
+                best.poll();
+                best.add(w);
+            }
+        }
+    }
+
+    private static void collectWithin(List<Waypoint> cell, double x, double y, double z,
+                                      double radiusSq, List<Waypoint> result) {
+        for (Waypoint w : cell) {
+            if (w.distanceSq(x, y, z) <= radiusSq) {
+                result.add(w);
+            }
+        }
+    }
+
+    private static int cell(double coord) {
+        return Math.floorDiv((int) Math.floor(coord), CELL_SIZE);
+    }
+
+    private static long key(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Occupied cells of one dimension plus the bounds needed to end ring searches.
+     */
+    private static class DimensionGrid {
+        final Map<Long, List<Waypoint>> cells = new HashMap<>();
+        int size;
+        int minCx = Integer.MAX_VALUE, maxCx = Integer.MIN_VALUE;
+        int minCz = Integer.MAX_VALUE, maxCz = Integer.MIN_VALUE;
+
+        void add(Waypoint w) {
+            int cx = cell(w.x());
+            int cz = cell(w.z());
+            cells.computeIfAbsent(key(cx, cz), k -> new ArrayList<>(2)).add(w);
+            size++;
+            minCx = Math.min(minCx, cx);
+            maxCx = Math.max(maxCx, cx);
+            minCz = Math.min(minCz, cz);
+            maxCz = Math.max(maxCz, cz);
+        }
+
+        void remove(Waypoint w) {
+            long key = key(cell(w.x()), cell(w.z()));
+            List<Waypoint> cell = cells.get(key);
+            if (cell != null && cell.remove(w)) {
+                size--;
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+                // Bounds are left as-is; they only need to be a superset
+            }
+        }
+
+        /**
+         * Ring index beyond which there are no occupied cells.
+         */
+        int maxRingFrom(int cx, int cz) {
+            return Math.max(
+                Math.max(Math.abs(cx - minCx), Math.abs(maxCx - cx)),
+                Math.max(Math.abs(cz - minCz), Math.abs(maxCz - cz)));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package engineering.enablement.claudecraft.data;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A player's saved locations, backed by waypoints.json and mirrored into
+ * notes/waypoints.md so Claude's regular note reading still sees them.
+ *
+ * All writes go through {@link #put} and {@link #remove}, which keep the spatial
+ * index, the JSON store and the generated note in sync. Thread-safe.
+ */
+public class WaypointStore {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int MAX_WAYPOINTS = 1000;
+
+    private final Path storeFile;
+    private final Path noteFile;
+    private final Map<String, Waypoint> byName = new LinkedHashMap<>();  // Lowercased name -> waypoint
+    private final WaypointIndex index = new WaypointIndex();
+
+    private WaypointStore(Path playerDir) {
+        this.storeFile = playerDir.resolve("waypoints.json");
+        this.noteFile = playerDir.resolve("notes").resolve("waypoints.md");
+    }
+
+    /**
+     * Load a player's waypoints from disk (empty if none saved yet).
+     */
+    public static WaypointStore load(Path playerDir) {
+        WaypointStore store = new WaypointStore(playerDir);
+        if (Files.exists(store.storeFile)) {
+            try {
+                List<Waypoint> saved = GSON.fromJson(Files.readString(store.storeFile),
+                    new TypeToken<List<Waypoint>>(){}.getType());
+                if (saved != null) {
+                    for (Waypoint w : saved) {
+                        if (w != null && w.name() != null && w.dimension() != null) {
+                            store.byName.put(key(w.name()), w);
+                            store.index.add(w);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                ClaudeCraft.LOGGER.warn("Failed to load waypoints from {}: {}",
+                    store.storeFile, e.getMessage());
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Add a waypoint, replacing any existing one with the same name (case-insensitive).
+     */
+    public synchronized void put(Waypoint waypoint) throws IOException {
+        String key = key(waypoint.name());
+        if (!byName.containsKey(key) && byName.size() >= MAX_WAYPOINTS) {
+            throw new IOException("Too many waypoints (max " + MAX_WAYPOINTS + ")");
+        }
+
+        Waypoint previous = byName.put(key, waypoint);
+        if (previous != null) {
+            index.remove(previous);
+        }
+        index.add(waypoint);
+        save();
+    }
+
+    /**
+     * Remove a waypoint by name.
+     *
+     * @return the removed waypoint, or null if there was none
+     */
+    public synchronized Waypoint remove(String name) throws IOException {
+        Waypoint removed = byName.remove(key(name));
+        if (removed != null) {
+            index.remove(removed);
+            save();
+        }
+        return removed;
+    }
+
+    public synchronized Waypoint get(String name) {
+        return byName.get(key(name));
+    }
+
+    public synchronized List<Waypoint> all() {
+        return new ArrayList<>(byName.values());
+    }
+
+    /**
+     * Up to n waypoints in a dimension, nearest to the given point first.
+     */
+    public synchronized List<Waypoint> nearest(String dimension, double x, double y, double z, int n) {
+        return index.nearest(dimension, x, y, z, n);
+    }
+
+    /**
+     * All waypoints in a dimension within a radius of the given point, nearest first.
+     */
+    public synchronized List<Waypoint> within(String dimension, double x, double y, double z, double radius) {
+        return index.within(dimension, x, y, z, radius);
+    }
+
+    private void save() throws IOException {
+        Files.createDirectories(noteFile.getParent());
+        Files.writeString(storeFile, GSON.toJson(new ArrayList<>(byName.values())));
+        Files.writeString(noteFile, renderNote());
+    }
+
+    /**
+     * Render the human-readable note, grouped by dimension.
+     */
+    private String renderNote() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Waypoints\n\n");
+        sb.append("_Generated from waypoints.json. Use `bin/mc-waypoints.sh` to change waypoints; ");
+        sb.append("edits to this file are overwritten._\n");
+
+        Map<String, List<Waypoint>> byDimension = new LinkedHashMap<>();
+        for (Waypoint w : byName.values()) {
+            byDimension.computeIfAbsent(w.dimension(), k -> new ArrayList<>()).add(w);
+        }
+
+        for (var entry : byDimension.entrySet()) {
+            sb.append("\n## ").append(entry.getKey()).append("\n\n");
+            entry.getValue().sort(Comparator.comparing(w -> w.name().toLowerCase(Locale.ROOT)));
+            for (Waypoint w : entry.getValue()) {
+                sb.append(String.format(Locale.ROOT, "- **%s**: %d, %d, %d",
+                    w.name(), (long) Math.floor(w.x()), (long) Math.floor(w.y()), (long) Math.floor(w.z())));
+                if (w.note() != null && !w.note().isBlank()) {
+                    sb.append(" - ").append(w.note().replace("\n", " "));
+                }
+                sb.append("\n");
+            }
+        }
+
+        if (byDimension.isEmpty()) {
+            sb.append("\nNo waypoints saved yet.\n");
+        }
+        return sb.toString();
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,149 @@
+package engineering.enablement.claudecraft.data;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-dimension cache of world info shared by every player in that dimension.
+ * World info is captured at most once per level per tick, and biome lookups are
+ * cached by quart position (the resolution biomes are stored at).
+ *
+ * Only used from the server thread.
+ */
+public class WorldInfoCache {
+    private static final int MAX_BIOME_ENTRIES = 4096;  // Per level
+
+    private final Map<ResourceKey<Level>, LevelEntry> levels = new HashMap<>();
+
+    /**
+     * Get the world info for a level, refreshing it if this is the first request this tick.
+     * The returned snapshot is shared and updated in place.
+     */
+    public WorldSnapshot getWorldInfo(ServerLevel level) {
+        LevelEntry entry = levels.computeIfAbsent(level.dimension(), k -> new LevelEntry());
+        int tick = level.getServer().getTickCount();
+        if (entry.worldTick != tick || !entry.world.captured) {
+            entry.world.capture(level);
+            entry.worldTick = tick;
+        }
+        return entry.world;
+    }
+
+    /**
+     * Get the biome ID at a position, reusing earlier lookups in the same 4x4x4 cell.
+     */
+    public String getBiome(ServerLevel level, BlockPos pos) {
+        LevelEntry entry = levels.computeIfAbsent(level.dimension(), k -> new LevelEntry());
+        long key = BlockPos.asLong(pos.getX() >> 2, pos.getY() >> 2, pos.getZ() >> 2);
+
+        String biome = entry.biomes.get(key);
+        if (biome == null) {
+            biome = level.getBiome(pos)
+                .unwrapKey().map(k -> k.location().toString()).orElse("unknown");
+            entry.biomes.put(key, biome);
+        }
+        return biome;
+    }
+
+    /**
+     * Drop all cached data (e.g. on server stop).
+     */
+    public void clear() {
+        levels.clear();
+    }
+
+    static String getTimePhase(long dayTime) {
+        if (dayTime < 1000) return "dawn";
+        if (dayTime < 6000) return "morning";
+        if (dayTime < 7000) return "noon";
+        if (dayTime < 11000) return "afternoon";
+        if (dayTime < 13000) return "dusk";
+        if (dayTime < 18000) return "night";
+        if (dayTime < 19000) return "midnight";
+        return "night";
+    }
+
+    /**
+     * World info for one dimension, captured as primitives.
+     */
+    public static class WorldSnapshot {
+        private boolean captured;
+        private long dayTime;
+        private boolean raining, thundering;
+        private String levelName;
+        private String difficulty;
+        private boolean hardcore;
+        private int playerCount, maxPlayers;
+
+        private void capture(ServerLevel level) {
+            MinecraftServer server = level.getServer();
+            dayTime = level.getDayTime();
+            raining = level.isRaining();
+            thundering = level.isThundering();
+            levelName = server.getWorldData().getLevelName();
+            difficulty = server.getWorldData().getDifficulty().getKey();
+            hardcore = server.getWorldData().isHardcore();
+            playerCount = server.getPlayerCount();
+            maxPlayers = server.getMaxPlayers();
+            captured = true;
+        }
+
+        /**
+         * Stream this snapshot as the "world" object of state.json.
+         */
+        void write(StateJsonWriter out) {
+            out.beginObject();
+
+            // Time
+            long ticks = dayTime % 24000;
+            out.name("time").beginObject()
+                .name("ticks").value(ticks)
+                .name("day").value(dayTime / 24000)
+                .name("is_day").value(ticks < 13000)
+                .name("phase").value(getTimePhase(ticks))
+                .endObject();
+
+            // Weather
+            out.name("weather").beginObject()
+                .name("clear").value(!raining && !thundering)
+                .name("raining").value(raining)
+                .name("thundering").value(thundering)
+                .endObject();
+
+            // World settings
+            out.name("name").value(levelName);
+            out.name("difficulty").value(difficulty);
+            out.name("hardcore").value(hardcore);
+
+            // Server info
+            out.name("server").beginObject()
+                .name("player_count").value(playerCount)
+                .name("max_players").value(maxPlayers)
+                .endObject();
+
+            out.endObject();
+        }
+    }
+
+    /**
+     * Cached data for a single dimension.
+     */
+    private static class LevelEntry {
+        final WorldSnapshot world = new WorldSnapshot();
+        int worldTick;
+
+        final Map<Long, String> biomes = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > MAX_BIOME_ENTRIES;
+            }
+        };
+    }
+}
@@ -0,0 +1,223 @@
+package engineering.enablement.claudecraft.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stand-in for the claude executable that replays recorded transcripts, so the
+ * mod can be load-tested (e.g. 100 simulated players) without API usage.
+ *
+ * Point backend.cliCommand at it:
+ * <pre>
+ * java -cp claudecraft.jar engineering.enablement.claudecraft.loadtest.FakeClaudeCli --fake-transcripts=/path/to/transcripts
+ * </pre>
+ * Options start with "--fake-" and must come before the arguments the mod appends;
+ * the usual claude flags (-p, --input-format, --resume, ...) are accepted and mostly
+ * ignored. Without transcripts a synthetic answer is streamed.
+ *
+ * <ul>
+ *   <li>--fake-transcripts=DIR: *.transcript files written by {@link TranscriptRecorder}</li>
+ *   <li>--fake-tokens-per-second=N: text streaming rate; 0 replays recorded timing (default 60)</li>
+ *   <li>--fake-startup-ms=N: delay before any output, like CLI startup (default 1500)</li>
+ *   <li>--fake-jitter=F: every delay is scaled by a random factor in 1 &plusmn; F (default 0.2)</li>
+ *   <li>--fake-failure-rate=F: chance of exiting with code 1 part-way through (default 0)</li>
+ *   <li>--fake-hang-rate=F: chance of stalling without output until killed (default 0)</li>
+ *   <li>--fake-seed=N: random seed, for reproducible runs</li>
+ * </ul>
+ *
+ * Self-contained (JDK only) so it runs from the mod jar without Minecraft or Gson.
+ */
+public class FakeClaudeCli {
+    private static final Pattern SESSION_ID = Pattern.compile("\"session_id\"\\s*:\\s*\"[^\"]*\"");
+    private static final Pattern TEXT_VALUE = Pattern.compile("\"text\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final Map<String, String> options;
+    private final Random random;
+    private final PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+
+    private FakeClaudeCli(Map<String, String> options) {
+        this.options = options;
+        this.random = options.containsKey("seed") ? new Random(Long.parseLong(options.get("seed"))) : new Random();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        String prompt = null;
+        String sessionId = null;
+        boolean streamInput = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--fake-")) {
+                int eq = arg.indexOf('=');
+                options.put(eq < 0 ? arg.substring(7) : arg.substring(7, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+            } else if (arg.equals("-p") && i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                prompt = args[++i];
+            } else if (arg.equals("--input-format") && i + 1 < args.length) {
+                streamInput = "stream-json".equals(args[++i]);
+            } else if (arg.equals("--resume") && i + 1 < args.length) {
+                sessionId = args[++i];
+            }
+        }
+
+        System.exit(new FakeClaudeCli(options).run(prompt, streamInput,
+            sessionId != null ? sessionId : UUID.randomUUID().toString()));
+    }
+
+    private int run(String prompt, boolean streamInput, String sessionId) throws Exception {
+        sleep(doubleOption("startup-ms", 1500));
+
+        // A pre-spawned process waits here until the mod writes the prompt
+        if (streamInput) {
+            prompt = readStreamInput();
+        }
+
+        List<Line> transcript = pickTranscript();
+        if (transcript == null) {
+            transcript = synthetic(prompt != null ? prompt : "");
+        }
+
+        double roll = random.nextDouble();
+        double failureRate = doubleOption("failure-rate", 0);
+        double hangRate = doubleOption("hang-rate", 0);
+        int cutoff = roll < failureRate + hangRate ? random.nextInt(transcript.size()) : -1;
+
+        double tokensPerSecond = doubleOption("tokens-per-second", 60);
+        long previousT = 0;
+        for (int i = 0; i < transcript.size(); i++) {
+            if (i == cutoff) {
+                if (roll < failureRate) {
+                    System.err.println("Fake CLI: injected failure after " + i + " lines");
+                    return 1;
+                }
+                Thread.sleep(Long.MAX_VALUE);
+            }
+
+            Line line = transcript.get(i);
+            int textChars = textLength(line.json);
+            if (textChars > 0 && tokensPerSecond > 0) {
+                sleep(Math.max(1, textChars / CHARS_PER_TOKEN) * 1000.0 / tokensPerSecond);
+            } else {
+                sleep(Math.max(0, line.t - previousT));  // Tool calls and recorded pauses keep their timing
+            }
+            previousT = line.t;
+
+            out.println(SESSION_ID.matcher(line.json).replaceAll("\"session_id\":\"" + sessionId + "\""));
+        }
+        return 0;
+    }
+
+    /**
+     * Read stream-json user messages from stdin until the mod closes it, returning their text.
+     */
+    private static String readStreamInput() throws IOException {
+        StringBuilder prompt = new StringBuilder();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            Matcher m = TEXT_VALUE.matcher(line);
+            while (m.find()) {
+                prompt.append(m.group(1));
+            }
+        }
+        return prompt.toString();
+    }
+
+    private List<Line> pickTranscript() throws IOException {
+        String dir = options.get("transcripts");
+        if (dir == null) {
+            return null;
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(Path.of(dir))) {
+            files = list.filter(p -> p.toString().endsWith(".transcript")).sorted().toList();
+        }
+        if (files.isEmpty()) {
+            System.err.println("Fake CLI: no transcripts in " + dir + ", using a synthetic answer");
+            return null;
+        }
+
+        List<Line> lines = new ArrayList<>();
+        for (String raw : Files.readAllLines(files.get(random.nextInt(files.size())), StandardCharsets.UTF_8)) {
+            int tab = raw.indexOf('\t');
+            if (raw.startsWith("#") || tab < 0) {
+                continue;
+            }
+            lines.add(new Line(Long.parseLong(raw.substring(0, tab)), raw.substring(tab + 1)));
+        }
+        return lines;
+    }
+
+    /**
+     * A plausible run without tools: init, streamed text deltas and a result.
+     */
+    private static List<Line> synthetic(String prompt) {
+        String answer = "This is a simulated answer from the fake Claude CLI. You asked: \""
+            + (prompt.length() > 80 ? prompt.substring(0, 80) + "..." : prompt) + "\". "
+            + "In a real run Claude would read your game state, think about the question and reply "
+            + "with a few short paragraphs of advice, which is roughly what this text stands in for.";
+
+        List<Line> lines = new ArrayList<>();
+        lines.add(new Line(0, "{\"type\":\"system\",\"subtype\":\"init\",\"session_id\":\"\"}"));
+        String[] words = answer.split("(?<= )");
+        for (int i = 0; i < words.length; i += 3) {
+            StringBuilder chunk = new StringBuilder();
+            for (int j = i; j < Math.min(i + 3, words.length); j++) {
+                chunk.append(words[j]);
+            }
+            lines.add(new Line(0, "{\"type\":\"content_block_delta\",\"delta\":{\"type\":\"text_delta\",\"text\":\""
+                + escape(chunk.toString()) + "\"}}"));
+        }
+        lines.add(new Line(0, "{\"type\":\"result\",\"subtype\":\"success\",\"is_error\":false,\"result\":\""
+            + escape(answer) + "\",\"session_id\":\"\",\"total_cost_usd\":0,\"usage\":{\"input_tokens\":"
+            + (prompt.length() / 4 + 1) + ",\"output_tokens\":" + words.length + "}}"));
+        return lines;
+    }
+
+    private static int textLength(String json) {
+        int length = 0;
+        if (json.contains("\"result\"")) {
+            return 0;  // The final result repeats text that was already streamed
+        }
+        Matcher m = TEXT_VALUE.matcher(json);
+        while (m.find()) {
+            length += m.group(1).length();
+        }
+        return length;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private void sleep(double millis) throws InterruptedException {
+        double jitter = doubleOption("jitter", 0.2);
+        long scaled = Math.round(millis * (1 + jitter * (2 * random.nextDouble() - 1)));
+        if (scaled > 0) {
+            Thread.sleep(scaled);
+        }
+    }
+
+    private double doubleOption(String name, double defaultValue) {
+        String value = options.get(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private record Line(long t, String json) {}
+}
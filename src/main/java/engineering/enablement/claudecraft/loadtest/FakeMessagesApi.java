@@ -0,0 +1,264 @@
+package engineering.enablement.claudecraft.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stand-in for the Messages API that replays recorded SSE streams, so the http
+ * backend can be tested and load-tested without API usage. The counterpart of
+ * {@link FakeClaudeCli} for the CLI backend.
+ *
+ * Run it, then point backend.httpBaseUrl at it (any API key is accepted):
+ * <pre>
+ * java -cp claudecraft.jar engineering.enablement.claudecraft.loadtest.FakeMessagesApi --fake-transcripts=/path/to/sse-transcripts
+ * </pre>
+ * Each POST to /v1/messages streams one recorded response. A request answering
+ * tool calls gets a response that doesn't call tools again, so a run always ends.
+ * Without transcripts a synthetic answer is streamed.
+ *
+ * <ul>
+ *   <li>--fake-port=N: port to listen on, loopback only (default 8765)</li>
+ *   <li>--fake-transcripts=DIR: *.sse files written by {@link TranscriptRecorder}</li>
+ *   <li>--fake-tokens-per-second=N: text streaming rate; 0 replays recorded timing (default 60)</li>
+ *   <li>--fake-first-byte-ms=N: delay before the response starts, like API latency (default 500)</li>
+ *   <li>--fake-jitter=F: every delay is scaled by a random factor in 1 &plusmn; F (default 0.2)</li>
+ *   <li>--fake-failure-rate=F: chance of an overloaded error event part-way through (default 0)</li>
+ *   <li>--fake-hang-rate=F: chance of stalling part-way through for ten minutes (default 0)</li>
+ *   <li>--fake-seed=N: random seed, for reproducible runs</li>
+ * </ul>
+ *
+ * Self-contained (JDK only) so it runs from the mod jar without Minecraft or Gson.
+ */
+public class FakeMessagesApi {
+    private static final Pattern TEXT_VALUE = Pattern.compile("\"text\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final long HANG_MILLIS = 10 * 60 * 1000;
+
+    private final Map<String, String> options;
+    private final Random random;
+    private final List<List<Line>> toolTranscripts = new ArrayList<>();
+    private final List<List<Line>> finalTranscripts = new ArrayList<>();
+
+    private FakeMessagesApi(Map<String, String> options) throws IOException {
+        this.options = options;
+        this.random = options.containsKey("seed") ? new Random(Long.parseLong(options.get("seed"))) : new Random();
+        loadTranscripts();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--fake-")) {
+                int eq = arg.indexOf('=');
+                options.put(eq < 0 ? arg.substring(7) : arg.substring(7, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+            }
+        }
+
+        FakeMessagesApi api = new FakeMessagesApi(options);
+        int port = Integer.parseInt(options.getOrDefault("port", "8765"));
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/v1/messages", api::handle);
+        http.setExecutor(Executors.newCachedThreadPool());  // Streams (and hangs) run concurrently
+        http.start();
+        System.out.println("Fake Messages API on http://127.0.0.1:" + port + " ("
+            + (api.toolTranscripts.size() + api.finalTranscripts.size()) + " transcripts)");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            List<Line> transcript = pickTranscript(answersTools(body));
+            if (transcript == null) {
+                transcript = synthetic(body.length());
+            }
+
+            double roll;
+            int cutoff;
+            synchronized (random) {
+                roll = random.nextDouble();
+                cutoff = roll < doubleOption("failure-rate", 0) + doubleOption("hang-rate", 0)
+                    ? random.nextInt(transcript.size()) : -1;
+            }
+
+            sleep(doubleOption("first-byte-ms", 500));
+            exchange.getResponseHeaders().set("content-type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+
+            double tokensPerSecond = doubleOption("tokens-per-second", 60);
+            long previousT = 0;
+            for (int i = 0; i < transcript.size(); i++) {
+                if (i == cutoff) {
+                    if (roll < doubleOption("failure-rate", 0)) {
+                        // The blank line first ends any event cut off part-way
+                        write(out, "\nevent: error\ndata: {\"type\":\"error\",\"error\":"
+                            + "{\"type\":\"overloaded_error\",\"message\":\"Overloaded (injected by fake API)\"}}\n\n");
+                    } else {
+                        Thread.sleep(HANG_MILLIS);
+                    }
+                    return;
+                }
+
+                Line line = transcript.get(i);
+                int textChars = textLength(line.text);
+                if (textChars > 0 && tokensPerSecond > 0) {
+                    sleep(Math.max(1, textChars / CHARS_PER_TOKEN) * 1000.0 / tokensPerSecond);
+                } else {
+                    sleep(Math.max(0, line.t - previousT));  // Tool calls and recorded pauses keep their timing
+                }
+                previousT = line.t;
+                write(out, line.text + "\n");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client went away (a stopped or cancelled run)
+        }
+    }
+
+    /**
+     * Whether the request's last message carries tool results, i.e. the model already
+     * called tools this run. Gson's compact output puts each role right before its content.
+     */
+    private static boolean answersTools(String body) {
+        int lastUser = body.lastIndexOf("\"role\":\"user\"");
+        return lastUser >= 0 && body.indexOf("\"tool_result\"", lastUser) >= 0;
+    }
+
+    private List<Line> pickTranscript(boolean answersTools) {
+        List<List<Line>> pool = answersTools || toolTranscripts.isEmpty() ? finalTranscripts
+            : finalTranscripts.isEmpty() ? toolTranscripts : null;
+        synchronized (random) {
+            if (pool == null) {
+                // Choose in proportion to what was recorded
+                int index = random.nextInt(toolTranscripts.size() + finalTranscripts.size());
+                return index < toolTranscripts.size() ? toolTranscripts.get(index)
+                    : finalTranscripts.get(index - toolTranscripts.size());
+            }
+            return pool.isEmpty() ? null : pool.get(random.nextInt(pool.size()));
+        }
+    }
+
+    private void loadTranscripts() throws IOException {
+        String dir = options.get("transcripts");
+        if (dir == null) {
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(Path.of(dir))) {
+            files = list.filter(p -> p.toString().endsWith(".sse")).sorted().toList();
+        }
+        for (Path file : files) {
+            List<Line> lines = new ArrayList<>();
+            boolean callsTools = false;
+            for (String raw : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int tab = raw.indexOf('\t');
+                if (raw.startsWith("#") || tab < 0) {
+                    continue;
+                }
+                String text = raw.substring(tab + 1);
+                callsTools |= text.contains("\"stop_reason\":\"tool_use\"");
+                lines.add(new Line(Long.parseLong(raw.substring(0, tab)), text));
+            }
+            if (!lines.isEmpty()) {
+                (callsTools ? toolTranscripts : finalTranscripts).add(lines);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Fake API: no transcripts in " + dir + ", using a synthetic answer");
+        }
+    }
+
+    /**
+     * A plausible response without tools: message start, streamed text deltas and a stop.
+     */
+    private static List<Line> synthetic(int requestChars) {
+        String answer = "This is a simulated answer from the fake Messages API. In a real run Claude would "
+            + "read your game state, think about the question and reply with a few short paragraphs of "
+            + "advice, which is roughly what this text stands in for.";
+
+        List<Line> lines = new ArrayList<>();
+        event(lines, "message_start", "{\"type\":\"message_start\",\"message\":{\"id\":\"msg_fake_"
+            + UUID.randomUUID().toString().replace("-", "") + "\",\"type\":\"message\",\"role\":\"assistant\","
+            + "\"content\":[],\"usage\":{\"input_tokens\":" + (requestChars / CHARS_PER_TOKEN + 1)
+            + ",\"output_tokens\":1}}}");
+        event(lines, "content_block_start",
+            "{\"type\":\"content_block_start\",\"index\":0,\"content_block\":{\"type\":\"text\",\"text\":\"\"}}");
+        String[] words = answer.split("(?<= )");
+        for (int i = 0; i < words.length; i += 3) {
+            StringBuilder chunk = new StringBuilder();
+            for (int j = i; j < Math.min(i + 3, words.length); j++) {
+                chunk.append(words[j]);
+            }
+            event(lines, "content_block_delta", "{\"type\":\"content_block_delta\",\"index\":0,"
+                + "\"delta\":{\"type\":\"text_delta\",\"text\":\"" + chunk + "\"}}");
+        }
+        event(lines, "content_block_stop", "{\"type\":\"content_block_stop\",\"index\":0}");
+        event(lines, "message_delta", "{\"type\":\"message_delta\",\"delta\":{\"stop_reason\":\"end_turn\"},"
+            + "\"usage\":{\"output_tokens\":" + words.length + "}}");
+        event(lines, "message_stop", "{\"type\":\"message_stop\"}");
+        return lines;
+    }
+
+    private static void event(List<Line> lines, String name, String data) {
+        lines.add(new Line(0, "event: " + name));
+        lines.add(new Line(0, "data: " + data));
+        lines.add(new Line(0, ""));
+    }
+
+    private static int textLength(String line) {
+        int length = 0;
+        Matcher m = TEXT_VALUE.matcher(line);
+        while (m.find()) {
+            length += m.group(1).length();
+        }
+        return length;
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sleep(double millis) throws InterruptedException {
+        double jitter = doubleOption("jitter", 0.2);
+        double factor;
+        synchronized (random) {
+            factor = 1 + jitter * (2 * random.nextDouble() - 1);
+        }
+        long scaled = Math.round(millis * factor);
+        if (scaled > 0) {
+            Thread.sleep(scaled);
+        }
+    }
+
+    private double doubleOption(String name, double defaultValue) {
+        String value = options.get(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    private record Line(long t, String text) {}
+}
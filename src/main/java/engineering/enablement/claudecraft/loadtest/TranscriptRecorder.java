@@ -0,0 +1,109 @@
+package engineering.enablement.claudecraft.loadtest;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.data.PlayerDataManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Captures the raw output of one run into a transcript file: the stream-json lines
+ * of a CLI run, which {@link FakeClaudeCli} replays, or the SSE body of one Messages
+ * API response, which {@link FakeMessagesApi} replays.
+ *
+ * Each line is "&lt;ms since the request was sent&gt;\t&lt;output line&gt;", after a
+ * "#" header naming the model. Neither format contains raw tabs or newlines, so
+ * no escaping is needed; SSE keeps its blank lines, which end each event.
+ * Transcripts of failed runs are deleted. Not thread-safe; one recorder belongs to
+ * the thread reading the output.
+ */
+public class TranscriptRecorder {
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path file;
+    private final BufferedWriter writer;
+    private final boolean keepBlankLines;
+    private final long startNanos = System.nanoTime();
+
+    private TranscriptRecorder(Path file, String model, boolean keepBlankLines) throws IOException {
+        this.file = file;
+        this.keepBlankLines = keepBlankLines;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writer.write("# model=" + model);
+        writer.newLine();
+    }
+
+    /**
+     * Start recording a CLI run if transcripts are enabled.
+     *
+     * @return the recorder, or null if recording is off or the file can't be created
+     */
+    public static TranscriptRecorder start(String model) {
+        return ClaudeCraftConfig.RECORD_TRANSCRIPTS.get() ? open("transcripts", "transcript", model, false) : null;
+    }
+
+    /**
+     * Start recording one Messages API response if SSE recording is enabled.
+     *
+     * @return the recorder, or null if recording is off or the file can't be created
+     */
+    public static TranscriptRecorder startSse(String model) {
+        return ClaudeCraftConfig.RECORD_SSE_STREAMS.get() ? open("sse-transcripts", "sse", model, true) : null;
+    }
+
+    private static TranscriptRecorder open(String dirName, String extension, String model, boolean keepBlankLines) {
+        PlayerDataManager dataManager = ClaudeCraft.getDataManager();
+        if (dataManager == null) {
+            return null;
+        }
+
+        try {
+            Path dir = dataManager.getPluginDir().resolve(dirName);
+            Files.createDirectories(dir);
+            String name = String.format("%s-%s-%04x.%s", LocalDateTime.now().format(FILE_TIME),
+                model.replaceAll("[^A-Za-z0-9.-]", "_"), ThreadLocalRandom.current().nextInt(0x10000), extension);
+            return new TranscriptRecorder(dir.resolve(name), model, keepBlankLines);
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.warn("Failed to start transcript: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Append one output line with its offset from the start of the run.
+     */
+    public void record(String line) {
+        if (line.isBlank() && !keepBlankLines) {
+            return;
+        }
+        try {
+            writer.write((System.nanoTime() - startNanos) / 1_000_000 + "\t" + line);
+            writer.newLine();
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.debug("Failed to write transcript line: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Close the transcript, keeping it only if the run succeeded.
+     */
+    public void finish(boolean success) {
+        try {
+            writer.close();
+            if (success) {
+                ClaudeCraft.LOGGER.debug("Recorded transcript {}", file.getFileName());
+            } else {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.debug("Failed to finish transcript {}: {}", file, e.getMessage());
+        }
+    }
+}
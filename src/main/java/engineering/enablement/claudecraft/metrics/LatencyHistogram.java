@@ -0,0 +1,97 @@
+package engineering.enablement.claudecraft.metrics;
+
+import com.google.gson.JsonObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with exponentially sized buckets
+ * (each bucket 25% wider than the last, from 10ms to about 20 minutes).
+ * Percentiles are accurate to within one bucket width. Thread-safe.
+ */
+public class LatencyHistogram {
+    private static final double MIN_MS = 10;
+    private static final double GROWTH = 1.25;
+    private static final int BUCKETS = 54;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMs = new AtomicLong();
+    private final AtomicLong maxMs = new AtomicLong();
+
+    public void record(long millis) {
+        long ms = Math.max(0, millis);
+        counts.incrementAndGet(bucket(ms));
+        count.incrementAndGet();
+        sumMs.addAndGet(ms);
+        maxMs.accumulateAndGet(ms, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxMs() {
+        return maxMs.get();
+    }
+
+    public double getMeanMs() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sumMs.get() / n;
+    }
+
+    /**
+     * Approximate percentile (upper bound of the bucket containing it).
+     *
+     * @param percentile 0-100
+     * @return latency in milliseconds, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(upperBound(i), maxMs.get());
+            }
+        }
+        return maxMs.get();
+    }
+
+    /**
+     * Summary for metrics files: count, mean, p50/p90/p99 and max.
+     */
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("count", getCount());
+        json.addProperty("mean_ms", Math.round(getMeanMs()));
+        json.addProperty("p50_ms", percentile(50));
+        json.addProperty("p90_ms", percentile(90));
+        json.addProperty("p99_ms", percentile(99));
+        json.addProperty("max_ms", getMaxMs());
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d p50=%dms p90=%dms p99=%dms max=%dms",
+            getCount(), percentile(50), percentile(90), percentile(99), getMaxMs());
+    }
+
+    private static int bucket(long ms) {
+        if (ms <= MIN_MS) {
+            return 0;
+        }
+        int index = (int) Math.ceil(Math.log(ms / MIN_MS) / Math.log(GROWTH));
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(MIN_MS * Math.pow(GROWTH, bucket));
+    }
+}
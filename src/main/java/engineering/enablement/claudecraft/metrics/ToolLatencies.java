@@ -0,0 +1,58 @@
+package engineering.enablement.claudecraft.metrics;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.backend.ToolProgress;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of tool calls during answers, per tool. Bash calls are keyed by the
+ * script they run (each skill separately); file tools by tool name only.
+ * Thread-safe.
+ */
+public class ToolLatencies {
+    private static final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    /**
+     * Record a finished tool call.
+     */
+    public static void record(ToolProgress progress) {
+        String key = "Bash".equals(progress.name()) ? progress.label() : progress.name();
+        latencies.computeIfAbsent(key, k -> new LatencyHistogram()).record(progress.elapsedMs());
+        if (progress.error()) {
+            errors.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Log each tool's latency (slowest p90 first) and write them to a metrics file.
+     */
+    public static void saveStats(Path file) {
+        JsonObject json = new JsonObject();
+        latencies.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, LatencyHistogram> e) -> e.getValue().percentile(90)).reversed())
+            .forEach(entry -> {
+                JsonObject toolJson = entry.getValue().toJson();
+                AtomicLong errorCount = errors.get(entry.getKey());
+                toolJson.addProperty("errors", errorCount != null ? errorCount.get() : 0);
+                json.add(entry.getKey(), toolJson);
+                ClaudeCraft.LOGGER.info("Tool {}: {}", entry.getKey(), entry.getValue());
+            });
+
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.warn("Failed to save tool metrics to {}: {}", file, e.getMessage());
+        }
+    }
+}
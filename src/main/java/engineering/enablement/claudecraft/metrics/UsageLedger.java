@@ -0,0 +1,357 @@
+package engineering.enablement.claudecraft.metrics;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.backend.RunUsage;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Daily token and cost totals per player and for the whole server, from the usage
+ * each run reports. Each day is kept in metrics/usage/&lt;date&gt;.json, saved once a
+ * minute when it changed and on server stop, and drives the optional daily quotas.
+ *
+ * Only usage the CLI reports is counted. A hedge attempt that loses is killed
+ * before it reports any, so its tokens are missing; such attempts are counted
+ * (unmeteredAttempts) to show how much spend may be under-reported.
+ * Thread-safe.
+ */
+public class UsageLedger {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final long SAVE_INTERVAL_SECONDS = 60;
+
+    private static final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ClaudeCraft-UsageLedger");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static Path usageDir;
+    private static Day today;
+    private static boolean dirty;
+    private static ScheduledFuture<?> saveTask;
+
+    /**
+     * Totals for one player or the whole server over a day.
+     */
+    public static final class Totals {
+        String name;
+        long requests;
+        long inputTokens;
+        long outputTokens;
+        long cacheReadTokens;
+        long cacheCreationTokens;
+        double costUsd;
+        long wallClockMs;
+        long unmeteredAttempts;
+
+        void add(RunUsage usage, long elapsedMs) {
+            requests++;
+            inputTokens += usage.inputTokens();
+            outputTokens += usage.outputTokens();
+            cacheReadTokens += usage.cacheReadTokens();
+            cacheCreationTokens += usage.cacheCreationTokens();
+            costUsd += usage.costUsd();
+            wallClockMs += elapsedMs;
+        }
+
+        Totals copy() {
+            Totals copy = new Totals();
+            copy.name = name;
+            copy.requests = requests;
+            copy.inputTokens = inputTokens;
+            copy.outputTokens = outputTokens;
+            copy.cacheReadTokens = cacheReadTokens;
+            copy.cacheCreationTokens = cacheCreationTokens;
+            copy.costUsd = costUsd;
+            copy.wallClockMs = wallClockMs;
+            copy.unmeteredAttempts = unmeteredAttempts;
+            return copy;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getTotalTokens() {
+            return inputTokens + outputTokens + cacheReadTokens + cacheCreationTokens;
+        }
+
+        public double getCostUsd() {
+            return costUsd;
+        }
+
+        public long getWallClockMs() {
+            return wallClockMs;
+        }
+
+        /**
+         * Killed hedge attempts whose usage is unknown (server-wide totals only).
+         */
+        public long getUnmeteredAttempts() {
+            return unmeteredAttempts;
+        }
+
+        /**
+         * Average prompt size per request; grows with long conversations.
+         */
+        public long getAverageInputTokens() {
+            return requests == 0 ? 0 : (inputTokens + cacheReadTokens + cacheCreationTokens) / requests;
+        }
+
+        @Override
+        public String toString() {
+            String text = String.format(Locale.ROOT, "%d requests, %d tokens (%d in, %d out, %d cached), $%.4f, %.1fs total",
+                requests, getTotalTokens(), inputTokens, outputTokens, cacheReadTokens, costUsd, wallClockMs / 1000.0);
+            return unmeteredAttempts > 0 ? text + ", " + unmeteredAttempts + " unmetered hedge attempt(s)" : text;
+        }
+    }
+
+    /**
+     * One day of usage, as stored on disk.
+     */
+    public static final class Day {
+        String date;
+        Totals global = new Totals();
+        Map<String, Totals> players = new HashMap<>();
+
+        public String getDate() {
+            return date;
+        }
+
+        public Totals getGlobal() {
+            return global;
+        }
+
+        /**
+         * Players sorted by cost, then tokens, highest first.
+         */
+        public List<Map.Entry<String, Totals>> getPlayersBySpend() {
+            List<Map.Entry<String, Totals>> sorted = new ArrayList<>(players.entrySet());
+            sorted.sort(Comparator.comparingDouble((Map.Entry<String, Totals> e) -> e.getValue().costUsd)
+                .thenComparingLong(e -> e.getValue().getTotalTokens()).reversed());
+            return sorted;
+        }
+    }
+
+    /**
+     * Load today's totals and start saving them periodically. Called on server start.
+     */
+    public static synchronized void init(Path pluginDir) {
+        usageDir = pluginDir.resolve("metrics").resolve("usage");
+        today = load(LocalDate.now());
+        dirty = false;
+        if (saveTask != null) {
+            saveTask.cancel(false);
+        }
+        saveTask = saver.scheduleAtFixedRate(UsageLedger::saveIfDirty,
+            SAVE_INTERVAL_SECONDS, SAVE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the periodic save and save what is left. Called on server stop.
+     */
+    public static synchronized void shutdown() {
+        if (saveTask != null) {
+            saveTask.cancel(false);
+            saveTask = null;
+        }
+        save();
+    }
+
+    /**
+     * Add a finished run to today's totals (saved with the next periodic save).
+     */
+    public static synchronized void record(UUID playerUuid, String playerName, RunUsage usage, long elapsedMs) {
+        Day day = currentDay();
+        if (day == null) {
+            return;
+        }
+        day.global.add(usage, elapsedMs);
+        Totals player = day.players.computeIfAbsent(playerUuid.toString(), k -> new Totals());
+        player.name = playerName;
+        player.add(usage, elapsedMs);
+        dirty = true;
+    }
+
+    /**
+     * Count a hedge attempt that was killed before reporting its usage.
+     */
+    public static synchronized void recordUnmeteredAttempt() {
+        Day day = currentDay();
+        if (day != null) {
+            day.global.unmeteredAttempts++;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Why a player can't start another run today, or null if they are within the
+     * configured daily quotas (or have none).
+     */
+    public static synchronized String checkQuota(UUID playerUuid, boolean isOp) {
+        long tokenQuota = ClaudeCraftConfig.DAILY_TOKEN_QUOTA.get();
+        double costQuota = ClaudeCraftConfig.DAILY_COST_QUOTA_USD.get();
+        Day day = currentDay();
+        if (day == null || (tokenQuota <= 0 && costQuota <= 0) || (isOp && ClaudeCraftConfig.QUOTA_EXEMPT_OPS.get())) {
+            return null;
+        }
+
+        Totals player = day.players.get(playerUuid.toString());
+        if (player == null) {
+            return null;
+        }
+        if ((tokenQuota > 0 && player.getTotalTokens() >= tokenQuota)
+            || (costQuota > 0 && player.costUsd >= costQuota)) {
+            return "You've reached today's AI usage limit. It resets at midnight (server time).";
+        }
+        return null;
+    }
+
+    /**
+     * A copy of one day's totals (today's, or a previous day's from disk), or null
+     * if there are none.
+     */
+    public static synchronized Day getDay(LocalDate date) {
+        Day day = date.equals(LocalDate.now()) ? currentDay() : load(date);
+        if (day == null || day.global.requests == 0) {
+            return null;
+        }
+        Day copy = new Day();
+        copy.date = day.date;
+        copy.global = day.global.copy();
+        day.players.forEach((uuid, totals) -> copy.players.put(uuid, totals.copy()));
+        return copy;
+    }
+
+    /**
+     * Write every stored day as CSV (one row per player per day, plus a row for the
+     * whole server) to metrics/usage.csv.
+     *
+     * @return the file written
+     */
+    public static synchronized Path exportCsv() throws IOException {
+        if (usageDir == null) {
+            throw new IOException("Server not started");
+        }
+        save();
+
+        List<Path> files;
+        try (Stream<Path> list = Files.exists(usageDir) ? Files.list(usageDir) : Stream.empty()) {
+            files = list.filter(p -> p.toString().endsWith(".json")).sorted().toList();
+        }
+
+        StringBuilder csv = new StringBuilder("date,player_uuid,player_name,requests,input_tokens,output_tokens,"
+            + "cache_read_tokens,cache_creation_tokens,cost_usd,wall_clock_ms,unmetered_attempts\n");
+        for (Path file : files) {
+            Day day = load(LocalDate.parse(file.getFileName().toString().replace(".json", "")));
+            appendCsv(csv, day.date, "*", "(all players)", day.global);
+            for (Map.Entry<String, Totals> entry : day.getPlayersBySpend()) {
+                appendCsv(csv, day.date, entry.getKey(), entry.getValue().name, entry.getValue());
+            }
+        }
+
+        Path out = usageDir.getParent().resolve("usage.csv");
+        Files.writeString(out, csv);
+        return out;
+    }
+
+    private static synchronized void saveIfDirty() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    /**
+     * Save today's totals.
+     */
+    public static synchronized void save() {
+        if (today == null || usageDir == null) {
+            return;
+        }
+        Path file = usageDir.resolve(today.date + ".json");
+        try {
+            Files.createDirectories(usageDir);
+            Files.writeString(file, GSON.toJson(today));
+            dirty = false;
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.warn("Failed to save usage to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * One-line summary of today's usage, for logs.
+     */
+    public static synchronized String getStats() {
+        Day day = currentDay();
+        return day == null ? "not started" : day.global + " across " + day.players.size() + " player(s)";
+    }
+
+    /**
+     * Today's totals, starting a new day (and saving the old one) after midnight.
+     */
+    private static Day currentDay() {
+        if (today == null) {
+            return null;
+        }
+        LocalDate date = LocalDate.now();
+        if (!today.date.equals(date.toString())) {
+            save();
+            today = load(date);
+        }
+        return today;
+    }
+
+    private static Day load(LocalDate date) {
+        Path file = usageDir.resolve(date + ".json");
+        if (Files.exists(file)) {
+            try {
+                Day day = GSON.fromJson(Files.readString(file), Day.class);
+                if (day != null && day.global != null && day.players != null) {
+                    day.date = date.toString();
+                    return day;
+                }
+            } catch (Exception e) {
+                ClaudeCraft.LOGGER.warn("Failed to load usage from {}: {}", file, e.getMessage());
+            }
+        }
+        Day day = new Day();
+        day.date = date.toString();
+        return day;
+    }
+
+    private static void appendCsv(StringBuilder csv, String date, String uuid, String name, Totals totals) {
+        csv.append(date).append(',')
+            .append(uuid).append(',')
+            .append(name == null ? "" : name.replace(",", " ")).append(',')
+            .append(totals.requests).append(',')
+            .append(totals.inputTokens).append(',')
+            .append(totals.outputTokens).append(',')
+            .append(totals.cacheReadTokens).append(',')
+            .append(totals.cacheCreationTokens).append(',')
+            .append(String.format(Locale.ROOT, "%.6f", totals.costUsd)).append(',')
+            .append(totals.wallClockMs).append(',')
+            .append(totals.unmeteredAttempts).append('\n');
+    }
+}
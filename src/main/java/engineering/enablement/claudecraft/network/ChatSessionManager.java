@@ -1,9 +1,13 @@
 package engineering.enablement.claudecraft.network;
 
 import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
 import engineering.enablement.claudecraft.claude.ClaudeProcessTracker;
 import engineering.enablement.claudecraft.claude.ClaudeSessionReader;
+import engineering.enablement.claudecraft.claude.PrespawnPool;
+import engineering.enablement.claudecraft.claude.RunAdmission;
 import engineering.enablement.claudecraft.data.PlayerDataManager;
+import engineering.enablement.claudecraft.routing.ModelRouter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
@@ -12,17 +16,56 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Manages Claude Code sessions for each player.
  * Tracks which session IDs belong to each player, while Claude's global
  * storage handles the actual conversation data.
+ *
+ * Every message resumes the whole conversation, so once a session file grows past
+ * the configured size the next message starts a new session instead, seeded with
+ * a summary of the old one and its latest turns. The new session is linked to the
+ * old one (sessions/continuations.json) and the pair is shown as one conversation.
  */
 public class ChatSessionManager {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
     private static final Map<UUID, String> activeSessions = new ConcurrentHashMap<>();
     private static final Map<UUID, Set<String>> playerSessionIds = new ConcurrentHashMap<>();
+    private static final Map<UUID, Map<String, String>> playerContinuations = new ConcurrentHashMap<>();
+    private static final Map<UUID, Deque<String>> servedAnswers = new ConcurrentHashMap<>();
+
+    // Compaction checks read session files, so they stay off the server thread
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ClaudeCraft-Compaction");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Ends context sent ahead of a player's message (a continuation seed or answers
+    // served in-mod); the player's message follows it
+    private static final String SEED_END = "\n[New message]\n";
+    private static final int MAX_SERVED_ANSWERS = 5;
+    private static final int MAX_SERVED_ANSWER_CHARS = 1000;
+    private static final int MAX_SUMMARY_MESSAGES = 80;
+    private static final int MAX_QUESTION_CHARS = 150;
+    private static final int MAX_REPLY_CHARS = 300;
+    private static final int MAX_TURN_CHARS = 1500;
+
+    /**
+     * A new conversation that continues one that grew too long.
+     *
+     * @param previousSessionId the conversation it continues
+     * @param seed text sent ahead of the player's first message
+     */
+    public record Continuation(String previousSessionId, String seed) {
+        public String prompt(String message) {
+            return seed + message;
+        }
+    }
 
     /**
      * Get the current session ID for a player.
@@ -64,7 +107,15 @@ public class ChatSessionManager {
      */
     public static void setSessionId(UUID playerUuid, String sessionId) {
         activeSessions.put(playerUuid, sessionId);
+        persistSessionId(playerUuid, sessionId);
+    }
 
+    /**
+     * Save a player's current session ID and session list to disk only, leaving the
+     * in-memory state alone. Used for a run that finished while its player was offline;
+     * the state is rebuilt from disk when they log in.
+     */
+    public static void persistSessionId(UUID playerUuid, String sessionId) {
         // Track this session as belonging to this player
         addPlayerSession(playerUuid, sessionId);
 
@@ -85,18 +136,211 @@ public class ChatSessionManager {
         }
     }
 
+    /**
+     * Whether a message in this conversation must be checked for compaction first.
+     */
+    public static boolean mayCompact(String sessionId) {
+        return sessionId != null && ClaudeCraftConfig.COMPACT_SESSIONS.get();
+    }
+
+    /**
+     * Check on a worker thread whether a player's conversation has grown too long
+     * to keep resuming.
+     *
+     * @return the continuation to start instead, or null to resume the conversation as is
+     */
+    public static CompletableFuture<Continuation> planCompaction(UUID playerUuid, String sessionId) {
+        return CompletableFuture.supplyAsync(() -> checkCompaction(playerUuid, sessionId), compactor);
+    }
+
+    private static Continuation checkCompaction(UUID playerUuid, String sessionId) {
+        if (!mayCompact(sessionId)) {
+            return null;
+        }
+        long size = ClaudeSessionReader.getSessionSize(sessionId);
+        if (size <= ClaudeCraftConfig.COMPACT_SESSION_KB.get() * 1024L) {
+            return null;
+        }
+
+        List<ClientChatHandler.ChatMessageRecord> messages = loadMessages(playerUuid, sessionId);
+        if (messages.isEmpty()) {
+            return null;
+        }
+        ClaudeCraft.LOGGER.info("Compacting conversation {} for player {} ({} KB, {} messages)",
+            sessionId, playerUuid, size / 1024, messages.size());
+        return new Continuation(sessionId, buildSeed(messages));
+    }
+
+    /**
+     * Remember a question answered without Claude (fast path, cache or FAQ), so the
+     * conversation sees it with the player's next message.
+     */
+    public static void recordServedAnswer(UUID playerUuid, String question, String answer) {
+        Deque<String> served = servedAnswers.computeIfAbsent(playerUuid, k -> new ArrayDeque<>());
+        synchronized (served) {
+            served.addLast("Player: " + truncate(question, MAX_SERVED_ANSWER_CHARS)
+                + "\nAnswer shown: " + truncate(answer, MAX_SERVED_ANSWER_CHARS) + "\n");
+            while (served.size() > MAX_SERVED_ANSWERS) {
+                served.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Whether the player has answers served since their last Claude run; their next
+     * message then depends on that context.
+     */
+    public static boolean hasServedAnswers(UUID playerUuid) {
+        return servedAnswers.containsKey(playerUuid);
+    }
+
+    /**
+     * Take the answers served since the player's last Claude run, as text to send
+     * ahead of their next message ("" if none).
+     */
+    public static String takeServedAnswers(UUID playerUuid) {
+        Deque<String> served = servedAnswers.remove(playerUuid);
+        if (served == null) {
+            return "";
+        }
+        StringBuilder context = new StringBuilder("[Since your last reply, the mod answered these directly:]\n");
+        synchronized (served) {
+            served.forEach(exchange -> context.append('\n').append(exchange));
+        }
+        return context.append(SEED_END).toString();
+    }
+
+    /**
+     * Record that a new session continues a compacted one.
+     */
+    public static void linkContinuation(UUID playerUuid, String sessionId, String previousSessionId) {
+        // Not cached if not loaded yet (or the player is offline); later reads load it from disk
+        Map<String, String> continuations = playerContinuations.get(playerUuid);
+        if (continuations == null) {
+            continuations = loadContinuations(playerUuid);
+        }
+        continuations.put(sessionId, previousSessionId);
+        saveContinuations(playerUuid, continuations);
+    }
+
+    /**
+     * The seed for a continued conversation: the earlier questions and replies cut
+     * short as a summary, then the latest turns word for word. Built from the
+     * transcript, so compaction costs no extra model call.
+     */
+    private static String buildSeed(List<ClientChatHandler.ChatMessageRecord> messages) {
+        int recent = Math.min(messages.size(), ClaudeCraftConfig.COMPACT_RECENT_TURNS.get() * 2);
+        List<String> earlier = messages.subList(0, messages.size() - recent).stream()
+            .map(m -> (m.isUser() ? "Player: " : "You: ")
+                + truncate(m.content().replace('\n', ' '), m.isUser() ? MAX_QUESTION_CHARS : MAX_REPLY_CHARS))
+            .toList();
+
+        StringBuilder seed = new StringBuilder(
+            "[This continues an earlier conversation with this player, shortened because it grew long.]\n");
+        if (!earlier.isEmpty()) {
+            seed.append("\nEarlier in the conversation, oldest first and cut short:\n");
+            int skipped = Math.max(0, earlier.size() - MAX_SUMMARY_MESSAGES);
+            if (skipped > 0) {
+                seed.append("- (").append(skipped).append(" earlier messages)\n");
+            }
+            for (String message : earlier.subList(skipped, earlier.size())) {
+                seed.append("- ").append(message).append('\n');
+            }
+        }
+        if (recent > 0) {
+            seed.append("\nThe latest messages:\n");
+            for (ClientChatHandler.ChatMessageRecord message : messages.subList(messages.size() - recent, messages.size())) {
+                seed.append(message.isUser() ? "\nPlayer: " : "\nYou: ")
+                    .append(truncate(message.content(), MAX_TURN_CHARS)).append('\n');
+            }
+        }
+        seed.append("\nCarry on from there; check the player's current state with your tools rather than "
+            + "relying on old details.\n");
+        return seed.append(SEED_END).toString();
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength - 3) + "...";
+    }
+
+    /**
+     * A conversation and the ones it continues, oldest first.
+     */
+    private static List<String> getChain(UUID playerUuid, String sessionId) {
+        Map<String, String> continuations = getContinuations(playerUuid);
+        LinkedList<String> chain = new LinkedList<>();
+        for (String id = sessionId; id != null && !chain.contains(id); id = continuations.get(id)) {
+            chain.addFirst(id);
+        }
+        return chain;
+    }
+
+    /**
+     * Get a player's continuation links (new session ID to the one it continues).
+     */
+    private static Map<String, String> getContinuations(UUID playerUuid) {
+        return playerContinuations.computeIfAbsent(playerUuid, k -> loadContinuations(playerUuid));
+    }
+
+    /**
+     * Load player's continuation links from disk.
+     */
+    private static Map<String, String> loadContinuations(UUID playerUuid) {
+        PlayerDataManager dataManager = ClaudeCraft.getDataManager();
+        if (dataManager == null) {
+            return new ConcurrentHashMap<>();
+        }
+
+        Path file = dataManager.getPlayerDir(playerUuid)
+            .resolve("sessions").resolve("continuations.json");
+
+        if (Files.exists(file)) {
+            try {
+                Map<String, String> links = GSON.fromJson(Files.readString(file),
+                    new TypeToken<Map<String, String>>(){}.getType());
+                return new ConcurrentHashMap<>(links != null ? links : Map.of());
+            } catch (Exception e) {
+                ClaudeCraft.LOGGER.debug("Failed to load conversation links: {}", e.getMessage());
+            }
+        }
+
+        return new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Save player's continuation links to disk.
+     */
+    private static void saveContinuations(UUID playerUuid, Map<String, String> continuations) {
+        PlayerDataManager dataManager = ClaudeCraft.getDataManager();
+        if (dataManager == null) {
+            return;
+        }
+
+        try {
+            Path sessionsDir = dataManager.getPlayerDir(playerUuid).resolve("sessions");
+            Files.createDirectories(sessionsDir);
+            Files.writeString(sessionsDir.resolve("continuations.json"), GSON.toJson(new TreeMap<>(continuations)));
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.error("Failed to save conversation links: {}", e.getMessage());
+        }
+    }
+
     /**
      * Add a session ID to a player's tracked sessions.
      */
     private static void addPlayerSession(UUID playerUuid, String sessionId) {
         if (sessionId == null || sessionId.isEmpty()) return;
 
-        // Add to in-memory cache
-        playerSessionIds.computeIfAbsent(playerUuid, k -> loadPlayerSessions(playerUuid))
-            .add(sessionId);
+        // Update the in-memory cache if loaded; otherwise (e.g. the player is offline)
+        // update the list on disk, which is loaded when next needed
+        Set<String> sessions = playerSessionIds.get(playerUuid);
+        if (sessions == null) {
+            sessions = loadPlayerSessions(playerUuid);
+        }
+        sessions.add(sessionId);
 
         // Persist to disk
-        savePlayerSessions(playerUuid);
+        savePlayerSessions(playerUuid, sessions);
     }
 
     /**
@@ -135,14 +379,18 @@ public class ChatSessionManager {
      * Save player's session IDs to disk.
      */
     private static void savePlayerSessions(UUID playerUuid) {
+        Set<String> sessions = playerSessionIds.get(playerUuid);
+        if (sessions != null) {
+            savePlayerSessions(playerUuid, sessions);
+        }
+    }
+
+    private static void savePlayerSessions(UUID playerUuid, Set<String> sessions) {
         PlayerDataManager dataManager = ClaudeCraft.getDataManager();
         if (dataManager == null) {
             return;
         }
 
-        Set<String> sessions = playerSessionIds.get(playerUuid);
-        if (sessions == null) return;
-
         try {
             Path sessionsDir = dataManager.getPlayerDir(playerUuid).resolve("sessions");
             Files.createDirectories(sessionsDir);
@@ -160,6 +408,8 @@ public class ChatSessionManager {
      */
     public static void newConversation(UUID playerUuid) {
         activeSessions.remove(playerUuid);
+        servedAnswers.remove(playerUuid);
+        PrespawnPool.discard(playerUuid);  // Primed for the old session
 
         PlayerDataManager dataManager = ClaudeCraft.getDataManager();
         if (dataManager == null) {
@@ -183,30 +433,44 @@ public class ChatSessionManager {
      * Resume a previous conversation.
      */
     public static void resumeConversation(UUID playerUuid, String sessionId) {
+        servedAnswers.remove(playerUuid);
         setSessionId(playerUuid, sessionId);
     }
 
     /**
      * Get conversation summaries with preview text and timestamps.
      * Uses global Claude storage but filters by player's session IDs.
+     * A compacted conversation is listed once, as its latest continuation with
+     * the preview of its first message.
      */
     public static List<ClientboundConversationListPacket.ConversationSummary> getConversationSummaries(UUID playerUuid) {
         Set<String> playerSessions = getPlayerSessionIds(playerUuid);
+        Map<String, String> continuations = getContinuations(playerUuid);
 
         var claudeSummaries = ClaudeSessionReader.getConversationSummaries(playerSessions);
+        Map<String, String> previews = new HashMap<>();
+        claudeSummaries.forEach(s -> previews.put(s.sessionId(), s.preview()));
+        Set<String> continued = new HashSet<>();
+        continuations.forEach((sessionId, previous) -> {
+            if (previews.containsKey(sessionId)) {
+                continued.add(previous);
+            }
+        });
 
         // Convert to packet-friendly format
         return claudeSummaries.stream()
+            .filter(s -> !continued.contains(s.sessionId()))
             .map(s -> new ClientboundConversationListPacket.ConversationSummary(
                 s.sessionId(),
-                s.preview(),
+                previews.getOrDefault(getChain(playerUuid, s.sessionId()).get(0), s.preview()),
                 s.timestamp()
             ))
             .toList();
     }
 
     /**
-     * Load messages for a session from Claude's global storage.
+     * Load messages for a session from Claude's global storage, including those
+     * of the conversations it continues.
      */
     public static List<ClientChatHandler.ChatMessageRecord> loadMessages(UUID playerUuid, String sessionId) {
         // Verify this session belongs to the player
@@ -217,30 +481,46 @@ public class ChatSessionManager {
             return List.of();
         }
 
-        var claudeMessages = ClaudeSessionReader.loadMessages(sessionId);
-
-        // Convert to packet-friendly format
-        return claudeMessages.stream()
-            .map(m -> new ClientChatHandler.ChatMessageRecord(m.isUser(), m.content()))
-            .toList();
+        List<ClientChatHandler.ChatMessageRecord> messages = new ArrayList<>();
+        List<String> chain = getChain(playerUuid, sessionId);
+        for (String id : chain) {
+            for (var m : ClaudeSessionReader.loadMessages(id)) {
+                // Drop context sent ahead of the player's own words
+                String content = m.content();
+                int seedEnd = m.isUser() ? content.lastIndexOf(SEED_END) : -1;
+                if (seedEnd >= 0) {
+                    content = content.substring(seedEnd + SEED_END.length());
+                }
+                // Convert to packet-friendly format
+                messages.add(new ClientChatHandler.ChatMessageRecord(m.isUser(), content));
+            }
+        }
+        return messages;
     }
 
     /**
-     * Delete a conversation from the player's history.
+     * Delete a conversation (with any it continues) from the player's history.
      * This only removes the session from tracking - the actual Claude session file remains.
      */
     public static void deleteConversation(UUID playerUuid, String sessionId) {
         if (sessionId == null || sessionId.isEmpty()) return;
 
+        List<String> chain = getChain(playerUuid, sessionId);
+        Map<String, String> continuations = getContinuations(playerUuid);
+        if (chain.size() > 1) {
+            chain.forEach(continuations::remove);
+            saveContinuations(playerUuid, continuations);
+        }
+
         // Remove from in-memory cache
         Set<String> sessions = playerSessionIds.get(playerUuid);
         if (sessions != null) {
-            sessions.remove(sessionId);
+            chain.forEach(sessions::remove);
         }
 
         // If this was the active session, clear it
         String active = activeSessions.get(playerUuid);
-        if (sessionId.equals(active)) {
+        if (chain.contains(active)) {
             activeSessions.remove(playerUuid);
 
             // Also clear from disk
@@ -263,13 +543,21 @@ public class ChatSessionManager {
 
     /**
      * Clean up when player disconnects.
-     * Cancels any active Claude processes and clears in-memory caches.
+     * Cancels any active Claude processes (unless a running answer may finish
+     * offline) and clears in-memory caches.
      */
     public static void onPlayerDisconnect(UUID playerUuid) {
         ClaudeCraft.LOGGER.info("Cleaning up sessions for player {}", playerUuid);
 
         // Cancel any active Claude processes for this player
-        ClaudeProcessTracker.cancelPlayerProcesses(playerUuid);
+        RunAdmission.cancelQueued(playerUuid);
+        if (ClaudeCraftConfig.FINISH_OFFLINE.get() && ServerboundChatPacket.detachRun(playerUuid)) {
+            ClaudeCraft.LOGGER.info("Letting the running answer for {} finish offline", playerUuid);
+        } else {
+            ClaudeProcessTracker.cancelPlayerProcesses(playerUuid);
+        }
+        PrespawnPool.discard(playerUuid);
+        ModelRouter.forgetPlayer(playerUuid);
 
         // Clear rate limit tracking
         ServerboundChatPacket.cleanupPlayer(playerUuid);
@@ -277,5 +565,7 @@ public class ChatSessionManager {
         // Clear in-memory caches (data is persisted to disk)
         activeSessions.remove(playerUuid);
         playerSessionIds.remove(playerUuid);
+        playerContinuations.remove(playerUuid);
+        servedAnswers.remove(playerUuid);
     }
 }
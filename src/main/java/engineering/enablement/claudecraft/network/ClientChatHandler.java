@@ -1,6 +1,7 @@
 package engineering.enablement.claudecraft.network;
 
 import engineering.enablement.claudecraft.ClaudeCraft;
+import net.neoforged.neoforge.network.PacketDistributor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +14,16 @@ import java.util.function.Consumer;
 public class ClientChatHandler {
     private static final StringBuilder currentResponse = new StringBuilder();
     private static boolean isReceiving = false;
+    private static boolean lastResponseCached = false;
+
+    // Position in the current answer stream, for spotting gaps and resuming
+    private static int streamRequestId = -1;
+    private static int nextSeq = 0;
+    private static boolean resumeRequested = false;
+
+    // Tool Claude is running right now, or null
+    private static String currentTool = null;
+    private static long currentToolStart = 0;
     private static String scratchPadContent = "";
     private static List<ClientboundConversationListPacket.ConversationSummary> conversationHistory = new ArrayList<>();
     private static String currentSessionId = null;
@@ -28,6 +39,7 @@ public class ClientChatHandler {
     private static Consumer<String> onScratchPadCallback = null;
     private static Consumer<List<ClientboundConversationListPacket.ConversationSummary>> onConversationListCallback = null;
     private static Consumer<List<ChatMessageRecord>> onMessageHistoryCallback = null;
+    private static Consumer<String> onStatusCallback = null;
 
     /**
      * Register callbacks for UI updates.
@@ -55,12 +67,40 @@ public class ClientChatHandler {
         onScratchPadCallback = null;
         onConversationListCallback = null;
         onMessageHistoryCallback = null;
+        onStatusCallback = null;
+    }
+
+    /**
+     * Register a callback for status text while a message waits (rate limit, run queue).
+     */
+    public static void setStatusCallback(Consumer<String> onStatus) {
+        onStatusCallback = onStatus;
     }
 
     /**
-     * Called when a chat chunk is received from server.
+     * Called when a chat chunk is received from server. Chunks already seen (from a
+     * replay) are skipped; a gap asks the server to replay from the missing chunk.
      */
-    public static void onChatChunk(String text) {
+    public static void onChatChunk(int requestId, int seq, String text) {
+        if (requestId != streamRequestId) {
+            streamRequestId = requestId;
+            nextSeq = 0;
+            resumeRequested = false;
+            currentResponse.setLength(0);
+        }
+        if (seq < nextSeq) {
+            return;
+        }
+        if (seq > nextSeq) {
+            if (!resumeRequested) {
+                resumeRequested = true;
+                PacketDistributor.sendToServer(new ServerboundResumeStreamPacket(requestId, nextSeq));
+            }
+            return;
+        }
+        nextSeq++;
+        resumeRequested = false;
+
         isReceiving = true;
         currentResponse.append(text);
 
@@ -71,11 +111,61 @@ public class ClientChatHandler {
         ClaudeCraft.LOGGER.debug("Received chat chunk: {}", text);
     }
 
+    /**
+     * Called when a message has to wait before Claude starts, or the wait is over.
+     */
+    public static void onChatQueued(long waitMillis, int position) {
+        String status;
+        if (waitMillis > 0) {
+            status = "Rate limited: sending in " + Math.max(1, (waitMillis + 999) / 1000) + "s...";
+        } else if (position > 0) {
+            status = "Server busy: #" + position + " in line...";
+        } else {
+            status = "Thinking...";
+        }
+
+        if (onStatusCallback != null) {
+            onStatusCallback.accept(status);
+        }
+    }
+
+    /**
+     * Called when Claude starts or finishes a tool call.
+     */
+    public static void onToolProgress(String tool, boolean done, int elapsedMs) {
+        String status;
+        if (done) {
+            currentTool = null;
+            status = String.format("%s done (%.1fs), thinking...", tool, elapsedMs / 1000.0);
+        } else {
+            currentTool = tool;
+            currentToolStart = System.currentTimeMillis();
+            status = "Using " + tool + "...";
+        }
+
+        if (onStatusCallback != null) {
+            onStatusCallback.accept(status);
+        }
+    }
+
+    /**
+     * Status of the tool Claude is running, with time so far, or null if none.
+     */
+    public static String getToolStatus() {
+        String tool = currentTool;
+        if (tool == null) {
+            return null;
+        }
+        return "Using " + tool + " (" + (System.currentTimeMillis() - currentToolStart) / 1000 + "s)...";
+    }
+
     /**
      * Called when chat response is complete.
      */
-    public static void onChatComplete(boolean success, String errorMessage) {
+    public static void onChatComplete(boolean success, String errorMessage, boolean cached) {
         isReceiving = false;
+        currentTool = null;
+        lastResponseCached = success && cached;
 
         if (!success) {
             ClaudeCraft.LOGGER.warn("Chat failed: {}", errorMessage);
@@ -83,6 +173,9 @@ public class ClientChatHandler {
 
         if (onCompleteCallback != null) {
             onCompleteCallback.accept(success);
+        } else if (success && currentResponse.length() > 0) {
+            // Finished while the chat screen was closed; keep it for when it reopens
+            chatMessages.add(new ChatMessageRecord(false, currentResponse.toString()));
         }
 
         // Clear the response buffer for next message
@@ -127,6 +220,17 @@ public class ClientChatHandler {
         }
     }
 
+    /**
+     * Ask the server to replay the answer in progress from the first chunk we don't
+     * have (after the chat screen was reopened or the connection came back).
+     */
+    public static void resumeStream() {
+        if (isReceiving && streamRequestId >= 0) {
+            resumeRequested = true;
+            PacketDistributor.sendToServer(new ServerboundResumeStreamPacket(streamRequestId, nextSeq));
+        }
+    }
+
     // Getters for UI
 
     public static String getCurrentResponse() {
@@ -137,6 +241,13 @@ public class ClientChatHandler {
         return isReceiving;
     }
 
+    /**
+     * Whether the last completed response was a reused (cached) answer.
+     */
+    public static boolean isLastResponseCached() {
+        return lastResponseCached;
+    }
+
     public static String getScratchPadContent() {
         return scratchPadContent;
     }
@@ -9,14 +9,18 @@ import net.neoforged.neoforge.network.handling.IPayloadContext;
 
 /**
  * Sent from server to client with a chunk of streaming AI response.
+ * requestId identifies the answer and seq numbers its chunks from 0, so the
+ * client can spot gaps and ask for a replay (ServerboundResumeStreamPacket).
  */
-public record ClientboundChatChunkPacket(String text) implements CustomPacketPayload {
+public record ClientboundChatChunkPacket(int requestId, int seq, String text) implements CustomPacketPayload {
 
     public static final CustomPacketPayload.Type<ClientboundChatChunkPacket> TYPE =
         new CustomPacketPayload.Type<>(ModNetworking.id("chat_chunk"));
 
     public static final StreamCodec<RegistryFriendlyByteBuf, ClientboundChatChunkPacket> STREAM_CODEC =
         StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, ClientboundChatChunkPacket::requestId,
+            ByteBufCodecs.VAR_INT, ClientboundChatChunkPacket::seq,
             ByteBufCodecs.STRING_UTF8, ClientboundChatChunkPacket::text,
             ClientboundChatChunkPacket::new
         );
@@ -29,8 +33,7 @@ public record ClientboundChatChunkPacket(String text) implements CustomPacketPay
     public static void handle(ClientboundChatChunkPacket packet, IPayloadContext context) {
         context.enqueueWork(() -> {
             // Client-side: append text to current response
-            // This will be handled by the UI when we implement it
-            ClientChatHandler.onChatChunk(packet.text());
+            ClientChatHandler.onChatChunk(packet.requestId(), packet.seq(), packet.text());
         });
     }
 }
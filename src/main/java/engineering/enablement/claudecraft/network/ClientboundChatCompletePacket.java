@@ -9,12 +9,18 @@ import net.neoforged.neoforge.network.handling.IPayloadContext;
 
 /**
  * Sent from server to client when AI response is complete.
+ * The cached flag marks answers reused from the response cache or FAQ index.
  */
 public record ClientboundChatCompletePacket(
     boolean success,
-    String errorMessage
+    String errorMessage,
+    boolean cached
 ) implements CustomPacketPayload {
 
+    public ClientboundChatCompletePacket(boolean success, String errorMessage) {
+        this(success, errorMessage, false);
+    }
+
     public static final CustomPacketPayload.Type<ClientboundChatCompletePacket> TYPE =
         new CustomPacketPayload.Type<>(ModNetworking.id("chat_complete"));
 
@@ -22,6 +28,7 @@ public record ClientboundChatCompletePacket(
         StreamCodec.composite(
             ByteBufCodecs.BOOL, ClientboundChatCompletePacket::success,
             ByteBufCodecs.STRING_UTF8, ClientboundChatCompletePacket::errorMessage,
+            ByteBufCodecs.BOOL, ClientboundChatCompletePacket::cached,
             ClientboundChatCompletePacket::new
         );
 
@@ -33,7 +40,7 @@ public record ClientboundChatCompletePacket(
     public static void handle(ClientboundChatCompletePacket packet, IPayloadContext context) {
         context.enqueueWork(() -> {
             // Client-side: mark response as complete
-            ClientChatHandler.onChatComplete(packet.success(), packet.errorMessage());
+            ClientChatHandler.onChatComplete(packet.success(), packet.errorMessage(), packet.cached());
         });
     }
 }
@@ -0,0 +1,36 @@
+package engineering.enablement.claudecraft.network;
+
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+
+/**
+ * Sent from server to client when a message has to wait before Claude starts on it:
+ * waitMillis for the rate limit, or position in the server-wide run queue. Both 0
+ * means the wait is over and the message is being answered.
+ */
+public record ClientboundChatQueuedPacket(long waitMillis, int position) implements CustomPacketPayload {
+
+    public static final ClientboundChatQueuedPacket STARTED = new ClientboundChatQueuedPacket(0, 0);
+
+    public static final CustomPacketPayload.Type<ClientboundChatQueuedPacket> TYPE =
+        new CustomPacketPayload.Type<>(ModNetworking.id("chat_queued"));
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, ClientboundChatQueuedPacket> STREAM_CODEC =
+        StreamCodec.composite(
+            ByteBufCodecs.VAR_LONG, ClientboundChatQueuedPacket::waitMillis,
+            ByteBufCodecs.VAR_INT, ClientboundChatQueuedPacket::position,
+            ClientboundChatQueuedPacket::new
+        );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    public static void handle(ClientboundChatQueuedPacket packet, IPayloadContext context) {
+        context.enqueueWork(() -> ClientChatHandler.onChatQueued(packet.waitMillis(), packet.position()));
+    }
+}
@@ -0,0 +1,34 @@
+package engineering.enablement.claudecraft.network;
+
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+
+/**
+ * Sent from server to client when Claude starts or finishes a tool call while
+ * answering, e.g. "Bash mc-get-inventory.sh", so the player sees what it's doing.
+ */
+public record ClientboundToolProgressPacket(String tool, boolean done, int elapsedMs) implements CustomPacketPayload {
+
+    public static final CustomPacketPayload.Type<ClientboundToolProgressPacket> TYPE =
+        new CustomPacketPayload.Type<>(ModNetworking.id("tool_progress"));
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, ClientboundToolProgressPacket> STREAM_CODEC =
+        StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, ClientboundToolProgressPacket::tool,
+            ByteBufCodecs.BOOL, ClientboundToolProgressPacket::done,
+            ByteBufCodecs.VAR_INT, ClientboundToolProgressPacket::elapsedMs,
+            ClientboundToolProgressPacket::new
+        );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    public static void handle(ClientboundToolProgressPacket packet, IPayloadContext context) {
+        context.enqueueWork(() -> ClientChatHandler.onToolProgress(packet.tool(), packet.done(), packet.elapsedMs()));
+    }
+}
@@ -27,6 +27,24 @@ public class ModNetworking {
             ServerboundChatPacket::handle
         );
 
+        registrar.playToServer(
+            ServerboundChatOpenedPacket.TYPE,
+            ServerboundChatOpenedPacket.STREAM_CODEC,
+            ServerboundChatOpenedPacket::handle
+        );
+
+        registrar.playToServer(
+            ServerboundCancelChatPacket.TYPE,
+            ServerboundCancelChatPacket.STREAM_CODEC,
+            ServerboundCancelChatPacket::handle
+        );
+
+        registrar.playToServer(
+            ServerboundResumeStreamPacket.TYPE,
+            ServerboundResumeStreamPacket.STREAM_CODEC,
+            ServerboundResumeStreamPacket::handle
+        );
+
         registrar.playToServer(
             ServerboundNewConversationPacket.TYPE,
             ServerboundNewConversationPacket.STREAM_CODEC,
@@ -76,6 +94,18 @@ public class ModNetworking {
             ClientboundChatCompletePacket::handle
         );
 
+        registrar.playToClient(
+            ClientboundChatQueuedPacket.TYPE,
+            ClientboundChatQueuedPacket.STREAM_CODEC,
+            ClientboundChatQueuedPacket::handle
+        );
+
+        registrar.playToClient(
+            ClientboundToolProgressPacket.TYPE,
+            ClientboundToolProgressPacket.STREAM_CODEC,
+            ClientboundToolProgressPacket::handle
+        );
+
         registrar.playToClient(
             ClientboundScratchPadSyncPacket.TYPE,
             ClientboundScratchPadSyncPacket.STREAM_CODEC,
@@ -0,0 +1,109 @@
+package engineering.enablement.claudecraft.network;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.data.PlayerDataManager;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.PacketDistributor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Answers that finished after their player disconnected (left, or timed out on a
+ * flaky connection). The answer is saved to the player's sessions/pending.json and
+ * delivered on the next login by resuming its conversation and sending the message
+ * history; if the player is already back when it finishes, it's delivered at once.
+ */
+public class OfflineAnswers {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private record PendingAnswer(String sessionId, String prompt, String answer, long completedAt) {}
+
+    /**
+     * Save an answer that finished while its player was offline.
+     *
+     * @param sessionId the conversation it belongs to, or null if unknown
+     */
+    public static void save(MinecraftServer server, UUID playerUuid, String sessionId, String prompt, String answer) {
+        PlayerDataManager dataManager = ClaudeCraft.getDataManager();
+        if (dataManager == null) {
+            return;
+        }
+
+        Path file = pendingFile(dataManager, playerUuid);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, GSON.toJson(new PendingAnswer(sessionId, prompt, answer, System.currentTimeMillis())));
+            ClaudeCraft.LOGGER.info("Saved answer for offline player {} ({} chars)", playerUuid, answer.length());
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.error("Failed to save answer for offline player {}: {}", playerUuid, e.getMessage());
+            return;
+        }
+
+        // Reconnected while the answer was finishing
+        server.execute(() -> {
+            ServerPlayer player = server.getPlayerList().getPlayer(playerUuid);
+            if (player != null) {
+                deliver(player);
+            }
+        });
+    }
+
+    /**
+     * Send a saved answer to a player who just logged in (or came back), making its
+     * conversation the current one. Call after the login conversation reset.
+     */
+    public static void deliver(ServerPlayer player) {
+        PlayerDataManager dataManager = ClaudeCraft.getDataManager();
+        if (dataManager == null) {
+            return;
+        }
+
+        UUID playerUuid = player.getUUID();
+        Path file = pendingFile(dataManager, playerUuid);
+        PendingAnswer pending;
+        try {
+            if (!Files.exists(file)) {
+                return;
+            }
+            pending = GSON.fromJson(Files.readString(file), PendingAnswer.class);
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            ClaudeCraft.LOGGER.warn("Failed to read pending answer for {}: {}", player.getName().getString(), e.getMessage());
+            return;
+        }
+        if (pending == null || pending.answer() == null) {
+            return;
+        }
+
+        // The conversation log has the answer in context; fall back to just this exchange
+        List<ClientChatHandler.ChatMessageRecord> messages = List.of();
+        String sessionId = pending.sessionId();
+        if (sessionId != null) {
+            ChatSessionManager.resumeConversation(playerUuid, sessionId);
+            messages = ChatSessionManager.loadMessages(playerUuid, sessionId);
+        }
+        if (messages.isEmpty()) {
+            messages = List.of(
+                new ClientChatHandler.ChatMessageRecord(true, pending.prompt()),
+                new ClientChatHandler.ChatMessageRecord(false, pending.answer()));
+        }
+
+        PacketDistributor.sendToPlayer(player,
+            new ClientboundMessageHistoryPacket(sessionId != null ? sessionId : "", messages));
+        player.sendSystemMessage(Component.literal("Claude finished answering while you were away. Open the AI chat to read it."));
+        ClaudeCraft.LOGGER.info("Delivered answer finished offline to {}", player.getName().getString());
+    }
+
+    private static Path pendingFile(PlayerDataManager dataManager, UUID playerUuid) {
+        return dataManager.getPlayerDir(playerUuid).resolve("sessions").resolve("pending.json");
+    }
+}
@@ -0,0 +1,38 @@
+package engineering.enablement.claudecraft.network;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.claude.RunAdmission;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+
+/**
+ * Sent from client to server when the player presses Stop: cancels their delayed,
+ * queued or running message and kills the Claude process tree.
+ */
+public record ServerboundCancelChatPacket() implements CustomPacketPayload {
+
+    public static final CustomPacketPayload.Type<ServerboundCancelChatPacket> TYPE =
+        new CustomPacketPayload.Type<>(ModNetworking.id("cancel_chat"));
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, ServerboundCancelChatPacket> STREAM_CODEC =
+        StreamCodec.unit(new ServerboundCancelChatPacket());
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    public static void handle(ServerboundCancelChatPacket packet, IPayloadContext context) {
+        ServerPlayer player = (ServerPlayer) context.player();
+        if (ServerboundChatPacket.cancelDelayed(player.getUUID()) || RunAdmission.cancelQueued(player.getUUID())) {
+            // A queued message never started, so no run will report the error
+            ClaudeCraft.LOGGER.info("Player {} withdrew their waiting AI message", player.getName().getString());
+            context.reply(new ClientboundChatCompletePacket(false, "Stopped by player."));
+        } else if (ServerboundChatPacket.cancelRun(player.getUUID())) {
+            ClaudeCraft.LOGGER.info("Player {} stopped their AI message", player.getName().getString());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package engineering.enablement.claudecraft.network;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.backend.ChatBackends;
+import engineering.enablement.claudecraft.backend.ChatRequest;
+import engineering.enablement.claudecraft.claude.ClaudeProcessTracker;
+import engineering.enablement.claudecraft.data.PlayerDataManager;
+import engineering.enablement.claudecraft.routing.ModelRouter;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+
+/**
+ * Sent from client to server as a hint that the player is about to type a message
+ * (chat screen opened, conversation switched). The backend may start Claude early.
+ */
+public record ServerboundChatOpenedPacket() implements CustomPacketPayload {
+
+    public static final CustomPacketPayload.Type<ServerboundChatOpenedPacket> TYPE =
+        new CustomPacketPayload.Type<>(ModNetworking.id("chat_opened"));
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, ServerboundChatOpenedPacket> STREAM_CODEC =
+        StreamCodec.unit(new ServerboundChatOpenedPacket());
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    public static void handle(ServerboundChatOpenedPacket packet, IPayloadContext context) {
+        context.enqueueWork(() -> {
+            ServerPlayer player = (ServerPlayer) context.player();
+            PlayerDataManager dataManager = ClaudeCraft.getDataManager();
+            if (dataManager == null || ClaudeProcessTracker.getActiveCount(player.getUUID()) > 0) {
+                return;  // Not ready, or still answering the previous message
+            }
+
+            ModelRouter.Route route = ModelRouter.predict(player.getUUID());
+            ChatBackends.get().prime(new ChatRequest(dataManager.getPluginDir(), player.getUUID(),
+                player.hasPermissions(2), ChatSessionManager.getSessionId(player.getUUID()),
+                route.model(), route.maxTurns()));
+        });
+    }
+}
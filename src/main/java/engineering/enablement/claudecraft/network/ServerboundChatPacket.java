@@ -1,9 +1,21 @@
 package engineering.enablement.claudecraft.network;
 
 import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.backend.ChatBackend;
+import engineering.enablement.claudecraft.backend.ChatBackends;
+import engineering.enablement.claudecraft.backend.ChatRequest;
+import engineering.enablement.claudecraft.backend.ChatRun;
 import engineering.enablement.claudecraft.claude.ClaudeProcess;
 import engineering.enablement.claudecraft.claude.ClaudeProcessTracker;
+import engineering.enablement.claudecraft.claude.RateLimiter;
+import engineering.enablement.claudecraft.claude.RunAdmission;
 import engineering.enablement.claudecraft.data.PlayerDataManager;
+import engineering.enablement.claudecraft.metrics.UsageLedger;
+import engineering.enablement.claudecraft.routing.FaqIndex;
+import engineering.enablement.claudecraft.routing.IntentRouter;
+import engineering.enablement.claudecraft.routing.ModelRouter;
+import engineering.enablement.claudecraft.routing.ResponseCache;
 import net.minecraft.network.RegistryFriendlyByteBuf;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
@@ -13,18 +25,41 @@ import net.neoforged.neoforge.network.handling.IPayloadContext;
 
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Sent from client to server when player sends a chat message to the AI.
+ * bypassCache is set by "Ask Claude anyway" to skip reused answers.
  */
-public record ServerboundChatPacket(String message) implements CustomPacketPayload {
+public record ServerboundChatPacket(String message, boolean bypassCache) implements CustomPacketPayload {
 
-    // Rate limiting: max 1 concurrent process per player, min 2 seconds between messages
+    // Rate limiting: max 1 concurrent process per player; message rates are token buckets (RateLimiter)
     private static final int MAX_CONCURRENT_PROCESSES = 1;
-    private static final long MIN_MESSAGE_INTERVAL_MS = 2000;
-    private static final Map<UUID, Long> lastMessageTime = new ConcurrentHashMap<>();
+
+    // Messages held back by the rate limit, sent when their tokens refill; also times offline runs
+    private static final Map<UUID, ScheduledFuture<?>> delayedMessages = new ConcurrentHashMap<>();
+    // Players whose message waits on a compaction check
+    private static final Set<UUID> compactionChecks = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ClaudeCraft-ChatTimers");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Each player's running request, for the stop button and finishing after disconnect
+    private static final Map<UUID, ActiveRun> activeRuns = new ConcurrentHashMap<>();
+
+    // Cached answers are sent in pieces to stay well under the packet string limit
+    private static final int CACHED_CHUNK_CHARS = 8000;
 
     public static final CustomPacketPayload.Type<ServerboundChatPacket> TYPE =
         new CustomPacketPayload.Type<>(ModNetworking.id("chat"));
@@ -32,9 +67,14 @@ public record ServerboundChatPacket(String message) implements CustomPacketPaylo
     public static final StreamCodec<RegistryFriendlyByteBuf, ServerboundChatPacket> STREAM_CODEC =
         StreamCodec.composite(
             ByteBufCodecs.STRING_UTF8, ServerboundChatPacket::message,
+            ByteBufCodecs.BOOL, ServerboundChatPacket::bypassCache,
             ServerboundChatPacket::new
         );
 
+    public ServerboundChatPacket(String message) {
+        this(message, false);
+    }
+
     @Override
     public Type<? extends CustomPacketPayload> type() {
         return TYPE;
@@ -44,7 +84,66 @@ public record ServerboundChatPacket(String message) implements CustomPacketPaylo
      * Clean up rate limit tracking for a player (called on disconnect).
      */
     public static void cleanupPlayer(UUID playerUuid) {
-        lastMessageTime.remove(playerUuid);
+        cancelDelayed(playerUuid);
+        StreamLog.cleanupPlayer(playerUuid);
+        activeRuns.computeIfPresent(playerUuid, (k, run) -> run.offline().get() ? run : null);
+        RateLimiter.cleanupPlayer(playerUuid);
+    }
+
+    /**
+     * Let a disconnected player's running request finish within the configured
+     * budget; its answer is saved for the next login instead of streamed.
+     *
+     * @return true if there was a run to keep going
+     */
+    public static boolean detachRun(UUID playerUuid) {
+        ActiveRun run = activeRuns.get(playerUuid);
+        if (run == null || !run.offline().compareAndSet(false, true)) {
+            return false;
+        }
+        int budget = ClaudeCraftConfig.OFFLINE_BUDGET_SECONDS.get();
+        timers.schedule(() -> {
+            if (run.offline().get() && activeRuns.remove(playerUuid, run) && run.future().cancel(true)) {
+                ClaudeCraft.LOGGER.info("Stopped answer for offline player {}: over the {}s budget", playerUuid, budget);
+            }
+        }, budget, TimeUnit.SECONDS);
+        return true;
+    }
+
+    /**
+     * Stream a detached run to its player again (they reconnected and resumed it).
+     */
+    public static void reattachRun(UUID playerUuid) {
+        ActiveRun run = activeRuns.get(playerUuid);
+        if (run != null) {
+            run.offline().set(false);
+        }
+    }
+
+    /**
+     * Drop a player's message that is waiting on the rate limit, giving back the
+     * rate limit tokens it reserved.
+     *
+     * @return true if one was dropped
+     */
+    public static boolean cancelDelayed(UUID playerUuid) {
+        ScheduledFuture<?> delayed = delayedMessages.remove(playerUuid);
+        if (delayed == null || !delayed.cancel(false)) {
+            return false;
+        }
+        RateLimiter.refund(playerUuid);
+        return true;
+    }
+
+    /**
+     * Stop a player's running request. Cancelling the run's future kills its
+     * process tree and frees its slot for the next queued request.
+     *
+     * @return true if a run was stopped
+     */
+    public static boolean cancelRun(UUID playerUuid) {
+        ActiveRun run = activeRuns.remove(playerUuid);
+        return run != null && run.future().cancel(true);
     }
 
     public static void handle(ServerboundChatPacket packet, IPayloadContext context) {
@@ -52,8 +151,10 @@ public record ServerboundChatPacket(String message) implements CustomPacketPaylo
         ServerPlayer player = (ServerPlayer) context.player();
         UUID playerUuid = player.getUUID();
 
-        // Rate limit check: concurrent processes
-        int activeCount = ClaudeProcessTracker.getActiveCount(playerUuid);
+        // Rate limit check: concurrent processes (a delayed or queued request counts as one)
+        int activeCount = ClaudeProcessTracker.getActiveCount(playerUuid)
+            + (RunAdmission.isQueued(playerUuid) || delayedMessages.containsKey(playerUuid)
+                || compactionChecks.contains(playerUuid) ? 1 : 0);
         if (activeCount >= MAX_CONCURRENT_PROCESSES) {
             ClaudeCraft.LOGGER.warn("Player {} rate limited: {} active processes",
                 player.getName().getString(), activeCount);
@@ -62,17 +163,20 @@ public record ServerboundChatPacket(String message) implements CustomPacketPaylo
             return;
         }
 
-        // Rate limit check: message interval
-        long now = System.currentTimeMillis();
-        Long lastTime = lastMessageTime.get(playerUuid);
-        if (lastTime != null && (now - lastTime) < MIN_MESSAGE_INTERVAL_MS) {
-            ClaudeCraft.LOGGER.warn("Player {} rate limited: message too soon",
-                player.getName().getString());
-            context.reply(new ClientboundChatCompletePacket(false,
-                "Please wait a moment before sending another message."));
-            return;
+        // Fast path: trivial game-state questions are answered from the live player. Checked
+        // after the concurrency limit, so it never replaces a stream that is still running
+        if (ClaudeCraftConfig.INTENT_FAST_PATH.get()) {
+            IntentRouter.Answer answer = IntentRouter.tryAnswer(player, packet.message());
+            if (answer != null) {
+                ClaudeCraft.LOGGER.info("Player {} sent AI message: {} (answered in-mod: {})",
+                    player.getName().getString(), packet.message(), answer.intent());
+                StreamLog.Stream stream = StreamLog.begin(playerUuid, context::reply);
+                stream.chunk(answer.text());
+                stream.complete(new ClientboundChatCompletePacket(true, ""));
+                ChatSessionManager.recordServedAnswer(playerUuid, packet.message(), answer.text());
+                return;
+            }
         }
-        lastMessageTime.put(playerUuid, now);
 
         PlayerDataManager dataManager = ClaudeCraft.getDataManager();
 
@@ -87,32 +191,232 @@ public record ServerboundChatPacket(String message) implements CustomPacketPaylo
         // Get or create session for this player
         String sessionId = ChatSessionManager.getSessionId(player.getUUID());
 
-        ClaudeProcess claude = new ClaudeProcess(pluginDir, player.getUUID(), isOp);
-        if (sessionId != null) {
-            claude.setSessionId(sessionId);
+        // Only a fresh conversation can reuse an answer; later messages depend on context,
+        // including answers already served in-mod
+        boolean freshConversation = sessionId == null && !ChatSessionManager.hasServedAnswers(playerUuid);
+        String cacheKey = freshConversation ? ResponseCache.key(packet.message(), player) : null;
+        boolean promptStateDependent = ResponseCache.isStateDependent(packet.message());
+        FaqIndex faqIndex = ClaudeCraftConfig.FAQ_CACHE_ENABLED.get() ? ClaudeCraft.getFaqIndex() : null;
+        String fingerprint = ResponseCache.fingerprint(player);
+        if (cacheKey != null && !promptStateDependent && !packet.bypassCache()) {
+            String cached = ResponseCache.get(cacheKey);
+            if (cached != null) {
+                ClaudeCraft.LOGGER.info("Player {} sent AI message: {} (response cache hit)",
+                    player.getName().getString(), packet.message());
+                sendCachedAnswer(playerUuid, context, cached);
+                ChatSessionManager.recordServedAnswer(playerUuid, packet.message(), cached);
+                return;
+            }
+
+            FaqIndex.Match match = faqIndex != null
+                ? faqIndex.find(packet.message(), fingerprint, ClaudeCraftConfig.FAQ_SIMILARITY.get(), faqMaxAgeMillis())
+                : null;
+            if (match != null) {
+                ClaudeCraft.LOGGER.info("Player {} sent AI message: {} (FAQ match {} for \"{}\")",
+                    player.getName().getString(), packet.message(),
+                    String.format("%.2f", match.similarity()), match.question());
+                sendCachedAnswer(playerUuid, context, match.answer());
+                ChatSessionManager.recordServedAnswer(playerUuid, packet.message(), match.answer());
+                return;
+            }
+        }
+
+        // Daily quota check: cached answers above stay free
+        String overQuota = UsageLedger.checkQuota(playerUuid, isOp);
+        if (overQuota != null) {
+            ClaudeCraft.LOGGER.warn("Player {} over daily usage quota", player.getName().getString());
+            context.reply(new ClientboundChatCompletePacket(false, overQuota));
+            return;
+        }
+
+        // A conversation too long to keep resuming continues in a new session. Checking
+        // reads the session file, so it runs off the server thread
+        if (!ChatSessionManager.mayCompact(sessionId)) {
+            dispatch(packet, context, player, pluginDir, isOp, sessionId, null, cacheKey, promptStateDependent,
+                faqIndex, fingerprint);
+            return;
+        }
+        compactionChecks.add(playerUuid);
+        ChatSessionManager.planCompaction(playerUuid, sessionId)
+            .exceptionally(e -> {
+                ClaudeCraft.LOGGER.warn("Compaction check failed for {}: {}", sessionId, e.getMessage());
+                return null;
+            })
+            .thenAccept(continuation -> {
+                try {
+                    if (!player.hasDisconnected()) {
+                        dispatch(packet, context, player, pluginDir, isOp, sessionId, continuation, cacheKey,
+                            promptStateDependent, faqIndex, fingerprint);
+                    }
+                } finally {
+                    compactionChecks.remove(playerUuid);
+                }
+            });
+    }
+
+    /**
+     * Route a message and start its run, now or once the rate limit allows.
+     *
+     * @param continuation set when the run starts a new session continuing a compacted one
+     */
+    private static void dispatch(ServerboundChatPacket packet, IPayloadContext context, ServerPlayer player,
+                                 Path pluginDir, boolean isOp, String sessionId,
+                                 ChatSessionManager.Continuation continuation, String cacheKey,
+                                 boolean promptStateDependent, FaqIndex faqIndex, String fingerprint) {
+        UUID playerUuid = player.getUUID();
+        String runSessionId = continuation != null ? null : sessionId;
+
+        // Route on the conversation, not the run: a continuation is still a follow-up
+        ModelRouter.Route route = ModelRouter.route(packet.message(), sessionId);
+        ModelRouter.remember(playerUuid, route.tier());
+
+        ChatRequest request = new ChatRequest(pluginDir, playerUuid, isOp, runSessionId, route.model(), route.maxTurns());
+
+        Runnable start = () -> {
+            try {
+                startRun(packet, context, player, request, route, continuation, cacheKey,
+                    promptStateDependent, faqIndex, fingerprint);
+            } catch (RuntimeException e) {
+                // RunAdmission frees the slot; the player still needs an answer
+                context.reply(new ClientboundChatCompletePacket(false, "Failed to start Claude: " + e.getMessage()));
+                throw e;
+            }
+        };
+
+        // Rate limit check: token buckets; a message over the rate waits instead of failing
+        long waitMillis = RateLimiter.reserve(playerUuid);
+        if (waitMillis < 0) {
+            ClaudeCraft.LOGGER.warn("Player {} rate limited: wait over {}s",
+                player.getName().getString(), ClaudeCraftConfig.MAX_RATE_LIMIT_WAIT_SECONDS.get());
+            context.reply(new ClientboundChatCompletePacket(false,
+                "You're sending messages too fast. Please wait a moment and try again."));
+            return;
+        }
+        if (waitMillis == 0) {
+            admit(packet, context, player, start, false);
+            return;
         }
 
-        ClaudeCraft.LOGGER.info("Player {} sent AI message: {}",
-            player.getName().getString(), packet.message());
+        ClaudeCraft.LOGGER.info("Player {} sent AI message: {} (rate limited, sending in {} ms)",
+            player.getName().getString(), packet.message(), waitMillis);
+        context.reply(new ClientboundChatQueuedPacket(waitMillis, 0));
+        ScheduledFuture<?>[] delayed = new ScheduledFuture<?>[1];
+        synchronized (delayed) {
+            delayed[0] = timers.schedule(() -> {
+                synchronized (delayed) {
+                    if (!delayedMessages.remove(playerUuid, delayed[0])) {
+                        return;  // Withdrawn by the player
+                    }
+                }
+                admit(packet, context, player, start, true);
+            }, waitMillis, TimeUnit.MILLISECONDS);
+            delayedMessages.put(playerUuid, delayed[0]);
+        }
+    }
 
-        // Run Claude asynchronously and stream results back
-        // The callbacks are called from the async thread, but context.reply() is thread-safe
-        claude.run(
-            packet.message(),
+    /**
+     * Start a run, or queue it if the server is at its run limit.
+     *
+     * @param waited whether the client was told the message is waiting, so it needs to
+     *               hear that it started
+     */
+    private static void admit(ServerboundChatPacket packet, IPayloadContext context, ServerPlayer player,
+                              Runnable start, boolean waited) {
+        AtomicBoolean notifyStart = new AtomicBoolean(waited);
+        int position;
+        try {
+            position = RunAdmission.submit(player.getUUID(), () -> {
+                if (notifyStart.get()) {
+                    context.reply(ClientboundChatQueuedPacket.STARTED);
+                }
+                start.run();
+            });
+        } catch (RuntimeException e) {
+            ClaudeCraft.LOGGER.error("Failed to start Claude run for {}", player.getName().getString(), e);
+            return;
+        }
+        if (position > 0) {
+            notifyStart.set(true);
+            context.reply(new ClientboundChatQueuedPacket(0, position));
+            ClaudeCraft.LOGGER.info("Player {} sent AI message: {} (queued at position {})",
+                player.getName().getString(), packet.message(), position);
+        }
+    }
+
+    /**
+     * Run Claude asynchronously and stream results back. Releases the admission
+     * slot when the run ends.
+     *
+     * @param continuation set when the run starts a new session continuing a compacted one
+     */
+    private static void startRun(ServerboundChatPacket packet, IPayloadContext context, ServerPlayer player,
+                                 ChatRequest request, ModelRouter.Route route,
+                                 ChatSessionManager.Continuation continuation, String cacheKey,
+                                 boolean promptStateDependent, FaqIndex faqIndex, String fingerprint) {
+        String sessionId = request.sessionId();
+        ChatBackend backend = ChatBackends.get();
+        ChatRun claude = backend.prepare(request);
+
+        ClaudeCraft.LOGGER.info("Player {} sent AI message: {} (tier {}: {}, {} turns; {}; {} backend{})",
+            player.getName().getString(), packet.message(),
+            route.tier(), route.model(), route.maxTurns(), route.reason(), backend.getName(),
+            claude instanceof ClaudeProcess process && process.isPrimed() ? ", pre-spawned" : "");
+
+        long startTime = System.currentTimeMillis();
+        AtomicLong firstChunkTime = new AtomicLong(-1);
+        AtomicBoolean offline = new AtomicBoolean();
+        StreamLog.Stream stream = StreamLog.begin(player.getUUID(), context::reply);
+        claude.setToolListener(progress -> stream.send(
+            new ClientboundToolProgressPacket(progress.label(), progress.done(), (int) progress.elapsedMs())));
+
+        // The callbacks are called from the async thread, but context.reply() is thread-safe.
+        // The stream stops sending on disconnect; an answer finished offline is saved.
+        // Answers served in-mod since the last run go ahead of the message, so the
+        // conversation knows what the player has already been told
+        String prompt = ChatSessionManager.takeServedAnswers(player.getUUID()) + packet.message();
+        CompletableFuture<String> run = claude.run(
+            continuation != null ? continuation.prompt(prompt) : prompt,
             // On each text chunk, send to client
             chunk -> {
-                context.reply(new ClientboundChatChunkPacket(chunk));
+                firstChunkTime.compareAndSet(-1, System.currentTimeMillis());
+                stream.chunk(chunk);
             },
             // On complete
             fullResponse -> {
-                // Save session ID for future messages
+                long now = System.currentTimeMillis();
+                long firstChunk = firstChunkTime.get();
+                ModelRouter.recordLatency(route.tier(), firstChunk < 0 ? -1 : firstChunk - startTime, now - startTime);
+
+                // Save session ID for future messages. Offline, only on disk: the player's
+                // in-memory state was cleared and OfflineAnswers.deliver restores it on login
                 String newSessionId = claude.getSessionId();
                 boolean isNewSession = sessionId == null && newSessionId != null;
+                boolean finishedOffline = offline.get();
 
                 if (newSessionId != null) {
-                    ChatSessionManager.setSessionId(player.getUUID(), newSessionId);
+                    if (isNewSession && continuation != null) {
+                        ChatSessionManager.linkContinuation(player.getUUID(), newSessionId,
+                            continuation.previousSessionId());
+                    }
+                    if (finishedOffline) {
+                        ChatSessionManager.persistSessionId(player.getUUID(), newSessionId);
+                    } else {
+                        ChatSessionManager.setSessionId(player.getUUID(), newSessionId);
+                    }
+                }
+                if (cacheKey != null) {
+                    boolean stateDependent = promptStateDependent || claude.usedTools();
+                    ResponseCache.put(cacheKey, fullResponse, stateDependent);
+                    if (!stateDependent && faqIndex != null) {
+                        faqIndex.add(packet.message(), fingerprint, fullResponse);
+                    }
+                }
+                stream.complete(new ClientboundChatCompletePacket(true, ""));
+                if (finishedOffline) {
+                    OfflineAnswers.save(player.getServer(), player.getUUID(),
+                        newSessionId != null ? newSessionId : sessionId, packet.message(), fullResponse);
+                    return;
                 }
-                context.reply(new ClientboundChatCompletePacket(true, ""));
 
                 // If this was a new conversation (first message), send updated conversation list
                 if (isNewSession) {
@@ -122,10 +426,42 @@ public record ServerboundChatPacket(String message) implements CustomPacketPaylo
             },
             // On error
             error -> {
-                ClaudeCraft.LOGGER.error("Claude error for {}: {}",
-                    player.getName().getString(), error.getMessage());
-                context.reply(new ClientboundChatCompletePacket(false, error.getMessage()));
+                ClaudeCraft.LOGGER.error("Claude error for {}{}: {}",
+                    player.getName().getString(), offline.get() ? " (offline)" : "", error.getMessage());
+                stream.complete(new ClientboundChatCompletePacket(false, error.getMessage()));
             }
         );
+
+        ActiveRun active = new ActiveRun(run, offline);
+        activeRuns.put(player.getUUID(), active);
+        run.whenComplete((result, error) -> {
+            activeRuns.remove(player.getUUID(), active);
+            RunAdmission.release();
+            UsageLedger.record(player.getUUID(), player.getName().getString(), claude.getUsage(),
+                System.currentTimeMillis() - startTime);
+        });
+    }
+
+    /**
+     * Stream a cached answer through the normal chunk/complete packets.
+     */
+    private static void sendCachedAnswer(UUID playerUuid, IPayloadContext context, String answer) {
+        StreamLog.Stream stream = StreamLog.begin(playerUuid, context::reply);
+        int start = 0;
+        while (start < answer.length()) {
+            int end = Math.min(answer.length(), start + CACHED_CHUNK_CHARS);
+            if (end < answer.length() && Character.isHighSurrogate(answer.charAt(end - 1))) {
+                end--;  // Don't split a surrogate pair
+            }
+            stream.chunk(answer.substring(start, end));
+            start = end;
+        }
+        stream.complete(new ClientboundChatCompletePacket(true, "", true));
+    }
+
+    private record ActiveRun(CompletableFuture<String> future, AtomicBoolean offline) {}
+
+    private static long faqMaxAgeMillis() {
+        return ClaudeCraftConfig.FAQ_MAX_AGE_DAYS.get() * 24L * 60 * 60 * 1000;
     }
 }
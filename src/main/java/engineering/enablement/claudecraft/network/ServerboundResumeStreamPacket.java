@@ -0,0 +1,49 @@
+package engineering.enablement.claudecraft.network;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+
+import java.util.UUID;
+
+/**
+ * Sent from client to server when it missed part of an answer (chat reopened,
+ * reconnected, chunk out of sequence): replays the answer from chunk fromSeq and
+ * streams the rest live, without running the prompt again.
+ */
+public record ServerboundResumeStreamPacket(int requestId, int fromSeq) implements CustomPacketPayload {
+
+    public static final CustomPacketPayload.Type<ServerboundResumeStreamPacket> TYPE =
+        new CustomPacketPayload.Type<>(ModNetworking.id("resume_stream"));
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, ServerboundResumeStreamPacket> STREAM_CODEC =
+        StreamCodec.composite(
+            ByteBufCodecs.VAR_INT, ServerboundResumeStreamPacket::requestId,
+            ByteBufCodecs.VAR_INT, ServerboundResumeStreamPacket::fromSeq,
+            ServerboundResumeStreamPacket::new
+        );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    public static void handle(ServerboundResumeStreamPacket packet, IPayloadContext context) {
+        ServerPlayer player = (ServerPlayer) context.player();
+        UUID playerUuid = player.getUUID();
+        StreamLog.Stream stream = StreamLog.get(playerUuid);
+        if (stream == null || stream.getRequestId() != packet.requestId()) {
+            context.reply(new ClientboundChatCompletePacket(false, "That answer is no longer available."));
+            return;
+        }
+
+        ClaudeCraft.LOGGER.info("Player {} resumed answer {} from chunk {}",
+            player.getName().getString(), packet.requestId(), packet.fromSeq());
+        ServerboundChatPacket.reattachRun(playerUuid);
+        stream.resume(packet.fromSeq(), context::reply);
+    }
+}
@@ -0,0 +1,147 @@
+package engineering.enablement.claudecraft.network;
+
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Server-side log of each player's latest answer stream, so a client that missed
+ * chunks (screen reopened, reconnected) can ask for a replay from a sequence number
+ * instead of running the prompt again.
+ *
+ * Every answer gets a request ID; its chunks are numbered from 0 and kept up to
+ * MAX_LOG_CHARS (far longer than a normal answer; older chunks are dropped beyond
+ * that and can't be replayed), along with the final complete packet. Packets go to
+ * the stream's current sink, which is detached on disconnect and re-attached by a
+ * resume request. Thread-safe.
+ */
+public class StreamLog {
+    private static final int MAX_LOG_CHARS = 256 * 1024;
+
+    private static final AtomicInteger nextRequestId = new AtomicInteger(1);
+    private static final Map<UUID, Stream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * Start a new stream for a player, replacing their previous one.
+     */
+    public static Stream begin(UUID playerUuid, Consumer<CustomPacketPayload> sink) {
+        Stream stream = new Stream(nextRequestId.getAndIncrement(), sink);
+        streams.put(playerUuid, stream);
+        return stream;
+    }
+
+    public static Stream get(UUID playerUuid) {
+        return streams.get(playerUuid);
+    }
+
+    /**
+     * Stop sending to a disconnected player. A finished stream is dropped; an
+     * unfinished one is kept so it can be resumed after reconnecting.
+     */
+    public static void cleanupPlayer(UUID playerUuid) {
+        Stream stream = streams.get(playerUuid);
+        if (stream != null && stream.detach()) {
+            streams.remove(playerUuid, stream);
+        }
+    }
+
+    public static final class Stream {
+        private final int requestId;
+        private final Deque<String> chunks = new ArrayDeque<>();
+        private int firstSeq;
+        private int nextSeq;
+        private int chars;
+        private ClientboundChatCompletePacket complete;
+        private Consumer<CustomPacketPayload> sink;
+
+        private Stream(int requestId, Consumer<CustomPacketPayload> sink) {
+            this.requestId = requestId;
+            this.sink = sink;
+        }
+
+        public int getRequestId() {
+            return requestId;
+        }
+
+        /**
+         * Log a chunk of the answer and send it if a client is attached.
+         */
+        public synchronized void chunk(String text) {
+            int seq = nextSeq++;
+            chunks.addLast(text);
+            chars += text.length();
+            while (chars > MAX_LOG_CHARS && chunks.size() > 1) {
+                chars -= chunks.removeFirst().length();
+                firstSeq++;
+            }
+            if (sink != null) {
+                sink.accept(new ClientboundChatChunkPacket(requestId, seq, text));
+            }
+        }
+
+        /**
+         * Send a packet about the answer in progress if a client is attached,
+         * without logging it (progress that's stale by the time of a replay).
+         */
+        public synchronized void send(CustomPacketPayload packet) {
+            if (sink != null && complete == null) {
+                sink.accept(packet);
+            }
+        }
+
+        /**
+         * Log the end of the answer and send it if a client is attached.
+         */
+        public synchronized void complete(ClientboundChatCompletePacket packet) {
+            complete = packet;
+            if (sink != null) {
+                sink.accept(packet);
+            }
+        }
+
+        public synchronized boolean isComplete() {
+            return complete != null;
+        }
+
+        /**
+         * Send everything from fromSeq on, then keep sending to this sink if the
+         * answer is still going. Fails the answer on the client if fromSeq was dropped.
+         */
+        public synchronized void resume(int fromSeq, Consumer<CustomPacketPayload> newSink) {
+            if (fromSeq < firstSeq) {
+                // Dropped from the log; an exact replay is no longer possible
+                newSink.accept(new ClientboundChatCompletePacket(false,
+                    "This answer is too long to replay. Please ask again."));
+                return;
+            }
+            int i = firstSeq;
+            for (String text : chunks) {
+                if (i >= fromSeq) {
+                    newSink.accept(new ClientboundChatChunkPacket(requestId, i, text));
+                }
+                i++;
+            }
+            if (complete != null) {
+                newSink.accept(complete);
+            } else {
+                sink = newSink;
+            }
+        }
+
+        /**
+         * Stop sending (client gone).
+         *
+         * @return whether the stream has finished
+         */
+        private synchronized boolean detach() {
+            sink = null;
+            return complete != null;
+        }
+    }
+}
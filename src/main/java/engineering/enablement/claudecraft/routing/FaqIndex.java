@@ -0,0 +1,402 @@
+package engineering.enablement.claudecraft.routing;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-wide index of past answers to general Minecraft questions, matched by
+ * lexical similarity so differently phrased versions of the same question
+ * ("how do I make a nether portal" / "how to build nether portals?") share one answer.
+ *
+ * Candidates are found with MinHash locality-sensitive hashing over each question's
+ * terms, then scored by TF-IDF cosine similarity so rare words ("diamond" vs
+ * "stone") weigh more than common ones. Everything is local; nothing is sent over
+ * the network. Answers only match questions asked in the same game mode and
+ * dimension (the {@link ResponseCache} fingerprint).
+ *
+ * Persisted to faq.json in the plugin directory, from a background thread once a
+ * minute when it changed and on server stop. Thread-safe.
+ */
+public class FaqIndex {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int MAX_ENTRIES = 2000;
+    private static final long SAVE_INTERVAL_SECONDS = 60;
+
+    private static final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ClaudeCraft-FaqIndex");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // MinHash: 64 hashes split into 32 bands of 2 rows; catches pairs with Jaccard >= ~0.3
+    private static final int NUM_HASHES = 64;
+    private static final int ROWS_PER_BAND = 2;
+    private static final long[] SEEDS = new long[NUM_HASHES];
+
+    static {
+        long seed = 0x5EED_FA0_C0FFEEL;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    // Words that carry no meaning for matching
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "the", "and", "or", "of", "to", "in", "on", "for", "with", "at", "by", "from", "into",
+        "is", "are", "was", "be", "do", "does", "did", "can", "could", "should", "would", "will",
+        "i", "you", "we", "it", "its", "what", "whats", "how", "hows", "why", "when", "which", "who",
+        "there", "any", "some", "best", "way", "ways", "get", "got", "please", "hey", "claude",
+        "minecraft", "tell", "about", "need", "want", "know", "so", "just", "like");
+
+    // Words players use interchangeably
+    private static final Map<String, String> SYNONYMS = Map.ofEntries(
+        Map.entry("build", "make"), Map.entry("craft", "make"), Map.entry("create", "make"),
+        Map.entry("crafting", "make"), Map.entry("making", "make"), Map.entry("building", "make"),
+        Map.entry("construct", "make"), Map.entry("recipe", "make"),
+        Map.entry("find", "locate"), Map.entry("finding", "locate"), Map.entry("where", "locate"),
+        Map.entry("kill", "defeat"), Map.entry("beat", "defeat"), Map.entry("fight", "defeat"),
+        Map.entry("gather", "obtain"), Map.entry("collect", "obtain"),
+        Map.entry("monster", "mob"), Map.entry("enemy", "mob"));
+
+    private final Path file;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<String, Integer> documentFrequency = new HashMap<>();
+    private final Map<Long, Set<Integer>> buckets = new HashMap<>();
+    private final Object saveLock = new Object();
+    private int nextId;
+    private boolean dirty;
+    private ScheduledFuture<?> saveTask;
+
+    private FaqIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Load the index from disk, dropping entries older than maxAgeMillis (and ones
+     * saved without a fingerprint), and start saving it periodically.
+     */
+    public static FaqIndex load(Path file, long maxAgeMillis) {
+        FaqIndex index = new FaqIndex(file);
+        if (Files.exists(file)) {
+            try {
+                List<Entry> saved = GSON.fromJson(Files.readString(file),
+                    new TypeToken<List<Entry>>(){}.getType());
+                long cutoff = System.currentTimeMillis() - maxAgeMillis;
+                if (saved != null) {
+                    for (Entry entry : saved) {
+                        if (entry != null && entry.question != null && entry.answer != null
+                            && entry.fingerprint != null && entry.createdAt >= cutoff) {
+                            index.insert(entry);
+                        }
+                    }
+                }
+                ClaudeCraft.LOGGER.info("Loaded {} FAQ entries from {}", index.entries.size(), file);
+            } catch (Exception e) {
+                ClaudeCraft.LOGGER.warn("Failed to load FAQ index from {}: {}", file, e.getMessage());
+            }
+        }
+        index.saveTask = saver.scheduleWithFixedDelay(index::save,
+            SAVE_INTERVAL_SECONDS, SAVE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return index;
+    }
+
+    /**
+     * Find the most similar past question asked in the same game state.
+     *
+     * @param fingerprint the asker's game state, from {@link ResponseCache#fingerprint}
+     * @param minSimilarity cosine similarity threshold (0-1)
+     * @return the best match at or above the threshold, or null
+     */
+    public synchronized Match find(String question, String fingerprint, double minSimilarity, long maxAgeMillis) {
+        Map<String, Integer> terms = terms(question);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        Entry best = null;
+        double bestScore = 0;
+        for (int id : candidates(signature(terms.keySet()))) {
+            Entry entry = entries.get(id);
+            if (entry.createdAt < cutoff || !entry.fingerprint.equals(fingerprint)) {
+                continue;
+            }
+            double score = cosine(terms, entry.terms);
+            if (score > bestScore) {
+                best = entry;
+                bestScore = score;
+            }
+        }
+
+        if (best == null || bestScore < minSimilarity) {
+            return null;
+        }
+        best.hits++;
+        dirty = true;
+        return new Match(best.question, best.answer, bestScore);
+    }
+
+    /**
+     * Add an answer, replacing the answer of an existing question with identical terms
+     * asked in the same game state.
+     */
+    public synchronized void add(String question, String fingerprint, String answer) {
+        Map<String, Integer> terms = terms(question);
+        if (terms.isEmpty() || answer == null || answer.isBlank()) {
+            return;
+        }
+
+        // A re-asked question refreshes its answer rather than adding a duplicate
+        for (int id : candidates(signature(terms.keySet()))) {
+            Entry existing = entries.get(id);
+            if (existing.terms.equals(terms) && existing.fingerprint.equals(fingerprint)) {
+                remove(id);
+                break;
+            }
+        }
+
+        Entry entry = new Entry();
+        entry.question = question.trim();
+        entry.fingerprint = fingerprint;
+        entry.answer = answer;
+        entry.createdAt = System.currentTimeMillis();
+        insert(entry);
+
+        while (entries.size() > MAX_ENTRIES) {
+            evictLeastUseful();
+        }
+        dirty = true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Stop the periodic save and save any changes. Called on server stop.
+     */
+    public void shutdown() {
+        saveTask.cancel(false);
+        save();
+    }
+
+    /**
+     * Write the index to disk (hit counts included) if it changed. Only taking the
+     * snapshot holds the index lock, so lookups don't wait on the write.
+     */
+    private void save() {
+        synchronized (saveLock) {
+            List<Entry> snapshot;
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+                snapshot = new ArrayList<>(entries.size());
+                for (Entry entry : entries.values()) {
+                    snapshot.add(entry.copy());
+                }
+            }
+            try {
+                Files.createDirectories(file.getParent());
+                Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.writeString(temp, GSON.toJson(snapshot));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                ClaudeCraft.LOGGER.warn("Failed to save FAQ index to {}: {}", file, e.getMessage());
+                synchronized (this) {
+                    dirty = true;
+                }
+            }
+        }
+    }
+
+    private void insert(Entry entry) {
+        entry.terms = terms(entry.question);
+        if (entry.terms.isEmpty()) {
+            return;
+        }
+        entry.signature = signature(entry.terms.keySet());
+
+        int id = nextId++;
+        entries.put(id, entry);
+        for (String term : entry.terms.keySet()) {
+            documentFrequency.merge(term, 1, Integer::sum);
+        }
+        for (long key : bandKeys(entry.signature)) {
+            buckets.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String term : entry.terms.keySet()) {
+            documentFrequency.computeIfPresent(term, (k, v) -> v > 1 ? v - 1 : null);
+        }
+        for (long key : bandKeys(entry.signature)) {
+            Set<Integer> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(id);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop the entry with the fewest hits, oldest first on ties.
+     */
+    private void evictLeastUseful() {
+        int victim = -1;
+        Entry worst = null;
+        for (var e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (worst == null || entry.hits < worst.hits
+                || (entry.hits == worst.hits && entry.createdAt < worst.createdAt)) {
+                worst = entry;
+                victim = e.getKey();
+            }
+        }
+        remove(victim);
+    }
+
+    private Set<Integer> candidates(long[] signature) {
+        Set<Integer> result = new LinkedHashSet<>();
+        for (long key : bandKeys(signature)) {
+            Set<Integer> bucket = buckets.get(key);
+            if (bucket != null) {
+                result.addAll(bucket);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * TF-IDF cosine similarity, using the current document frequencies.
+     */
+    private double cosine(Map<String, Integer> a, Map<String, Integer> b) {
+        double dot = 0, normA = 0, normB = 0;
+        for (var e : a.entrySet()) {
+            double w = e.getValue() * idf(e.getKey());
+            normA += w * w;
+            Integer other = b.get(e.getKey());
+            if (other != null) {
+                dot += w * other * idf(e.getKey());
+            }
+        }
+        for (var e : b.entrySet()) {
+            double w = e.getValue() * idf(e.getKey());
+            normB += w * w;
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+    }
+
+    private double idf(String term) {
+        int df = documentFrequency.getOrDefault(term, 0);
+        return Math.log((entries.size() + 1.0) / (df + 1.0)) + 1.0;
+    }
+
+    /**
+     * Term frequencies of a question after stop-word removal, synonym folding and
+     * light plural stemming.
+     */
+    static Map<String, Integer> terms(String text) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String word : IntentRouter.normalize(text).replace("'", "").split("[ ,]+")) {
+            if (word.isEmpty() || STOP_WORDS.contains(word)) {
+                continue;
+            }
+            if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+                word = word.endsWith("ies") ? word.substring(0, word.length() - 3) + "y"
+                    : word.substring(0, word.length() - 1);
+            }
+            word = SYNONYMS.getOrDefault(word, word);
+            terms.merge(word, 1, Integer::sum);
+        }
+        return terms;
+    }
+
+    private static long[] signature(Set<String> terms) {
+        long[] signature = new long[NUM_HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String term : terms) {
+            long h = term.hashCode();
+            for (int i = 0; i < NUM_HASHES; i++) {
+                signature[i] = Math.min(signature[i], mix(h ^ SEEDS[i]));
+            }
+        }
+        return signature;
+    }
+
+    private static long[] bandKeys(long[] signature) {
+        long[] keys = new long[NUM_HASHES / ROWS_PER_BAND];
+        for (int band = 0; band < keys.length; band++) {
+            long h = band;
+            for (int row = 0; row < ROWS_PER_BAND; row++) {
+                h = mix(h * 31 + signature[band * ROWS_PER_BAND + row]);
+            }
+            keys[band] = h;
+        }
+        return keys;
+    }
+
+    /**
+     * SplitMix64 finalizer.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A matched past answer and how similar its question was.
+     */
+    public record Match(String question, String answer, double similarity) {}
+
+    private static class Entry {
+        String question;
+        String fingerprint;
+        String answer;
+        long createdAt;
+        int hits;
+
+        // Derived from the question when loaded
+        transient Map<String, Integer> terms;
+        transient long[] signature;
+
+        Entry copy() {
+            Entry copy = new Entry();
+            copy.question = question;
+            copy.fingerprint = fingerprint;
+            copy.answer = answer;
+            copy.createdAt = createdAt;
+            copy.hits = hits;
+            return copy;
+        }
+    }
+}
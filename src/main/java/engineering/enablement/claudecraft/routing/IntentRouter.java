@@ -0,0 +1,194 @@
+package engineering.enablement.claudecraft.routing;
+
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Answers trivial game-state questions ("where am I", "what time is it") directly
+ * from the live player, without spawning Claude.
+ *
+ * Rules only match short messages that are entirely one of the known questions,
+ * so anything with extra context ("where am I relative to my base?") still goes
+ * to Claude. Must be called on the server thread.
+ */
+public class IntentRouter {
+    private static final int MAX_WORDS = 10;
+
+    // Filler allowed around a question without changing its meaning
+    private static final String PREFIX = "(?:(?:hey|hi|ok|okay|so|claude|please|quick question)[ ,]+)*";
+    private static final String SUFFIX = "(?:[ ,]+(?:right now|now|currently|please|again))*";
+
+    private static final List<Rule> RULES = List.of(
+        new Rule("position",
+            "where am i|what are my coord(?:inate)?s|(?:what(?:'s| is) )?my (?:coord(?:inate)?s|position|location)",
+            IntentRouter::answerPosition),
+        new Rule("time",
+            "what time is it|what(?:'s| is) the time|is it (?:day|night|daytime|nighttime)(?: time)?|what day is it",
+            IntentRouter::answerTime),
+        new Rule("health",
+            "how much health do i have|(?:what(?:'s| is) )?my health|how many hearts do i have|how (?:healthy|hurt) am i",
+            IntentRouter::answerHealth),
+        new Rule("hunger",
+            "how hungry am i|am i hungry|(?:what(?:'s| is) )?my (?:hunger|food)(?: level| bar)?",
+            IntentRouter::answerHunger),
+        new Rule("experience",
+            "what level am i|(?:what(?:'s| is) )?my (?:xp|exp|experience|level)(?: level)?|how much (?:xp|experience) do i have",
+            IntentRouter::answerExperience),
+        new Rule("biome",
+            "what biome (?:am i in|is this)|what(?:'s| is) (?:this|the) biome|what dimension am i in",
+            IntentRouter::answerBiome),
+        new Rule("weather",
+            "what(?:'s| is) the weather(?: like)?|is it (?:raining|storming|thundering)",
+            IntentRouter::answerWeather)
+    );
+
+    /**
+     * Try to answer a message directly.
+     *
+     * @return the answer (markdown), or null if Claude should handle it
+     */
+    public static Answer tryAnswer(ServerPlayer player, String message) {
+        String normalized = normalize(message);
+        if (normalized.isEmpty() || normalized.split(" ").length > MAX_WORDS) {
+            return null;
+        }
+
+        for (Rule rule : RULES) {
+            if (rule.pattern.matcher(normalized).matches()) {
+                return new Answer(rule.intent, rule.answer.apply(player));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lowercase, drop punctuation other than apostrophes, and collapse whitespace.
+     */
+    static String normalize(String message) {
+        return message.toLowerCase(Locale.ROOT)
+            .replace('’', '\'')
+            .replaceAll("[^a-z0-9' ,]", " ")
+            .replaceAll("\\s+", " ")
+            .replaceAll("^[ ,]+|[ ,]+$", "");
+    }
+
+    private static String answerPosition(ServerPlayer player) {
+        return String.format(Locale.ROOT, "You're at **X %d, Y %d, Z %d** in %s (%s biome), facing %s.",
+            player.getBlockX(), player.getBlockY(), player.getBlockZ(),
+            dimensionName(player), biomeName(player), facing(player.getYRot()));
+    }
+
+    private static String answerTime(ServerPlayer player) {
+        ServerLevel level = player.serverLevel();
+        long dayTime = level.getDayTime() % 24000;
+        long day = level.getDayTime() / 24000;
+
+        // Minecraft day starts at 06:00
+        long minutes = ((dayTime + 6000) % 24000) * 60 / 1000;
+        String clock = String.format(Locale.ROOT, "%02d:%02d", minutes / 60, minutes % 60);
+
+        if (!level.dimensionType().hasFixedTime()) {
+            String part = dayTime < 12000 ? "daytime" : dayTime < 13000 ? "dusk" : dayTime < 23000 ? "night" : "dawn";
+            String advice;
+            if (dayTime < 12000) {
+                advice = String.format(Locale.ROOT, "about %d seconds until sunset", (12000 - dayTime) / 20);
+            } else if (dayTime < 23000) {
+                advice = String.format(Locale.ROOT, "about %d seconds until sunrise", (23000 - dayTime) / 20);
+            } else {
+                advice = "the sun is coming up";
+            }
+            return String.format(Locale.ROOT, "It's **%s** (%s) on day %d - %s.", clock, part, day + 1, advice);
+        }
+        return String.format(Locale.ROOT, "There's no day/night cycle in %s. The Overworld clock reads **%s** on day %d.",
+            dimensionName(player), clock, day + 1);
+    }
+
+    private static String answerHealth(ServerPlayer player) {
+        float health = player.getHealth();
+        float max = player.getMaxHealth();
+        return String.format(Locale.ROOT, "You have **%.1f / %.0f health** (%s hearts)%s.",
+            health, max, formatHearts(health), player.getAbsorptionAmount() > 0
+                ? String.format(Locale.ROOT, " plus %.0f absorption", player.getAbsorptionAmount())
+                : "");
+    }
+
+    private static String answerHunger(ServerPlayer player) {
+        int food = player.getFoodData().getFoodLevel();
+        float saturation = player.getFoodData().getSaturationLevel();
+        String advice = food >= 18 ? "you'll regenerate health"
+            : food > 6 ? "you should eat soon"
+            : "you can't sprint - eat something now";
+        return String.format(Locale.ROOT, "Your hunger is **%d / 20** (%s drumsticks), saturation %.1f - %s.",
+            food, formatHearts(food), saturation, advice);
+    }
+
+    private static String answerExperience(ServerPlayer player) {
+        return String.format(Locale.ROOT, "You're **level %d**, %d%% of the way to level %d.",
+            player.experienceLevel, Math.round(player.experienceProgress * 100), player.experienceLevel + 1);
+    }
+
+    private static String answerBiome(ServerPlayer player) {
+        return String.format(Locale.ROOT, "You're in a **%s** biome in %s.",
+            biomeName(player), dimensionName(player));
+    }
+
+    private static String answerWeather(ServerPlayer player) {
+        ServerLevel level = player.serverLevel();
+        String weather = level.isThundering() ? "a **thunderstorm**"
+            : level.isRaining() ? "**rain** (snow in cold biomes)"
+            : "**clear skies**";
+        return String.format(Locale.ROOT, "There's %s in %s right now.", weather, dimensionName(player));
+    }
+
+    private static String dimensionName(ServerPlayer player) {
+        String id = player.level().dimension().location().toString();
+        return switch (id) {
+            case "minecraft:overworld" -> "the Overworld";
+            case "minecraft:the_nether" -> "the Nether";
+            case "minecraft:the_end" -> "the End";
+            default -> id;
+        };
+    }
+
+    private static String biomeName(ServerPlayer player) {
+        return player.level().getBiome(player.blockPosition())
+            .unwrapKey()
+            .map(k -> k.location().getPath().replace('_', ' '))
+            .orElse("unknown");
+    }
+
+    private static String facing(float yaw) {
+        String[] directions = {"south", "west", "north", "east"};
+        int index = Math.floorMod(Math.round(yaw / 90f), 4);
+        return directions[index];
+    }
+
+    private static String formatHearts(float points) {
+        float hearts = points / 2f;
+        return hearts == Math.floor(hearts)
+            ? String.valueOf((int) hearts)
+            : String.format(Locale.ROOT, "%.1f", hearts);
+    }
+
+    /**
+     * A direct answer plus the intent that produced it (for logging).
+     */
+    public record Answer(String intent, String text) {}
+
+    private static class Rule {
+        final String intent;
+        final Pattern pattern;
+        final Function<ServerPlayer, String> answer;
+
+        Rule(String intent, String questions, Function<ServerPlayer, String> answer) {
+            this.intent = intent;
+            this.pattern = Pattern.compile("^" + PREFIX + "(?:" + questions + ")" + SUFFIX + "$");
+            this.answer = answer;
+        }
+    }
+}
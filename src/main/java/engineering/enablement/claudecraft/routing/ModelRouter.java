@@ -0,0 +1,169 @@
+package engineering.enablement.claudecraft.routing;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import engineering.enablement.claudecraft.claude.ClaudeProcessTracker;
+import engineering.enablement.claudecraft.metrics.LatencyHistogram;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Picks the model and turn budget for each Claude run from the prompt, whether it
+ * continues a conversation and the current server load, and records latency per
+ * tier so the rules can be tuned from real data.
+ */
+public class ModelRouter {
+    private static final int QUICK_MAX_WORDS = 12;
+    private static final int COMPLEX_MIN_WORDS = 60;
+
+    // Requests that need planning or several tool round-trips
+    private static final Pattern COMPLEX_HINTS = Pattern.compile(
+        "\\b(plan|planning|design|step by step|strategy|guide|layout|blueprint|automat\\w*|redstone|"
+            + "farm|compare|optimi[sz]e|schedule|organi[sz]e|walk me through|help me build|build me)\\b");
+
+    private static final Map<UUID, ModelTier> lastTier = new ConcurrentHashMap<>();
+    private static final Map<ModelTier, LatencyHistogram> firstChunkLatency = new EnumMap<>(ModelTier.class);
+    private static final Map<ModelTier, LatencyHistogram> totalLatency = new EnumMap<>(ModelTier.class);
+
+    static {
+        for (ModelTier tier : ModelTier.values()) {
+            firstChunkLatency.put(tier, new LatencyHistogram());
+            totalLatency.put(tier, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * The chosen tier, with a short reason for logs.
+     */
+    public record Route(ModelTier tier, String model, int maxTurns, String reason) {}
+
+    /**
+     * Choose a tier for a prompt in the given session (null for a new conversation).
+     */
+    public static Route route(String prompt, String sessionId) {
+        if (!ClaudeCraftConfig.MODEL_ROUTING.get()) {
+            return toRoute(ModelTier.COMPLEX, "routing disabled");
+        }
+
+        String text = prompt.toLowerCase(Locale.ROOT);
+        int words = text.isBlank() ? 0 : text.trim().split("\\s+").length;
+        int questions = (int) text.chars().filter(c -> c == '?').count();
+        int lines = (int) text.lines().count();
+
+        ModelTier tier;
+        String reason;
+        if (words >= COMPLEX_MIN_WORDS || lines >= 4 || questions >= 3) {
+            tier = ModelTier.COMPLEX;
+            reason = "long prompt";
+        } else if (COMPLEX_HINTS.matcher(text).find()) {
+            tier = ModelTier.COMPLEX;
+            reason = "planning request";
+        } else if (words <= QUICK_MAX_WORDS && questions <= 1) {
+            tier = ModelTier.QUICK;
+            reason = "short question";
+        } else {
+            tier = ModelTier.STANDARD;
+            reason = "general";
+        }
+
+        // Follow-ups ("and how do I craft that?") need the conversation understood
+        if (tier == ModelTier.QUICK && sessionId != null) {
+            tier = ModelTier.STANDARD;
+            reason += ", follow-up";
+        }
+
+        // Under load, trade quality for latency (but never send a follow-up to QUICK)
+        ModelTier floor = sessionId != null ? ModelTier.STANDARD : ModelTier.QUICK;
+        int active = ClaudeProcessTracker.getTotalActiveCount();
+        if (active >= ClaudeCraftConfig.ROUTING_LOAD_THRESHOLD.get() && tier.compareTo(floor) > 0) {
+            tier = tier.downgrade();
+            reason += ", server busy (" + active + " active)";
+        }
+
+        return toRoute(tier, reason);
+    }
+
+    /**
+     * Best guess at the route of a player's next message, before it is typed:
+     * the tier of their previous message, or STANDARD.
+     */
+    public static Route predict(UUID playerUuid) {
+        if (!ClaudeCraftConfig.MODEL_ROUTING.get()) {
+            return toRoute(ModelTier.COMPLEX, "routing disabled");
+        }
+        return toRoute(lastTier.getOrDefault(playerUuid, ModelTier.STANDARD), "predicted");
+    }
+
+    /**
+     * Remember the tier a player's message was routed to, for {@link #predict}.
+     */
+    public static void remember(UUID playerUuid, ModelTier tier) {
+        lastTier.put(playerUuid, tier);
+    }
+
+    public static void forgetPlayer(UUID playerUuid) {
+        lastTier.remove(playerUuid);
+    }
+
+    private static Route toRoute(ModelTier tier, String reason) {
+        return new Route(tier, tier.model(), tier.maxTurns(), reason);
+    }
+
+    /**
+     * Record how long a completed run took.
+     *
+     * @param firstChunkMs time to the first streamed text, or -1 if none arrived
+     * @param totalMs time until the run completed
+     */
+    public static void recordLatency(ModelTier tier, long firstChunkMs, long totalMs) {
+        if (firstChunkMs >= 0) {
+            firstChunkLatency.get(tier).record(firstChunkMs);
+        }
+        totalLatency.get(tier).record(totalMs);
+    }
+
+    public static LatencyHistogram getFirstChunkLatency(ModelTier tier) {
+        return firstChunkLatency.get(tier);
+    }
+
+    public static LatencyHistogram getTotalLatency(ModelTier tier) {
+        return totalLatency.get(tier);
+    }
+
+    /**
+     * Log per-tier latency and write it to a JSON file for tuning.
+     */
+    public static void saveStats(Path file) {
+        JsonObject json = new JsonObject();
+        for (ModelTier tier : ModelTier.values()) {
+            JsonObject tierJson = new JsonObject();
+            tierJson.addProperty("model", tier.model());
+            tierJson.addProperty("max_turns", tier.maxTurns());
+            tierJson.add("first_chunk", firstChunkLatency.get(tier).toJson());
+            tierJson.add("total", totalLatency.get(tier).toJson());
+            json.add(tier.name().toLowerCase(Locale.ROOT), tierJson);
+
+            if (totalLatency.get(tier).getCount() > 0) {
+                ClaudeCraft.LOGGER.info("Model tier {} ({}): first chunk {}, total {}", tier, tier.model(),
+                    firstChunkLatency.get(tier), totalLatency.get(tier));
+            }
+        }
+
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+        } catch (IOException e) {
+            ClaudeCraft.LOGGER.warn("Failed to save routing metrics to {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package engineering.enablement.claudecraft.routing;
+
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+
+/**
+ * Model and turn budget tiers, cheapest first. The model name and turn budget
+ * of each tier come from the server config.
+ */
+public enum ModelTier {
+    QUICK,
+    STANDARD,
+    COMPLEX;
+
+    public String model() {
+        return switch (this) {
+            case QUICK -> ClaudeCraftConfig.QUICK_MODEL.get();
+            case STANDARD -> ClaudeCraftConfig.STANDARD_MODEL.get();
+            case COMPLEX -> ClaudeCraftConfig.COMPLEX_MODEL.get();
+        };
+    }
+
+    public int maxTurns() {
+        return switch (this) {
+            case QUICK -> ClaudeCraftConfig.QUICK_MAX_TURNS.get();
+            case STANDARD -> ClaudeCraftConfig.STANDARD_MAX_TURNS.get();
+            case COMPLEX -> ClaudeCraftConfig.COMPLEX_MAX_TURNS.get();
+        };
+    }
+
+    /**
+     * The next cheaper tier (QUICK stays QUICK).
+     */
+    public ModelTier downgrade() {
+        return this == QUICK ? QUICK : values()[ordinal() - 1];
+    }
+}
@@ -0,0 +1,144 @@
+package engineering.enablement.claudecraft.routing;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.ClaudeCraftConfig;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Server-wide cache of Claude answers to stateless questions ("how do I make a
+ * nether portal"), so repeated questions don't each cost a full Claude run.
+ *
+ * Entries are keyed by the normalized prompt plus a fingerprint of the game state
+ * that can change a general answer (game mode, dimension). Answers that depend on
+ * the asking player - runs that used tools, or prompts about "my"/"here" - are
+ * never stored. Bounded by size (LRU) and age (TTL), both from the server config.
+ * Thread-safe.
+ */
+public class ResponseCache {
+
+    // Words that tie a question to the asker's own state or surroundings
+    private static final Pattern STATE_REFERENCE = Pattern.compile(
+        "\\b(my|mine|me|myself|i'm|i've|here|nearby|around|this|these|that|current|currently|where|remember|last)\\b");
+
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    // Metrics
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong stores = new AtomicLong();
+    private static final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * Build the cache key for a prompt asked by a player.
+     */
+    public static String key(String prompt, ServerPlayer player) {
+        return IntentRouter.normalize(prompt) + "|" + fingerprint(player);
+    }
+
+    /**
+     * Check whether a prompt refers to the asker's own state, in which case
+     * its answer must not be shared with anyone else.
+     */
+    public static boolean isStateDependent(String prompt) {
+        return STATE_REFERENCE.matcher(IntentRouter.normalize(prompt)).find();
+    }
+
+    /**
+     * Look up a cached answer.
+     *
+     * @return the answer, or null on a miss or if the entry has expired
+     */
+    public static String get(String key) {
+        if (!ClaudeCraftConfig.RESPONSE_CACHE_ENABLED.get()) {
+            return null;
+        }
+
+        long ttlMs = ClaudeCraftConfig.RESPONSE_CACHE_TTL_MINUTES.get() * 60_000L;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.storedAt <= ttlMs) {
+                hits.incrementAndGet();
+                return entry.answer;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Store an answer unless it depends on the asking player.
+     *
+     * @param stateDependent true if the answer used the player's state (e.g. the run read state files)
+     */
+    public static void put(String key, String answer, boolean stateDependent) {
+        if (!ClaudeCraftConfig.RESPONSE_CACHE_ENABLED.get() || answer == null || answer.isBlank()) {
+            return;
+        }
+        if (stateDependent) {
+            skipped.incrementAndGet();
+            return;
+        }
+
+        int maxEntries = ClaudeCraftConfig.RESPONSE_CACHE_SIZE.get();
+        synchronized (entries) {
+            entries.put(key, new Entry(answer, System.currentTimeMillis()));
+
+            // Evict least recently used entries
+            var it = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        stores.incrementAndGet();
+    }
+
+    /**
+     * Drop all cached answers (metrics are kept).
+     */
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * One-line summary of cache effectiveness, for logs.
+     */
+    public static String getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return String.format("%d entries, %d hits / %d misses (%.1f%% hit rate), %d stored, %d not shared",
+            size, h, m, h + m == 0 ? 0.0 : 100.0 * h / (h + m), stores.get(), skipped.get());
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Game state that can change the answer to a general question.
+     */
+    public static String fingerprint(ServerPlayer player) {
+        return player.gameMode.getGameModeForPlayer().getName()
+            + "@" + player.level().dimension().location();
+    }
+
+    private record Entry(String answer, long storedAt) {}
+}
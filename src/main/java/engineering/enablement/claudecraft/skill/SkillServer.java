@@ -0,0 +1,361 @@
+package engineering.enablement.claudecraft.skill;
+
+import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.data.PlayerDataManager;
+import engineering.enablement.claudecraft.data.Waypoint;
+import engineering.enablement.claudecraft.data.WaypointStore;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.dimension.DimensionType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Loopback-only HTTP endpoint for skills that need live data from the mod
+ * rather than a snapshot file (e.g. spatial waypoint queries).
+ *
+ * Skill scripts find it through the MINECRAFT_SKILL_URL and MINECRAFT_SKILL_TOKEN
+ * environment variables set on each Claude process. The token is issued per player
+ * (the UUID signed with a per-server HMAC key) and is the only way a request names
+ * its player, so one player's Claude can't reach another's data. Requests without
+ * a valid token are rejected, and the socket is only bound to the loopback interface.
+ */
+public class SkillServer {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int DEFAULT_NEAREST = 5;
+    private static final int MAX_NEAREST = 50;
+    private static final long SERVER_THREAD_TIMEOUT_SECONDS = 5;
+    private static final String TOKEN_ALGORITHM = "HmacSHA256";
+
+    private final MinecraftServer server;
+    private final PlayerDataManager dataManager;
+    private final SecretKeySpec tokenKey;
+    private HttpServer http;
+    private ExecutorService executor;
+
+    public SkillServer(MinecraftServer server, PlayerDataManager dataManager) {
+        this.server = server;
+        this.dataManager = dataManager;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.tokenKey = new SecretKeySpec(secret, TOKEN_ALGORITHM);
+    }
+
+    /**
+     * Bind to an ephemeral loopback port and start serving.
+     */
+    public void start() throws IOException {
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        http.createContext("/waypoints/", this::handleWaypoints);
+
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ClaudeCraft-SkillServer");
+            t.setDaemon(true);
+            return t;
+        });
+        http.setExecutor(executor);
+        http.start();
+
+        ClaudeCraft.LOGGER.info("Skill server listening on {}", getUrl());
+    }
+
+    public void stop() {
+        if (http != null) {
+            http.stop(0);
+            http = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Base URL for skill requests (e.g. http://127.0.0.1:54321).
+     */
+    public String getUrl() {
+        InetSocketAddress address = http.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+
+    /**
+     * The skill token for a player's Claude processes: "&lt;uuid&gt;.&lt;hmac&gt;".
+     */
+    public String getToken(UUID playerUuid) {
+        return playerUuid + "." + sign(playerUuid);
+    }
+
+    /**
+     * The player a token was issued for, or null if it isn't valid.
+     */
+    private UUID resolvePlayer(String token) {
+        int dot = token != null ? token.indexOf('.') : -1;
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            UUID playerUuid = UUID.fromString(token.substring(0, dot));
+            byte[] expected = sign(playerUuid).getBytes(StandardCharsets.US_ASCII);
+            byte[] actual = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+            return MessageDigest.isEqual(expected, actual) ? playerUuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String sign(UUID playerUuid) {
+        try {
+            Mac mac = Mac.getInstance(TOKEN_ALGORITHM);
+            mac.init(tokenKey);
+            return HexFormat.of().formatHex(mac.doFinal(playerUuid.toString().getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TOKEN_ALGORITHM + " unavailable", e);
+        }
+    }
+
+    private void handleWaypoints(HttpExchange exchange) throws IOException {
+        try {
+            UUID playerUuid = resolvePlayer(exchange.getRequestHeaders().getFirst("X-Skill-Token"));
+            if (playerUuid == null) {
+                respond(exchange, 403, error("Invalid skill token"));
+                return;
+            }
+
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            WaypointStore store = dataManager.getWaypoints(playerUuid);
+            String action = exchange.getRequestURI().getPath().substring("/waypoints/".length());
+
+            // Changes must be POSTed
+            if ((action.equals("add") || action.equals("remove"))
+                && !"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, error("Use POST for " + action));
+                return;
+            }
+
+            JsonObject result = switch (action) {
+                case "list" -> list(store);
+                case "nearest" -> nearest(store, playerUuid, params);
+                case "within" -> within(store, playerUuid, params);
+                case "add" -> add(store, playerUuid, params);
+                case "remove" -> remove(store, params);
+                default -> null;
+            };
+
+            if (result == null) {
+                respond(exchange, 404, error("Unknown waypoint action: " + action));
+            } else {
+                respond(exchange, 200, result);
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()));
+        } catch (Exception e) {
+            ClaudeCraft.LOGGER.warn("Skill request failed: {}", e.getMessage());
+            respond(exchange, 500, error(e.getMessage()));
+        }
+    }
+
+    private JsonObject list(WaypointStore store) {
+        JsonObject result = new JsonObject();
+        JsonArray waypoints = new JsonArray();
+        for (Waypoint w : store.all()) {
+            waypoints.add(toJson(w, null));
+        }
+        result.add("waypoints", waypoints);
+        return result;
+    }
+
+    private JsonObject nearest(WaypointStore store, UUID playerUuid, Map<String, String> params) throws Exception {
+        Origin origin = resolveOrigin(playerUuid, params);
+        int count = Math.min(MAX_NEAREST, Integer.parseInt(params.getOrDefault("n", String.valueOf(DEFAULT_NEAREST))));
+        return withOrigin(origin, store.nearest(origin.dimension, origin.x, origin.y, origin.z, count));
+    }
+
+    private JsonObject within(WaypointStore store, UUID playerUuid, Map<String, String> params) throws Exception {
+        Origin origin = resolveOrigin(playerUuid, params);
+        double radius = Double.parseDouble(required(params, "radius"));
+        if (!Double.isFinite(radius) || radius < 0) {
+            throw new IllegalArgumentException("radius must be a non-negative number");
+        }
+        return withOrigin(origin, store.within(origin.dimension, origin.x, origin.y, origin.z, radius));
+    }
+
+    private JsonObject add(WaypointStore store, UUID playerUuid, Map<String, String> params) throws Exception {
+        String name = required(params, "name").trim();
+        if (name.isEmpty() || name.length() > 64) {
+            throw new IllegalArgumentException("Waypoint name must be 1-64 characters");
+        }
+        Origin origin = resolveOrigin(playerUuid, params);
+
+        Waypoint waypoint = new Waypoint(name, origin.dimension, origin.x, origin.y, origin.z,
+            params.getOrDefault("note", ""), System.currentTimeMillis());
+        store.put(waypoint);
+
+        JsonObject result = new JsonObject();
+        result.addProperty("saved", true);
+        result.add("waypoint", toJson(waypoint, null));
+        return result;
+    }
+
+    private JsonObject remove(WaypointStore store, Map<String, String> params) throws IOException {
+        Waypoint removed = store.remove(required(params, "name"));
+        JsonObject result = new JsonObject();
+        result.addProperty("removed", removed != null);
+        return result;
+    }
+
+    /**
+     * Use explicit coordinates if given, otherwise the player's live position.
+     */
+    private Origin resolveOrigin(UUID playerUuid, Map<String, String> params) throws Exception {
+        if (params.containsKey("x") && params.containsKey("y") && params.containsKey("z")) {
+            String dimension = params.getOrDefault("dimension", "minecraft:overworld");
+            if (!dimension.contains(":")) {
+                dimension = "minecraft:" + dimension;
+            }
+            return new Origin(dimension,
+                coordinate(params, "x", Level.MAX_LEVEL_SIZE),
+                coordinate(params, "y", DimensionType.MAX_Y),
+                coordinate(params, "z", Level.MAX_LEVEL_SIZE));
+        }
+
+        // Read the live position on the server thread
+        Origin origin = server.submit(() -> {
+            ServerPlayer player = server.getPlayerList().getPlayer(playerUuid);
+            if (player == null) {
+                return null;
+            }
+            return new Origin(player.level().dimension().location().toString(),
+                player.getX(), player.getY(), player.getZ());
+        }).get(SERVER_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        if (origin == null) {
+            throw new IllegalArgumentException("Player is not online; pass x, y, z explicitly");
+        }
+        return origin;
+    }
+
+    /**
+     * A coordinate within the largest world border (or build height, for y).
+     */
+    private static double coordinate(Map<String, String> params, String name, int limit) {
+        double value = Double.parseDouble(params.get(name));
+        if (!Double.isFinite(value) || Math.abs(value) > limit) {
+            throw new IllegalArgumentException(name + " must be a number between -" + limit + " and " + limit);
+        }
+        return value;
+    }
+
+    private JsonObject withOrigin(Origin origin, List<Waypoint> waypoints) {
+        JsonObject result = new JsonObject();
+        JsonObject from = new JsonObject();
+        from.addProperty("dimension", origin.dimension);
+        from.addProperty("x", Math.floor(origin.x));
+        from.addProperty("y", Math.floor(origin.y));
+        from.addProperty("z", Math.floor(origin.z));
+        result.add("origin", from);
+
+        JsonArray array = new JsonArray();
+        for (Waypoint w : waypoints) {
+            array.add(toJson(w, origin));
+        }
+        result.add("waypoints", array);
+        return result;
+    }
+
+    private JsonObject toJson(Waypoint w, Origin origin) {
+        JsonObject json = new JsonObject();
+        json.addProperty("name", w.name());
+        json.addProperty("dimension", w.dimension());
+        json.addProperty("x", Math.floor(w.x()));
+        json.addProperty("y", Math.floor(w.y()));
+        json.addProperty("z", Math.floor(w.z()));
+        if (w.note() != null && !w.note().isEmpty()) {
+            json.addProperty("note", w.note());
+        }
+        if (origin != null) {
+            json.addProperty("distance", Math.round(Math.sqrt(w.distanceSq(origin.x, origin.y, origin.z))));
+            json.addProperty("direction", compassDirection(w.x() - origin.x, w.z() - origin.z));
+        }
+        return json;
+    }
+
+    /**
+     * Eight-point compass direction for a horizontal offset (north is -Z in Minecraft).
+     */
+    private static String compassDirection(double dx, double dz) {
+        if (Math.abs(dx) < 1 && Math.abs(dz) < 1) {
+            return "here";
+        }
+        String[] names = {"south", "south-west", "west", "north-west", "north", "north-east", "east", "south-east"};
+        double angle = Math.toDegrees(Math.atan2(-dx, dz));  // 0 = south, 90 = west
+        int sector = (int) Math.floorMod(Math.round(angle / 45.0), 8);
+        return names[sector];
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject json = new JsonObject();
+        json.addProperty("error", message != null ? message : "Unknown error");
+        return json;
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        byte[] bytes = GSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private record Origin(String dimension, double x, double y, double z) {}
+}
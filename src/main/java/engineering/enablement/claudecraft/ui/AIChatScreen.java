@@ -3,6 +3,8 @@ package engineering.enablement.claudecraft.ui;
 import engineering.enablement.claudecraft.ClaudeCraft;
 import engineering.enablement.claudecraft.network.ClientChatHandler;
 import engineering.enablement.claudecraft.network.ClientboundConversationListPacket.ConversationSummary;
+import engineering.enablement.claudecraft.network.ServerboundCancelChatPacket;
+import engineering.enablement.claudecraft.network.ServerboundChatOpenedPacket;
 import engineering.enablement.claudecraft.network.ServerboundChatPacket;
 import engineering.enablement.claudecraft.network.ServerboundDeleteConversationPacket;
 import engineering.enablement.claudecraft.network.ServerboundNewConversationPacket;
@@ -57,6 +59,8 @@ public class AIChatScreen extends ModularUIScreen {
     private final StringBuilder currentStreamingMessage = new StringBuilder();
     private boolean panelExpanded = false;
     private List<ConversationSummary> conversations = new ArrayList<>();
+    private String lastPrompt;
+    private boolean stopRequested;
 
     // UI elements
     private ScrollerView messageContainer;
@@ -64,6 +68,7 @@ public class AIChatScreen extends ModularUIScreen {
     private TextArea inputField;
     private Button sendButton;
     private Label statusLabel;
+    private UIElement statusRow;
     private UIElement sidePanel;
     private UIElement conversationListContent;
 
@@ -93,6 +98,25 @@ public class AIChatScreen extends ModularUIScreen {
         registerCallbacks();
         loadMessages();
         loadConversations();
+        resumeStreaming();
+    }
+
+    /**
+     * Pick up an answer that was still streaming when the screen was closed: show
+     * what arrived so far and have the server replay anything missed.
+     */
+    private void resumeStreaming() {
+        if (!ClientChatHandler.isReceiving()) {
+            return;
+        }
+        currentStreamingMessage.setLength(0);
+        currentStreamingMessage.append(ClientChatHandler.getCurrentResponse());
+        setStatusButton("screen.claudecraft.chat.stop", 40, this::stopResponse);
+        sendButton.setActive(false);
+        inputField.setActive(false);
+        statusLabel.setText(Component.literal("Thinking..."));
+        refreshMessages();
+        ClientChatHandler.resumeStream();
     }
 
     /**
@@ -220,11 +244,18 @@ public class AIChatScreen extends ModularUIScreen {
         var inputArea = createInputArea();
         mainContent.addChild(inputArea);
 
-        // Status bar
+        // Status bar (with Stop while waiting, "Ask Claude anyway" after a cached answer)
+        statusRow = new UIElement();
+        statusRow.layout(layout -> layout
+            .height(15)
+            .flexDirection(YogaFlexDirection.ROW)
+            .gapAll(5)
+        );
         statusLabel = new Label();
         statusLabel.setText(Component.literal("Ready"));
-        statusLabel.layout(layout -> layout.height(15));
-        mainContent.addChild(statusLabel);
+        statusLabel.layout(layout -> layout.flexGrow(1).height(15));
+        statusRow.addChild(statusLabel);
+        mainContent.addChild(statusRow);
 
         return mainContent;
     }
@@ -396,6 +427,7 @@ public class AIChatScreen extends ModularUIScreen {
 
         // Send resume request to server
         PacketDistributor.sendToServer(new ServerboundResumeConversationPacket(sessionId));
+        PacketDistributor.sendToServer(new ServerboundChatOpenedPacket());
     }
 
     private void deleteConversation(String sessionId) {
@@ -416,6 +448,7 @@ public class AIChatScreen extends ModularUIScreen {
             this::onConversationListReceived,
             this::onMessageHistoryReceived
         );
+        ClientChatHandler.setStatusCallback(this::onStatusReceived);
     }
 
     private void onChunkReceived(String chunk) {
@@ -423,19 +456,61 @@ public class AIChatScreen extends ModularUIScreen {
         updateStreamingMessage();
     }
 
+    private void onStatusReceived(String status) {
+        if (!stopRequested && !sendButton.isActive()) {
+            statusLabel.setText(Component.literal(status));
+        }
+    }
+
     private void onResponseComplete(boolean success) {
-        if (success && currentStreamingMessage.length() > 0) {
-            String response = currentStreamingMessage.toString();
-            messages.add(new ChatMessage(false, response));
+        boolean cached = ClientChatHandler.isLastResponseCached();
+        boolean stopped = stopRequested && !success;
+        stopRequested = false;
+        if ((success || stopped) && currentStreamingMessage.length() > 0) {
+            String response = currentStreamingMessage + (stopped ? "\n\n*(stopped)*" : "");
+            messages.add(new ChatMessage(false, response, cached));
             ClientChatHandler.addMessage(false, response);
             currentStreamingMessage.setLength(0);
             refreshMessages();
         }
-        statusLabel.setText(Component.literal(success ? "Ready" : "Error occurred"));
+        statusLabel.setText(Component.literal(stopped ? "Stopped" : !success ? "Error occurred"
+            : cached ? "Answered from cache" : "Ready"));
+        if (cached && lastPrompt != null) {
+            setStatusButton("screen.claudecraft.chat.ask_anyway", 100, this::askClaudeAnyway);
+        } else {
+            setStatusButton(null, 0, null);
+        }
         sendButton.setActive(true);
         inputField.setActive(true);
     }
 
+    /**
+     * Show a button next to the status label (Stop, "Ask Claude anyway"), or none if key is null.
+     */
+    private void setStatusButton(String key, int width, Runnable action) {
+        statusRow.clearAllChildren();
+        statusRow.addChild(statusLabel);
+        if (key != null) {
+            var button = new Button();
+            button.setText(Component.translatable(key));
+            button.setOnClick(e -> action.run());
+            button.layout(layout -> layout.width(width).height(15));
+            statusRow.addChild(button);
+        }
+    }
+
+    /**
+     * Ask the server to stop the current answer; the partial text is kept.
+     */
+    private void stopResponse() {
+        if (sendButton.isActive() || stopRequested) {
+            return;
+        }
+        stopRequested = true;
+        statusLabel.setText(Component.literal("Stopping..."));
+        PacketDistributor.sendToServer(new ServerboundCancelChatPacket());
+    }
+
     private void onConversationListReceived(List<ConversationSummary> sessions) {
         conversations = new ArrayList<>(sessions);
         refreshConversationList();
@@ -460,7 +535,8 @@ public class AIChatScreen extends ModularUIScreen {
         messageContent.clearAllChildren();
 
         for (ChatMessage msg : messages) {
-            var label = createMessageLabel(msg.isUser() ? "You: " : "AI: ", msg.content(), !msg.isUser());
+            String prefix = msg.isUser() ? "You: " : msg.cached() ? "AI (cached): " : "AI: ";
+            var label = createMessageLabel(prefix, msg.content(), !msg.isUser());
             messageContent.addChild(label);
         }
 
@@ -513,20 +589,40 @@ public class AIChatScreen extends ModularUIScreen {
         inputField.setLines(List.of(""));
         refreshMessages();
 
+        lastPrompt = text;
+        sendToServer(text, false);
+    }
+
+    /**
+     * Re-send the last question straight to Claude, skipping cached answers.
+     */
+    private void askClaudeAnyway() {
+        if (lastPrompt == null || !sendButton.isActive()) {
+            return;
+        }
+        sendToServer(lastPrompt, true);
+    }
+
+    private void sendToServer(String text, boolean bypassCache) {
+        stopRequested = false;
+        setStatusButton("screen.claudecraft.chat.stop", 40, this::stopResponse);
         sendButton.setActive(false);
         inputField.setActive(false);
         statusLabel.setText(Component.literal("Thinking..."));
 
-        PacketDistributor.sendToServer(new ServerboundChatPacket(text));
+        PacketDistributor.sendToServer(new ServerboundChatPacket(text, bypassCache));
     }
 
     private void startNewConversation() {
         messages.clear();
         ClientChatHandler.clearChatMessages();
         currentStreamingMessage.setLength(0);
+        lastPrompt = null;
         refreshMessages();
+        setStatusButton(null, 0, null);
         statusLabel.setText(Component.literal("New conversation started"));
         PacketDistributor.sendToServer(new ServerboundNewConversationPacket());
+        PacketDistributor.sendToServer(new ServerboundChatOpenedPacket());
     }
 
     @Override
@@ -553,5 +649,9 @@ public class AIChatScreen extends ModularUIScreen {
         return super.keyPressed(keyCode, scanCode, modifiers);
     }
 
-    private record ChatMessage(boolean isUser, String content) {}
+    private record ChatMessage(boolean isUser, String content, boolean cached) {
+        ChatMessage(boolean isUser, String content) {
+            this(isUser, content, false);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package engineering.enablement.claudecraft.ui;
 
 import engineering.enablement.claudecraft.ClaudeCraft;
+import engineering.enablement.claudecraft.network.ServerboundChatOpenedPacket;
 import engineering.enablement.claudecraft.network.ServerboundScratchPadRequestPacket;
 import engineering.enablement.claudecraft.ui.overlay.OverlayManager;
 import engineering.enablement.claudecraft.ui.overlay.OverlayManager.OverlayType;
@@ -52,6 +53,8 @@ public class ClientEvents {
         Minecraft mc = Minecraft.getInstance();
         if (mc.screen == null) {
             mc.setScreen(new AIChatScreen());
+            // Lets the server start Claude while the player types
+            PacketDistributor.sendToServer(new ServerboundChatOpenedPacket());
         }
     }
 
@@ -91,9 +91,10 @@ public class OverlayRenderer {
             y += 10;
         }
 
-        // Show status if receiving
-        if (ClientChatHandler.isReceiving()) {
-            String status = "Thinking...";
+        // Show status if receiving or running a tool
+        String toolStatus = ClientChatHandler.getToolStatus();
+        if (toolStatus != null || ClientChatHandler.isReceiving()) {
+            String status = toolStatus != null ? toolStatus : "Thinking...";
             graphics.drawString(mc.font, status, pos.x + PADDING, pos.y + size.height - 12, 0xFF88FF88, false);
         }
     }
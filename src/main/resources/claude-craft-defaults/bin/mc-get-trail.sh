@@ -0,0 +1,19 @@
+#!/bin/bash
+# Get the player's recent position trail
+# Reads from players/{uuid}/trail.json written by the Minecraft mod
+# Points are newest first; older points are progressively more spread out
+
+set -e
+
+BASE_DIR="${CLAUDE_PROJECT_DIR:-$(pwd)}"
+PLAYER_UUID="${MINECRAFT_PLAYER_UUID:-unknown}"
+TRAIL_FILE="$BASE_DIR/players/$PLAYER_UUID/trail.json"
+
+if [ ! -f "$TRAIL_FILE" ]; then
+    echo "Error: Trail file not found at $TRAIL_FILE" >&2
+    echo "The trail is recorded as the player moves around." >&2
+    exit 1
+fi
+
+# Output the trail file - Claude can find where the player was and when
+cat "$TRAIL_FILE"
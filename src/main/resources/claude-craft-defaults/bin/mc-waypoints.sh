@@ -0,0 +1,82 @@
+#!/bin/bash
+# Query and manage the player's saved waypoints
+# Talks to the Minecraft mod's local skill endpoint (loopback only), which keeps
+# a spatial index of waypoints and mirrors them into notes/waypoints.md.
+# The skill token identifies the player, so no player ID is sent.
+#
+# Usage:
+#   mc-waypoints.sh list
+#   mc-waypoints.sh nearest [count]
+#   mc-waypoints.sh within <radius>
+#   mc-waypoints.sh add <name> [x y z [dimension]] [--note "text"]
+#   mc-waypoints.sh remove <name>
+
+set -e
+
+if [ -z "$MINECRAFT_SKILL_URL" ] || [ -z "$MINECRAFT_SKILL_TOKEN" ]; then
+    echo "Error: Skill endpoint not available" >&2
+    echo "Make sure you are in-game." >&2
+    exit 1
+fi
+
+request() {
+    local method="$1" action="$2"
+    shift 2
+    curl -sS -G -X "$method" \
+        -H "X-Skill-Token: $MINECRAFT_SKILL_TOKEN" \
+        "$@" \
+        "$MINECRAFT_SKILL_URL/waypoints/$action"
+    echo
+}
+
+ACTION="${1:-list}"
+shift || true
+
+case "$ACTION" in
+    list)
+        request GET list
+        ;;
+    nearest)
+        request GET nearest --data-urlencode "n=${1:-5}"
+        ;;
+    within)
+        if [ -z "$1" ]; then
+            echo "Usage: mc-waypoints.sh within <radius>" >&2
+            exit 1
+        fi
+        request GET within --data-urlencode "radius=$1"
+        ;;
+    add)
+        if [ -z "$1" ]; then
+            echo "Usage: mc-waypoints.sh add <name> [x y z [dimension]] [--note \"text\"]" >&2
+            exit 1
+        fi
+        NAME="$1"
+        shift
+        ARGS=(--data-urlencode "name=$NAME")
+        if [ $# -ge 3 ] && [ "$1" != "--note" ]; then
+            ARGS+=(--data-urlencode "x=$1" --data-urlencode "y=$2" --data-urlencode "z=$3")
+            shift 3
+            if [ $# -ge 1 ] && [ "$1" != "--note" ]; then
+                ARGS+=(--data-urlencode "dimension=$1")
+                shift
+            fi
+        fi
+        if [ "$1" = "--note" ]; then
+            shift
+            ARGS+=(--data-urlencode "note=$*")
+        fi
+        request POST add "${ARGS[@]}"
+        ;;
+    remove)
+        if [ -z "$1" ]; then
+            echo "Usage: mc-waypoints.sh remove <name>" >&2
+            exit 1
+        fi
+        request POST remove --data-urlencode "name=$1"
+        ;;
+    *)
+        echo "Unknown action: $ACTION (expected list, nearest, within, add, remove)" >&2
+        exit 1
+        ;;
+esac